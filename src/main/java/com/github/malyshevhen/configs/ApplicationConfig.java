@@ -1,13 +1,16 @@
 package com.github.malyshevhen.configs;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
 import javax.sql.DataSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Global application configuration.
  * 
@@ -29,12 +32,16 @@ public class ApplicationConfig {
     }
 
     @Bean
-    DataSource getDataSource(DatasourceProperties datasourceProperties) {
-        return DataSourceBuilder.create()
-                .url(datasourceProperties.getUrl())
-                .username(datasourceProperties.getUsername())
-                .password(datasourceProperties.getPassword())
-                .build();
+    DataSource getDataSource(DatasourceProperties datasourceProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return ReplicaRoutingDataSource.of(datasourceProperties, meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * Runs the schema migrations with the maintenance connection pool.
+     */
+    @Bean
+    FlywayMigrationStrategy flywayMigrationStrategy() {
+        return flyway -> Workload.MAINTENANCE.run(flyway::migrate);
     }
 
 }
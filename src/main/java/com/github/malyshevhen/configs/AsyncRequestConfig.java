@@ -0,0 +1,69 @@
+package com.github.malyshevhen.configs;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Timeouts of the asynchronous requests.
+ * </p>
+ * Asynchronous requests time out after {@code spring.mvc.async.request-timeout}.
+ * Streaming exports may take longer, so the export of users gets its own
+ * timeout, {@code users.export.timeout}.
+ *
+ * @author Evhen Malysh
+ */
+@Configuration
+public class AsyncRequestConfig implements WebMvcConfigurer {
+
+    /**
+     * Path of the export of users, relative to the context path.
+     */
+    static final String EXPORT_PATH = "/users/export";
+
+    private final Duration exportTimeout;
+
+    public AsyncRequestConfig(@Value("${users.export.timeout:1h}") Duration exportTimeout) {
+        this.exportTimeout = exportTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new ExportTimeout(exportTimeout));
+    }
+
+    /**
+     * Sets the timeout of the export requests before their asynchronous
+     * processing starts.
+     */
+    static class ExportTimeout implements CallableProcessingInterceptor {
+
+        private final long timeoutMillis;
+
+        ExportTimeout(Duration timeout) {
+            this.timeoutMillis = timeout.toMillis();
+        }
+
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            var servletRequest = request.getNativeRequest(HttpServletRequest.class);
+            if (request instanceof AsyncWebRequest asyncRequest && servletRequest != null
+                    && isExport(servletRequest)) {
+                asyncRequest.setTimeout(timeoutMillis);
+            }
+        }
+
+        private static boolean isExport(HttpServletRequest request) {
+            return request.getRequestURI().equals(request.getContextPath() + EXPORT_PATH);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.malyshevhen.configs;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Cache configuration.
+ * </p>
+ * The caches are Caffeine caches configured with the {@code spring.cache}
+ * properties. Their hit, miss, put and eviction counts are published as the
+ * {@code cache.*} metrics.
+ * <p>
+ * The users are cached with their versions by {@code UserCache}, which keeps
+ * an entry from being replaced by an older version. The caching advice of
+ * annotated methods is ordered before the transaction advice, so a cache hit
+ * costs no transaction.
+ *
+ * @author Evhen Malysh
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+    /**
+     * Information of the users with their addresses and versions by user ID.
+     */
+    public static final String USERS_CACHE = "users";
+}
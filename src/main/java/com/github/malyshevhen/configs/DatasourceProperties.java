@@ -1,5 +1,11 @@
 package com.github.malyshevhen.configs;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -7,6 +13,11 @@ import org.springframework.stereotype.Component;
 
 /**
  * Datasource configuration properties
+ * </p>
+ * The primary database is accessed through a separate connection pool for
+ * each {@link Workload}, see {@link WorkloadRoutingDataSource}. Besides the
+ * primary database, read replicas can be configured. Read-only transactions
+ * are routed to the replicas, see {@link ReplicaRoutingDataSource}.
  *
  * @author Evhen Malysh
  */
@@ -18,4 +29,97 @@ public class DatasourceProperties {
     private String url;
     private String username;
     private String password;
+
+    /**
+     * Connection pools of the primary database by workload. A pool that is not
+     * configured uses the HikariCP defaults.
+     */
+    private Map<Workload, Pool> pools = new EnumMap<>(Workload.class);
+
+    /**
+     * Read replicas of the primary database. If empty, all transactions use
+     * the primary database.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * How a replica is chosen for a read-only transaction.
+     */
+    private ReplicaBalancing replicaBalancing = ReplicaBalancing.ROUND_ROBIN;
+
+    /**
+     * How long a replica that failed to provide a connection is not used.
+     */
+    private Duration replicaRetryInterval = Duration.ofSeconds(30);
+
+    /**
+     * How long after its own write a client reads from the primary database,
+     * so it does not miss the write because of the replication lag. Clients
+     * are identified by the {@code X-Client-Id} header or their HTTP session.
+     * Zero disables it.
+     */
+    private Duration readYourWritesWindow = Duration.ZERO;
+
+    /**
+     * Returns the pool configuration of the workload.
+     *
+     * @param workload the workload
+     * @return the configured pool, or the default one if not configured
+     */
+    public Pool getPool(Workload workload) {
+        return pools.getOrDefault(workload, new Pool());
+    }
+
+    /**
+     * Connection pool configuration. Properties that are not set use the
+     * HikariCP defaults.
+     */
+    @Getter
+    @Setter
+    public static class Pool {
+
+        /**
+         * Maximum number of connections, both idle and in use.
+         */
+        private Integer maximumPoolSize;
+
+        /**
+         * Minimum number of idle connections kept in the pool.
+         */
+        private Integer minimumIdle;
+
+        /**
+         * How long a client waits for a connection before failing.
+         */
+        private Duration connectionTimeout;
+
+        /**
+         * How long a connection may sit idle above the minimum idle count.
+         */
+        private Duration idleTimeout;
+
+        /**
+         * Maximum lifetime of a connection.
+         */
+        private Duration maxLifetime;
+
+        /**
+         * How long a connection may be out of the pool before a possible leak
+         * is logged.
+         */
+        private Duration leakDetectionThreshold;
+    }
+
+    /**
+     * Connection properties of a read replica. The username and password of
+     * the primary database are used unless set.
+     */
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private Pool pool = new Pool();
+    }
 }
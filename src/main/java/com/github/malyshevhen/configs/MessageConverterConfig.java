@@ -0,0 +1,73 @@
+package com.github.malyshevhen.configs;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Binary formats of the request and response bodies.
+ * </p>
+ * Besides JSON, bodies are read and written as CBOR
+ * ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}),
+ * negotiated with the {@code Content-Type} and {@code Accept} headers. Both
+ * are written with the application's Jackson configuration, so they carry the
+ * same properties as JSON, e.g. pages written by {@code UsersPageSerializer}.
+ * <p>
+ * Responses of the operations producing several media types carry
+ * {@code Vary: Accept}, so caches keep a response per format, including
+ * {@code 304 Not Modified} and error responses.
+ *
+ * @author Evhen Malysh
+ */
+@Configuration
+public class MessageConverterConfig implements WebMvcConfigurer {
+
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new VaryByAccept());
+    }
+
+    /**
+     * Adds {@code Vary: Accept} to the responses of handlers producing more
+     * than one media type, before the handler runs. The media types are taken
+     * from the mapping of the handler, as the handler mapping only exposes
+     * those acceptable for the request.
+     */
+    static class VaryByAccept implements HandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            if (handler instanceof HandlerMethod method) {
+                var mapping = method.getMethodAnnotation(RequestMapping.class);
+                if (mapping != null && mapping.produces().length > 1) {
+                    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                }
+            }
+            return true;
+        }
+    }
+}
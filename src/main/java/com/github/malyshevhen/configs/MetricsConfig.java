@@ -0,0 +1,120 @@
+package com.github.malyshevhen.configs;
+
+import java.util.function.ToDoubleFunction;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Metrics configuration.
+ * </p>
+ * Every request is timed as {@code http.server.requests}, tagged with the
+ * {@code operation} of the users API that served it, e.g. {@code getById}, so
+ * each operation has its own latency histogram. Methods of classes annotated
+ * with {@link io.micrometer.core.annotation.Timed} are timed by
+ * {@link TimedAspect}, and the Hibernate statistics are published as
+ * {@code hibernate.*} metrics when {@code hibernate.generate_statistics} is
+ * enabled. Percentiles and SLO buckets of the timers are configured with the
+ * {@code management.metrics.distribution} properties.
+ *
+ * @author Evhen Malysh
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Times the methods of classes and the methods annotated with
+     * {@link io.micrometer.core.annotation.Timed}.
+     */
+    @Bean
+    TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Tags the request metrics with the name of the handler method, which is
+     * the operation ID of the users API, or {@code none} if no handler method
+     * served the request.
+     */
+    @Bean
+    DefaultServerRequestObservationConvention serverRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(operation(context));
+            }
+        };
+    }
+
+    private static KeyValue operation(ServerRequestObservationContext context) {
+        var handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        return KeyValue.of("operation", handler instanceof HandlerMethod method
+                ? method.getMethod().getName()
+                : KeyValue.NONE_VALUE);
+    }
+
+    /**
+     * Publishes the Hibernate statistics: sessions, transactions, statements,
+     * queries, entity loads, fetches and updates, flushes and second-level
+     * cache requests.
+     */
+    @Bean
+    MeterBinder hibernateMetrics(EntityManagerFactory entityManagerFactory) {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            if (!statistics.isStatisticsEnabled()) {
+                return;
+            }
+            counter(registry, statistics, "hibernate.sessions.open", Statistics::getSessionOpenCount);
+            counter(registry, statistics, "hibernate.transactions", Statistics::getTransactionCount);
+            counter(registry, statistics, "hibernate.optimistic.failures", Statistics::getOptimisticFailureCount);
+            counter(registry, statistics, "hibernate.statements", "status", "prepared",
+                    Statistics::getPrepareStatementCount);
+            counter(registry, statistics, "hibernate.statements", "status", "closed",
+                    Statistics::getCloseStatementCount);
+            counter(registry, statistics, "hibernate.query.executions", Statistics::getQueryExecutionCount);
+            Gauge.builder("hibernate.query.executions.max", statistics, Statistics::getQueryExecutionMaxTime)
+                    .description("The time of the slowest query")
+                    .baseUnit("milliseconds")
+                    .register(registry);
+            counter(registry, statistics, "hibernate.entities.loads", Statistics::getEntityLoadCount);
+            counter(registry, statistics, "hibernate.entities.fetches", Statistics::getEntityFetchCount);
+            counter(registry, statistics, "hibernate.entities.inserts", Statistics::getEntityInsertCount);
+            counter(registry, statistics, "hibernate.entities.updates", Statistics::getEntityUpdateCount);
+            counter(registry, statistics, "hibernate.entities.deletes", Statistics::getEntityDeleteCount);
+            counter(registry, statistics, "hibernate.collections.fetches", Statistics::getCollectionFetchCount);
+            counter(registry, statistics, "hibernate.flushes", Statistics::getFlushCount);
+            counter(registry, statistics, "hibernate.second.level.cache.requests", "result", "hit",
+                    Statistics::getSecondLevelCacheHitCount);
+            counter(registry, statistics, "hibernate.second.level.cache.requests", "result", "miss",
+                    Statistics::getSecondLevelCacheMissCount);
+            counter(registry, statistics, "hibernate.second.level.cache.puts", Statistics::getSecondLevelCachePutCount);
+        };
+    }
+
+    private static void counter(MeterRegistry registry, Statistics statistics, String name,
+            ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder(name, statistics, count).register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, Statistics statistics, String name, String tag,
+            String value, ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder(name, statistics, count).tag(tag, value).register(registry);
+    }
+}
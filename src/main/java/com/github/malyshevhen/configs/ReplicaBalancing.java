@@ -0,0 +1,19 @@
+package com.github.malyshevhen.configs;
+
+/**
+ * Defines how a read replica is chosen for a read-only transaction.
+ *
+ * @author Evhen Malysh
+ */
+public enum ReplicaBalancing {
+
+    /**
+     * Replicas are used in turn.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * The replica with the least active connections is used.
+     */
+    LEAST_CONNECTIONS
+}
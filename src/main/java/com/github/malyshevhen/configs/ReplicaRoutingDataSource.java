@@ -0,0 +1,332 @@
+package com.github.malyshevhen.configs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * DataSource routing read-only transactions to read replicas.
+ * </p>
+ * Connections are obtained lazily, on the first statement of a transaction.
+ * By then the transaction manager has marked the connection of a read-only
+ * transaction as read-only, so the connection is taken from a replica; all
+ * other connections are taken from the primary database.
+ * <p>
+ * A replica is chosen with the configured {@link ReplicaBalancing}. A replica
+ * that cannot be connected to is skipped for the retry interval, and if no
+ * replica is available the primary database is used. A replica whose pool has
+ * no free connection in time is only skipped for the current connection,
+ * since it is busy rather than down.
+ * <p>
+ * Optionally, a client reads from the primary database for a while after its
+ * own committed write, so it does not miss the write because of the
+ * replication lag. A client is identified by the {@value #CLIENT_ID_HEADER}
+ * header of the current request, or by its HTTP session if it has one. The
+ * address of a request is not used, since clients behind the same proxy or NAT
+ * share it. Requests of unidentified clients are routed as usual.
+ * <p>
+ * Reads that must not miss any committed write, such as loads of cached
+ * state, are routed to the primary database with {@link #readFromPrimary}.
+ *
+ * @author Evhen Malysh
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    /**
+     * Request header identifying a client for read-your-writes consistency.
+     */
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private static final int LAST_WRITES_PURGE_THRESHOLD = 1024;
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    /**
+     * SQLSTATE class of connection exceptions.
+     */
+    private static final String CONNECTION_EXCEPTION_CLASS = "08";
+
+    /**
+     * SQLSTATE class of PostgreSQL operator interventions, such as a server
+     * shutting down or not accepting connections yet.
+     */
+    private static final String OPERATOR_INTERVENTION_CLASS = "57P";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReplicaBalancing balancing;
+    private final Duration retryInterval;
+    private final Duration readYourWritesWindow;
+    private final Clock clock;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<DataSource, Instant> unavailableReplicas = new ConcurrentHashMap<>();
+    private final Map<String, Instant> lastWrites = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReplicaBalancing balancing,
+            Duration retryInterval, Duration readYourWritesWindow) {
+        this(primary, replicas, balancing, retryInterval, readYourWritesWindow, Clock.systemUTC());
+    }
+
+    ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReplicaBalancing balancing,
+            Duration retryInterval, Duration readYourWritesWindow, Clock clock) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.balancing = balancing;
+        this.retryInterval = retryInterval;
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.clock = clock;
+
+        if (this.replicas.isEmpty()) {
+            setTargetDataSource(primary);
+        } else {
+            setTargetDataSource(new PrimaryDataSource());
+            setReadOnlyDataSource(new ReplicaDataSource());
+        }
+        afterPropertiesSet();
+    }
+
+    /**
+     * Creates the DataSource of the primary database and the configured
+     * replicas.
+     *
+     * @param properties    the datasource properties
+     * @param meterRegistry the Micrometer registry to publish the pool metrics
+     *                      to, may be {@code null}
+     * @return the routing DataSource
+     */
+    public static ReplicaRoutingDataSource of(DatasourceProperties properties, MeterRegistry meterRegistry) {
+        var primary = WorkloadRoutingDataSource.of(properties, meterRegistry);
+        var replicas = new ArrayList<DataSource>();
+        for (var replica : properties.getReplicas()) {
+            replicas.add(WorkloadRoutingDataSource.createPool("replica-" + (replicas.size() + 1), replica.getUrl(),
+                    replica.getUsername() != null ? replica.getUsername() : properties.getUsername(),
+                    replica.getPassword() != null ? replica.getPassword() : properties.getPassword(),
+                    replica.getPool(), meterRegistry));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, properties.getReplicaBalancing(),
+                properties.getReplicaRetryInterval(), properties.getReadYourWritesWindow());
+    }
+
+    /**
+     * Runs the action reading from the primary database. As with
+     * {@link Workload}, the action must span the whole read-only transaction,
+     * since its connection is taken on the first statement.
+     *
+     * @param action the action to run
+     * @return the result of the action
+     */
+    public static <T> T readFromPrimary(Supplier<T> action) {
+        var previous = PRIMARY_READS.get();
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_READS.remove();
+            } else {
+                PRIMARY_READS.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Closes the connection pools of the primary database and the replicas.
+     */
+    @Override
+    public void close() throws IOException {
+        for (var dataSource : replicas) {
+            if (dataSource instanceof Closeable closeable) closeable.close();
+        }
+        if (primary instanceof Closeable closeable) closeable.close();
+    }
+
+    /**
+     * Returns the healthy replicas in the order they should be tried.
+     */
+    private List<DataSource> candidates() {
+        var now = clock.instant();
+        var candidates = new ArrayList<DataSource>(replicas.size());
+        var start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            var replica = replicas.get((start + i) % replicas.size());
+            var unavailableUntil = unavailableReplicas.get(replica);
+            if (unavailableUntil == null || !now.isBefore(unavailableUntil)) {
+                candidates.add(replica);
+            }
+        }
+        if (balancing == ReplicaBalancing.LEAST_CONNECTIONS) {
+            candidates.sort(Comparator.comparingInt(ReplicaRoutingDataSource::activeConnections));
+        }
+        return candidates;
+    }
+
+    private static int activeConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            return hikari.getHikariPoolMXBean().getActiveConnections();
+        }
+        return 0;
+    }
+
+    private boolean isReadYourWritesEnabled() {
+        return readYourWritesWindow.isPositive();
+    }
+
+    private boolean hasRecentWrite(String clientId) {
+        var lastWrite = lastWrites.get(clientId);
+        return lastWrite != null && clock.instant().isBefore(lastWrite.plus(readYourWritesWindow));
+    }
+
+    private void recordWrite(String clientId) {
+        var now = clock.instant();
+        lastWrites.put(clientId, now);
+        if (lastWrites.size() > LAST_WRITES_PURGE_THRESHOLD) {
+            lastWrites.values().removeIf(lastWrite -> !now.isBefore(lastWrite.plus(readYourWritesWindow)));
+        }
+    }
+
+    private static String currentClientId() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return null;
+        }
+        var request = attributes.getRequest();
+        var clientId = request.getHeader(CLIENT_ID_HEADER);
+        if (clientId != null) return "client:" + clientId;
+
+        var session = request.getSession(false);
+        return session != null ? "session:" + session.getId() : null;
+    }
+
+    /**
+     * Tells whether the replica failed to provide a connection because it
+     * cannot be connected to. A connection pool that gives up waiting for a
+     * free connection reports the last failure to connect as the cause, if
+     * any, so an exhausted pool of a reachable replica is not a failure.
+     */
+    private static boolean isConnectionFailure(SQLException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLNonTransientConnectionException) return true;
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                    && (sqlException.getSQLState().startsWith(CONNECTION_EXCEPTION_CLASS)
+                            || sqlException.getSQLState().startsWith(OPERATOR_INTERVENTION_CLASS))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Primary database recording the commits of the clients that write.
+     */
+    private class PrimaryDataSource extends DelegatingDataSource {
+
+        PrimaryDataSource() {
+            super(primary);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            var connection = super.getConnection();
+            trackWrite();
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            var connection = super.getConnection(username, password);
+            trackWrite();
+            return connection;
+        }
+
+        private void trackWrite() {
+            if (!isReadYourWritesEnabled() || !TransactionSynchronizationManager.isSynchronizationActive()
+                    || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                return;
+            }
+            var clientId = currentClientId();
+            if (clientId == null) return;
+
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordWrite(clientId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Read replicas, falling back to the primary database.
+     */
+    private class ReplicaDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return getConnection(DataSource::getConnection);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection(dataSource -> dataSource.getConnection(username, password));
+        }
+
+        private Connection getConnection(ConnectionSource source) throws SQLException {
+            if (Boolean.TRUE.equals(PRIMARY_READS.get())) {
+                return source.getConnection(primary);
+            }
+            var clientId = isReadYourWritesEnabled() ? currentClientId() : null;
+            if (clientId != null && hasRecentWrite(clientId)) {
+                return source.getConnection(primary);
+            }
+
+            for (var replica : candidates()) {
+                try {
+                    return source.getConnection(replica);
+                } catch (SQLException ex) {
+                    if (!isConnectionFailure(ex)) {
+                        log.debug("Read replica has no free connection, using other replicas or the primary database",
+                                ex);
+                        continue;
+                    }
+                    log.warn("Read replica is unavailable for {}, using other replicas or the primary database",
+                            retryInterval, ex);
+                    unavailableReplicas.put(replica, clock.instant().plus(retryInterval));
+                }
+            }
+            return source.getConnection(primary);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection getConnection(DataSource dataSource) throws SQLException;
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.malyshevhen.configs;
+
+import javax.sql.DataSource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts the SQL statements of every HTTP request and every transactional
+ * service call in the development and test profiles, and logs a warning with
+ * the call site of the first statement over the budget when a request or a
+ * call exceeds its budget.
+ * </p>
+ * The data source is wrapped in a {@link StatementCountingDataSource}, and
+ * each request and call is counted in its own {@link StatementScope}. Service
+ * calls are counted outside of the caching and transaction advice, so the
+ * statements flushed at commit are counted and a cache hit counts none. The
+ * budgets are configured with the {@link StatementBudgetProperties}.
+ *
+ * @author Evhen Malysh
+ */
+@Slf4j
+@Profile({ "dev", "test" })
+@Configuration
+public class StatementBudgetConfig {
+
+    @Bean
+    StatementBudgetProperties statementBudgetProperties() {
+        return new StatementBudgetProperties();
+    }
+
+    /**
+     * Wraps the data sources in {@link StatementCountingDataSource}.
+     */
+    @Bean
+    static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)
+                        ? new StatementCountingDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    WebMvcConfigurer statementBudgetWebMvcConfigurer(StatementBudgetProperties budgets) {
+        return new WebMvcConfigurer() {
+
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new RequestStatementBudget(budgets));
+            }
+        };
+    }
+
+    @Bean
+    ServiceStatementBudget serviceStatementBudget(StatementBudgetProperties budgets) {
+        return new ServiceStatementBudget(budgets);
+    }
+
+    private static void check(StatementScope scope) {
+        if (scope.isOverBudget()) {
+            log.warn(scope.describeExcess());
+        }
+    }
+
+    /**
+     * Counts the statements of the requests served by handler methods, by the
+     * operation of the users API.
+     */
+    @RequiredArgsConstructor
+    static class RequestStatementBudget implements HandlerInterceptor {
+
+        private static final String SCOPE = RequestStatementBudget.class.getName() + ".scope";
+
+        private final StatementBudgetProperties budgets;
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            if (handler instanceof HandlerMethod method) {
+                var operation = method.getMethod().getName();
+                var name = request.getMethod() + " " + request.getRequestURI() + " (" + operation + ")";
+                request.setAttribute(SCOPE, StatementScope.open(name, budgets.operationBudget(operation)));
+            }
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                Exception ex) {
+            if (request.getAttribute(SCOPE) instanceof StatementScope scope) {
+                request.removeAttribute(SCOPE);
+                scope.close();
+                check(scope);
+            }
+        }
+    }
+
+    /**
+     * Counts the statements of the transactional service calls, by class and
+     * method name. Ordered before the caching advice, which is ordered before
+     * the transaction advice, see {@link CacheConfig}.
+     */
+    @Aspect
+    @Order(Ordered.LOWEST_PRECEDENCE - 2)
+    @RequiredArgsConstructor
+    public static class ServiceStatementBudget {
+
+        private final StatementBudgetProperties budgets;
+
+        @Around("within(com.github.malyshevhen.services..*) && ("
+                + "@within(org.springframework.transaction.annotation.Transactional) || "
+                + "@annotation(org.springframework.transaction.annotation.Transactional))")
+        public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+            var method = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName() + "."
+                    + joinPoint.getSignature().getName();
+            try (var scope = StatementScope.open(method, budgets.methodBudget(method))) {
+                var result = joinPoint.proceed();
+                check(scope);
+                return result;
+            }
+        }
+    }
+}
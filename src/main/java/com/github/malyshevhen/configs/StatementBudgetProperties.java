@@ -0,0 +1,56 @@
+package com.github.malyshevhen.configs;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Budgets of SQL statements, checked in the development and test profiles,
+ * see {@link StatementBudgetConfig}.
+ * </p>
+ * Requests are budgeted by operation of the users API, i.e. the name of the
+ * handler method, e.g. {@code getById}. Transactional service calls are
+ * budgeted by simple class name and method name, e.g.
+ * {@code UserServiceImpl.getById}. Requests and calls without a budget are
+ * counted but not checked.
+ *
+ * @author Evhen Malysh
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "statement-budgets")
+public class StatementBudgetProperties {
+
+    /**
+     * Statement budgets of the HTTP requests by operation.
+     */
+    private Map<String, Integer> operations = new HashMap<>();
+
+    /**
+     * Statement budgets of the transactional service calls by class and method.
+     */
+    private Map<String, Integer> methods = new HashMap<>();
+
+    /**
+     * Returns the budget of an operation.
+     *
+     * @param operation the operation
+     * @return the budget, {@link StatementScope#UNLIMITED} if not budgeted
+     */
+    public int operationBudget(String operation) {
+        return operations.getOrDefault(operation, StatementScope.UNLIMITED);
+    }
+
+    /**
+     * Returns the budget of a service method.
+     *
+     * @param method the class and method name
+     * @return the budget, {@link StatementScope#UNLIMITED} if not budgeted
+     */
+    public int methodBudget(String method) {
+        return methods.getOrDefault(method, StatementScope.UNLIMITED);
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.malyshevhen.configs;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source recording every SQL statement executed through its connections
+ * in the {@link StatementScope scopes} of the executing thread.
+ * </p>
+ * Connections and statements are wrapped in dynamic proxies, and every call of
+ * an {@code execute} method is counted, so statements issued by Hibernate,
+ * Spring Data and plain JDBC are counted alike. A JDBC batch is counted once,
+ * as it is sent in one round trip. The proxies cost an indirection per call, so
+ * the data source is only used in the development and test profiles, see
+ * {@link StatementBudgetConfig}.
+ *
+ * @author Evhen Malysh
+ */
+public class StatementCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    /**
+     * Creates a data source counting the statements of the target.
+     *
+     * @param target the data source to obtain connections from
+     */
+    public StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        var connection = super.getConnection(username, password);
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    /**
+     * Closes the target data source, e.g. its connection pools.
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+                new Class<?>[] { type }, handler));
+    }
+
+    /**
+     * Base of the proxies, delegating all calls to the target.
+     */
+    private abstract static class Delegate implements InvocationHandler {
+
+        private final Object target;
+
+        Delegate(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> intercept(method, args);
+            };
+        }
+
+        abstract Object intercept(Method method, Object[] args) throws Throwable;
+
+        Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        }
+    }
+
+    /**
+     * Wraps the statements created by a connection.
+     */
+    private static final class ConnectionHandler extends Delegate {
+
+        ConnectionHandler(Connection connection) {
+            super(connection);
+        }
+
+        @Override
+        Object intercept(Method method, Object[] args) throws Throwable {
+            var result = delegate(method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> proxy(Statement.class, new StatementHandler(result, null));
+                case "prepareStatement" -> proxy(PreparedStatement.class,
+                        new StatementHandler(result, (String) args[0]));
+                case "prepareCall" -> proxy(CallableStatement.class,
+                        new StatementHandler(result, (String) args[0]));
+                default -> result;
+            };
+        }
+    }
+
+    /**
+     * Records the executions of a statement.
+     */
+    private static final class StatementHandler extends Delegate {
+
+        private final String sql;
+
+        StatementHandler(Object statement, String sql) {
+            super(statement);
+            this.sql = sql;
+        }
+
+        @Override
+        Object intercept(Method method, Object[] args) throws Throwable {
+            if (method.getName().startsWith("execute")) {
+                StatementScope.record(args != null && args.length > 0 && args[0] instanceof String executed
+                        ? executed
+                        : sql);
+            }
+            return delegate(method, args);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.malyshevhen.configs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the SQL statements executed by the current thread within a scope, such
+ * as an HTTP request or a service call.
+ * </p>
+ * Scopes are nested: a statement is counted by every scope open on the thread,
+ * so a request counts the statements of all service calls it makes. A scope
+ * can have a budget, the number of statements it is expected to execute at
+ * most. The first statement over the budget is kept together with its call
+ * site, the application frames of the stack that executed it, so the code
+ * causing the excess can be named. A recording scope keeps the SQL of all of
+ * its statements as well. Statements are recorded by
+ * {@link StatementCountingDataSource}.
+ * <p>
+ * Tests can assert the statements of a call:
+ * <pre>{@code
+ * try (var scope = StatementScope.open("getById")) {
+ *     userService.getById(id);
+ *     assertEquals(1, scope.count());
+ * }
+ * }</pre>
+ *
+ * @author Evhen Malysh
+ */
+public final class StatementScope implements AutoCloseable {
+
+    /**
+     * Budget of a scope that is not checked.
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final int CALL_SITE_FRAMES = 8;
+
+    private static final ThreadLocal<Deque<StatementScope>> SCOPES = new ThreadLocal<>();
+
+    private final String name;
+    private final int budget;
+    private final List<String> statements;
+    private int count;
+    private String excessStatement;
+    private String excessCallSite;
+
+    private StatementScope(String name, int budget, List<String> statements) {
+        this.name = name;
+        this.budget = budget;
+        this.statements = statements;
+    }
+
+    /**
+     * Opens a scope without a budget on the current thread.
+     *
+     * @param name the name of the scope, e.g. the operation or method
+     * @return the scope, to be closed on the same thread
+     */
+    public static StatementScope open(String name) {
+        return open(name, UNLIMITED);
+    }
+
+    /**
+     * Opens a scope on the current thread.
+     *
+     * @param name   the name of the scope, e.g. the operation or method
+     * @param budget the number of statements the scope may execute
+     * @return the scope, to be closed on the same thread
+     */
+    public static StatementScope open(String name, int budget) {
+        return push(new StatementScope(name, budget, null));
+    }
+
+    /**
+     * Opens a scope without a budget on the current thread, keeping the SQL of
+     * its statements, e.g. to explain them in tests.
+     *
+     * @param name the name of the scope, e.g. the operation or method
+     * @return the scope, to be closed on the same thread
+     */
+    public static StatementScope recording(String name) {
+        return push(new StatementScope(name, UNLIMITED, new ArrayList<>()));
+    }
+
+    private static StatementScope push(StatementScope scope) {
+        var scopes = SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            SCOPES.set(scopes);
+        }
+        scopes.push(scope);
+        return scope;
+    }
+
+    /**
+     * Counts a statement executed by the current thread in all of its open
+     * scopes.
+     *
+     * @param sql the SQL of the statement
+     */
+    static void record(String sql) {
+        var scopes = SCOPES.get();
+        if (scopes == null) {
+            return;
+        }
+        String callSite = null;
+        for (var scope : scopes) {
+            scope.count++;
+            if (scope.statements != null) scope.statements.add(sql);
+            if (scope.count == scope.budget + 1L) {
+                if (callSite == null) callSite = callSite();
+                scope.excessStatement = sql;
+                scope.excessCallSite = callSite;
+            }
+        }
+    }
+
+    private static String callSite() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith("com.github.malyshevhen.")
+                        && !frame.getClassName().contains("$$")
+                        && !frame.getClassName().startsWith(StatementScope.class.getName())
+                        && !frame.getClassName().startsWith(StatementCountingDataSource.class.getName())
+                        && !frame.getClassName().startsWith(StatementBudgetConfig.class.getName()))
+                .limit(CALL_SITE_FRAMES)
+                .map(frame -> frame.toStackTraceElement().toString())
+                .collect(Collectors.joining("\n\tat ", "\tat ", "")));
+    }
+
+    /**
+     * Returns the name of the scope.
+     *
+     * @return the name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the number of statements the scope may execute.
+     *
+     * @return the budget, {@link #UNLIMITED} if not checked
+     */
+    public int budget() {
+        return budget;
+    }
+
+    /**
+     * Returns the number of statements executed within the scope so far.
+     *
+     * @return the number of statements
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Returns the SQL of the statements executed within the scope so far.
+     *
+     * @return the statements in execution order, empty unless the scope was
+     *         opened with {@link #recording(String)}
+     */
+    public List<String> statements() {
+        return statements == null ? List.of() : List.copyOf(statements);
+    }
+
+    /**
+     * Returns whether the scope executed more statements than its budget.
+     *
+     * @return {@code true} if over budget
+     */
+    public boolean isOverBudget() {
+        return count > budget;
+    }
+
+    /**
+     * Describes the excess of a scope over its budget, with the first
+     * statement over the budget and its call site.
+     *
+     * @return the description
+     */
+    public String describeExcess() {
+        return String.format("%s executed %d SQL statements, over its budget of %d. "
+                + "The first statement over the budget was: %s%n%s", name, count, budget, excessStatement,
+                excessCallSite);
+    }
+
+    /**
+     * Closes the scope, statements executed afterwards are not counted by it.
+     */
+    @Override
+    public void close() {
+        var scopes = SCOPES.get();
+        if (scopes == null) {
+            return;
+        }
+        scopes.removeFirstOccurrence(this);
+        if (scopes.isEmpty()) {
+            SCOPES.remove();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.malyshevhen.configs;
+
+import java.util.function.Supplier;
+
+/**
+ * Defines the kinds of database work served by separate connection pools.
+ * </p>
+ * The workload is bound to the current thread. Work that is not explicitly
+ * run as another workload is {@link #INTERACTIVE}. The workload must be set
+ * around the whole transaction, since the connection of a transaction is taken
+ * from the pool on its first statement and kept until it completes.
+ *
+ * @author Evhen Malysh
+ */
+public enum Workload {
+
+    /**
+     * Short requests of interactive clients.
+     */
+    INTERACTIVE,
+
+    /**
+     * Long-running bulk registrations, imports and exports.
+     */
+    BULK,
+
+    /**
+     * Schema migrations and other administrative work.
+     */
+    MAINTENANCE;
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Returns the workload of the current thread.
+     *
+     * @return the current workload, {@link #INTERACTIVE} if none is set
+     */
+    public static Workload current() {
+        var workload = CURRENT.get();
+        return workload != null ? workload : INTERACTIVE;
+    }
+
+    /**
+     * Runs the action as this workload.
+     *
+     * @param action the action to run
+     * @return the result of the action
+     */
+    public <T> T call(Supplier<T> action) {
+        var previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Runs the action as this workload.
+     *
+     * @param action the action to run
+     */
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.malyshevhen.configs;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * DataSource taking connections from the pool of the current
+ * {@link Workload}.
+ * </p>
+ * Bulk and maintenance work cannot exhaust the connections of interactive
+ * requests and vice versa, and each pool is sized for its own work. Every
+ * pool is named after its workload, so its HikariCP metrics are tagged with
+ * {@code pool=<workload>} and its connections are shown with that application
+ * name in {@code pg_stat_activity}. The pools are started lazily, on the first
+ * connection request.
+ *
+ * @author Evhen Malysh
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final Map<Workload, HikariDataSource> pools;
+
+    public WorkloadRoutingDataSource(Map<Workload, HikariDataSource> pools) {
+        this.pools = new EnumMap<>(pools);
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(pools.get(Workload.INTERACTIVE));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Creates the pools of all workloads to the primary database.
+     *
+     * @param properties    the datasource properties
+     * @param meterRegistry the Micrometer registry to publish the pool metrics
+     *                      to, may be {@code null}
+     * @return the routing DataSource
+     */
+    public static WorkloadRoutingDataSource of(DatasourceProperties properties, MeterRegistry meterRegistry) {
+        var pools = new EnumMap<Workload, HikariDataSource>(Workload.class);
+        for (var workload : Workload.values()) {
+            var name = workload.name().toLowerCase();
+            pools.put(workload, createPool(name, properties.getUrl(), properties.getUsername(),
+                    properties.getPassword(), properties.getPool(workload), meterRegistry));
+        }
+        return new WorkloadRoutingDataSource(pools);
+    }
+
+    /**
+     * Creates a named connection pool.
+     *
+     * @param name          the pool name, also used as the application name of
+     *                      its connections
+     * @param url           the JDBC URL
+     * @param username      the database username
+     * @param password      the database password
+     * @param pool          the pool configuration
+     * @param meterRegistry the Micrometer registry to publish the pool metrics
+     *                      to, may be {@code null}
+     * @return the pool, started on the first connection request
+     */
+    static HikariDataSource createPool(String name, String url, String username, String password,
+            DatasourceProperties.Pool pool, MeterRegistry meterRegistry) {
+        var dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.addDataSourceProperty("ApplicationName", name);
+
+        if (pool.getMaximumPoolSize() != null) dataSource.setMaximumPoolSize(pool.getMaximumPoolSize());
+        if (pool.getMinimumIdle() != null) dataSource.setMinimumIdle(pool.getMinimumIdle());
+        if (pool.getConnectionTimeout() != null) {
+            dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        }
+        if (pool.getIdleTimeout() != null) dataSource.setIdleTimeout(pool.getIdleTimeout().toMillis());
+        if (pool.getMaxLifetime() != null) dataSource.setMaxLifetime(pool.getMaxLifetime().toMillis());
+        if (pool.getLeakDetectionThreshold() != null) {
+            dataSource.setLeakDetectionThreshold(pool.getLeakDetectionThreshold().toMillis());
+        }
+        if (meterRegistry != null) dataSource.setMetricRegistry(meterRegistry);
+        return dataSource;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return Workload.current();
+    }
+
+    /**
+     * Closes the pools of all workloads.
+     */
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -1,18 +1,22 @@
 package com.github.malyshevhen.controllers;
 
 import com.github.malyshevhen.exceptions.BaseApplicationException;
+import com.github.malyshevhen.exceptions.EntityAlreadyExistsException;
 import com.github.malyshevhen.domain.dto.ErrorResponse;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.beans.BeanInstantiationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 /**
@@ -43,6 +47,35 @@ public class ApplicationExceptionHandler {
         return ResponseEntity.status(ex.getStatus()).body(response);
     }
 
+    /**
+     * Handles conflicts with existing entities and returns a response naming
+     * the conflicting field, if known.
+     *
+     * @param ex The {@link EntityAlreadyExistsException} to handle.
+     * @return A `ResponseEntity` containing an `ErrorResponse` with the exception
+     * message and field and the HTTP status code specified in the exception.
+     */
+    @ExceptionHandler(EntityAlreadyExistsException.class)
+    public ResponseEntity<ErrorResponse> handleConflict(final EntityAlreadyExistsException ex) {
+        var response = new ErrorResponse(ex.getMessage(), ex.getField());
+        return ResponseEntity.status(ex.getStatus()).body(response);
+    }
+
+    /**
+     * Handles updates that lost the race against a concurrent update of the
+     * same entity and returns a 412 Precondition Failed response, like an
+     * update based on an outdated version.
+     *
+     * @param ex The {@link OptimisticLockingFailureException} to handle.
+     * @return A ResponseEntity containing an ErrorResponse and a 412
+     * Precondition Failed status.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleConcurrentUpdate(final OptimisticLockingFailureException ex) {
+        var response = new ErrorResponse("The entity was modified concurrently, retry with its current version");
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(response);
+    }
+
     /**
      * Handles various types of bad request exceptions and returns a 400 Bad Request
      * response with the exception message.
@@ -55,6 +88,7 @@ public class ApplicationExceptionHandler {
      * - {@link MethodArgumentNotValidException}
      * - {@link HttpMessageNotReadableException}
      * - {@link PropertyReferenceException}
+     * - {@link HandlerMethodValidationException}
      *
      * @param ex The exception to handle.
      * @return A ResponseEntity containing an ErrorResponse with the exception
@@ -68,13 +102,31 @@ public class ApplicationExceptionHandler {
         MethodArgumentTypeMismatchException.class,
         MethodArgumentNotValidException.class,
         HttpMessageNotReadableException.class,
-        PropertyReferenceException.class})
+        PropertyReferenceException.class,
+        HandlerMethodValidationException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ErrorResponse> handleBadRequest(final Exception ex) {
         ErrorResponse response = new ErrorResponse(ex.getMessage());
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles requests with a body of unsupported media type and returns a 415
+     * Unsupported Media Type response listing the supported media types in the
+     * {@code Accept} header.
+     *
+     * @param ex The exception to handle.
+     * @return A ResponseEntity containing an ErrorResponse with the exception
+     * message and a 415 Unsupported Media Type status.
+     */
+    @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
+    public ResponseEntity<ErrorResponse> handleUnsupportedMediaType(final HttpMediaTypeNotSupportedException ex) {
+        ErrorResponse response = new ErrorResponse(ex.getMessage());
+        return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                .headers(ex.getHeaders())
+                .body(response);
+    }
+
     /**
      * Handles server exceptions and logs the error
      * before returning an internal server error response.
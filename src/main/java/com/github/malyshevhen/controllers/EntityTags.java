@@ -0,0 +1,118 @@
+package com.github.malyshevhen.controllers;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.springframework.http.MediaType;
+
+import com.github.malyshevhen.domain.dto.CollectionVersion;
+import com.github.malyshevhen.exceptions.PreconditionFailedException;
+
+/**
+ * Builds the strong entity tags and the modification times of users from
+ * their versions.
+ * </p>
+ * The version of a user is its optimistic locking version, incremented by
+ * every update, so the tag of a user can be sent back in {@code If-Match} to
+ * base an update on it. A strong tag names the media type the user is written
+ * in, as the bytes of JSON, CBOR and Smile bodies differ; the version alone is
+ * compared for {@code If-Match}. Pages of users are tagged with weak tags of
+ * the version of the filtered users, so a page is revalidated without loading
+ * it; pages in the other formats are semantically equivalent, so the weak tags
+ * do not name the media type.
+ *
+ * @author Evhen Malysh
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    /**
+     * Builds the entity tag of a user written in a media type.
+     *
+     * @param id             the user identifier
+     * @param version        the optimistic locking version of the user
+     * @param representation the media type the user is written in
+     * @return the quoted entity tag
+     */
+    static String ofUser(Long id, long version, MediaType representation) {
+        return quote(id + "-" + version + "-" + representation.getSubtype());
+    }
+
+    /**
+     * Builds the weak entity tag of the pages of a collection of users.
+     * </p>
+     * The tag covers every page of the collection: a page is equivalent to
+     * the one sent with the same tag as long as no user of the collection was
+     * added, updated or removed. Estimated totals may differ between such
+     * pages.
+     *
+     * @param version the version of the collection
+     * @return the weak entity tag
+     */
+    static String ofUsers(CollectionVersion version) {
+        var lastModified = version.lastModified() == null ? 0 : toEpochMicros(version.lastModified());
+        return "W/" + quote(Long.toHexString(lastModified) + "-" + version.count() + "-" + version.versions());
+    }
+
+    /**
+     * Parses the version of a user an update is based on from the
+     * {@code If-Match} header.
+     * </p>
+     * Only strong tags of the user can match, in any media type. A header
+     * naming no version of the user can never be satisfied, so it fails the
+     * precondition right away.
+     *
+     * @param id      the user identifier
+     * @param ifMatch the {@code If-Match} header value, may be {@code null}
+     * @return the version, or {@code null} if the header is absent or matches
+     *         any version
+     * @throws PreconditionFailedException if no tag of the header is a tag of
+     *                                     the user
+     * @throws IllegalArgumentException    if the header contains several tags
+     *                                     of the user
+     */
+    static Long parseUserVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) return null;
+
+        var prefix = "\"" + id + "-";
+        var versions = Arrays.stream(ifMatch.split(","))
+                .map(String::trim)
+                .filter(tag -> tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1)
+                .map(tag -> tag.substring(prefix.length(), tag.length() - 1))
+                .map(version -> version.contains("-") ? version.substring(0, version.indexOf('-')) : version)
+                .filter(version -> !version.isEmpty() && version.chars().allMatch(Character::isDigit))
+                .map(Long::valueOf)
+                .distinct()
+                .toList();
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException(String.format("If-Match names no version of user with id %d", id));
+        }
+        if (versions.size() > 1) {
+            throw new IllegalArgumentException("If-Match must name a single version of the user");
+        }
+        return versions.getFirst();
+    }
+
+    /**
+     * Converts an update time to the milliseconds of the
+     * {@code Last-Modified} header.
+     *
+     * @param updatedAt the update time, in the time zone of the application
+     * @return the milliseconds since the epoch
+     */
+    static long toEpochMilli(LocalDateTime updatedAt) {
+        return updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long toEpochMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
@@ -1,17 +1,43 @@
 package com.github.malyshevhen.controllers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
 import com.github.malyshevhen.dto.*;
-import org.springframework.data.domain.Page;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.github.malyshevhen.api.UsersApi;
+import com.github.malyshevhen.configs.Workload;
 import com.github.malyshevhen.domain.models.Address;
+import com.github.malyshevhen.domain.dto.CollectionVersion;
 import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.PageCursor;
+import com.github.malyshevhen.domain.dto.StreamFormat;
+import com.github.malyshevhen.domain.dto.TotalsMode;
 import com.github.malyshevhen.domain.mapper.UserMapper;
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.services.UserExportService;
+import com.github.malyshevhen.services.UserImportService;
 import com.github.malyshevhen.services.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -25,7 +51,10 @@ import lombok.RequiredArgsConstructor;
 public class UserController implements UsersApi {
 
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
     private final UserMapper userMapper;
+    private final ContentNegotiationManager contentNegotiationManager;
 
     /**
      * Registers a new user with the provided registration form data.
@@ -47,67 +76,257 @@ public class UserController implements UsersApi {
         return ResponseEntity.status(HttpStatus.CREATED).body(userInfo);
     }
 
+    /**
+     * Registers a batch of users with the provided registration forms.
+     *
+     * @param userRegistrationForms the registration forms of the users, up to
+     *                              1000 per request
+     * @return Response containing the result of each user in the order of the
+     *         request and HTTP status:
+     *         OK - 200. Each result tells if the user was registered or why it
+     *         was rejected.
+     *         Bad request - 400. Empty or oversized batch, or invalid form.
+     *         Internal server error -500.
+     */
+    @Override
+    public ResponseEntity<UserBatchResult> registerUsers(List<UserRegistrationForm> userRegistrationForms) {
+        var usersToRegister = userRegistrationForms.stream()
+                .map(userMapper::toUser)
+                .toList();
+        var results = Workload.BULK.call(() -> userService.saveAll(usersToRegister));
+        return ResponseEntity.ok(userMapper.toBatchResult(results));
+    }
+
+    /**
+     * Imports users from a NDJSON or CSV stream.
+     * </p>
+     * The format is taken from the {@code Content-Type} of the request. The
+     * request body is not buffered, the users are imported while it is being
+     * read.
+     *
+     * @param body the request body stream
+     * @return Response containing the number of imported and rejected users
+     *         with the first rejected lines and HTTP status:
+     *         OK - 200.
+     *         Unsupported media type - 415. The body is neither NDJSON nor CSV.
+     *         Internal server error -500.
+     */
+    @Override
+    public ResponseEntity<UserImportResult> importUsers(InputStreamResource body) {
+        var format = StreamFormat.fromContentType(currentRequest().getContentType());
+        try (var input = body.getInputStream()) {
+            var result = Workload.BULK.call(() -> userImportService.importUsers(input, format));
+            return ResponseEntity.ok(userMapper.toImportResult(result));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read the import", ex);
+        }
+    }
+
+    /**
+     * Deletes users by ID or by filter, together with their addresses.
+     * </p>
+     * The users are deleted in chunks, each in its own transaction, with the
+     * connection pool of the bulk workload.
+     *
+     * @param userDeletion the IDs of the users to delete, or the filter of the
+     *                     users to delete
+     * @return Response containing the number of deleted users and HTTP status:
+     *         OK - 200.
+     *         Bad request - 400. Both IDs and filters, or none of them, given.
+     *         Internal server error -500.
+     */
+    @Override
+    public ResponseEntity<UserDeletionResult> deleteUsers(UserDeletion userDeletion) {
+        var ids = userDeletion.getIds();
+        var createdBefore = userDeletion.getCreatedBefore() == null ? null : userDeletion.getCreatedBefore()
+                .atZoneSameInstant(ZoneId.systemDefault())
+                .toLocalDateTime();
+        if (ids != null && (userDeletion.getDateRange() != null || createdBefore != null)) {
+            throw new IllegalArgumentException("Users to delete are selected either by ids or by filters");
+        }
+
+        var deleted = Workload.BULK.call(() -> ids != null
+                ? userService.deleteAllById(ids)
+                : userService.deleteAll(userDeletion.getDateRange(), createdBefore));
+        return ResponseEntity.ok(new UserDeletionResult().deleted(deleted));
+    }
+
+    /**
+     * Exports all users, optionally filtered by birth date, as a NDJSON or CSV
+     * stream.
+     * </p>
+     * The format is taken from the {@code Accept} header, NDJSON is used unless
+     * CSV is requested. The users are written to the response asynchronously,
+     * while they are read from the database.
+     *
+     * @param dateRange the date range to filter users by. It is optional. If not
+     *                  provided, all users will be exported.
+     * @return Response streaming the users and HTTP status:
+     *         OK - 200.
+     *         Bad request - 400. Invalid {@code dateRange}.
+     *         Internal server error -500.
+     */
+    @Override
+    public ResponseEntity<StreamingResponseBody> exportUsers(DateRange dateRange) {
+        var format = StreamFormat.fromAccept(currentRequest().getHeader(HttpHeaders.ACCEPT));
+        StreamingResponseBody body = output -> Workload.BULK
+                .run(() -> userExportService.exportUsers(dateRange, format, output));
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(body);
+    }
+
     /**
      * Retrieves a paginated list of user information.
+     * </p>
+     * If {@code after} is present, keyset (cursor) pagination is used instead of
+     * offset pagination: the page number is ignored, no total counts are
+     * calculated, and the cursor of the next slice is returned in the
+     * {@code Link} header and in the {@code next} property of the page.
+     * <p>
+     * In offset mode the response carries a weak {@code ETag} built from the
+     * latest update time, the number and the versions of the filtered users. A
+     * request with a matching {@code If-None-Match} is answered from that
+     * version alone, without loading the page, and exact totals are taken from
+     * it. Slices in cursor mode carry no {@code ETag}, as the version of all
+     * filtered users would cost more than the slice itself.
      *
      * @param pageable  the pagination parameters. It is optional. If not provided,
      *                  default page size and 0-based index are used.
      * @param dateRange the date range to filter users by. It is optional. If not
      *                  provided, all users will be returned.
+     * @param after     the opaque cursor of the previous slice. It is optional.
+     *                  An empty value starts cursor pagination from the first user.
+     * @param totals    how the total number of users is calculated: {@code none},
+     *                  {@code estimated} or {@code exact}. It is optional and
+     *                  ignored in cursor pagination mode.
      * @return a page of user information and HTTP status:
      *         OK - 200.
-     *         Bad request. Invalid {@code pageable} parameters or {@code dateRange}
+     *         Not Modified - 304. In offset mode, no user matching the filter
+     *         has changed since the version in {@code If-None-Match}.
+     *         Bad request. Invalid {@code pageable} parameters, {@code dateRange},
+     *         {@code after} cursor or {@code totals} mode.
      *         Internal server error -500.
      */
     @Override
-    public ResponseEntity<Page<UserInfo>> getAll(Pageable pageable, DateRange dateRange) {
-        var users = userService.getAll(pageable, dateRange)
-                .map(userMapper::toUserInfo);
-        return ResponseEntity.ok(users);
+    public ResponseEntity<UsersPage> getAll(Pageable pageable, DateRange dateRange, String after,
+            String totals) {
+        var totalsMode = TotalsMode.fromValue(totals);
+        if (after == null) {
+            var webRequest = currentWebRequest();
+            Predicate<CollectionVersion> notModified =
+                    version -> webRequest.checkNotModified(EntityTags.ofUsers(version));
+            return userService.readIfModified(dateRange, notModified,
+                            version -> userService.getUserInfos(pageable, dateRange, totalsMode, version.count()))
+                    .map(users -> ResponseEntity.ok(userMapper.toUsersPage(users)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        }
+
+        var cursor = after.isEmpty() ? null : PageCursor.decode(after);
+        var page = userMapper.toUsersPage(userService.getUserInfos(cursor, pageable, dateRange));
+        var headers = new HttpHeaders();
+        if (page.getNext() != null) {
+            headers.add(HttpHeaders.LINK, nextSliceLink(page.getNext()));
+        }
+        return ResponseEntity.ok().headers(headers).body(page);
+    }
+
+    /**
+     * Checks whether an email is already registered, e.g. while a signup form
+     * is being filled in.
+     * </p>
+     * The check has its own path, so {@code HEAD /users} keeps answering with
+     * the headers of a page of users.
+     *
+     * @param email the email to check
+     * @return Response without a body and HTTP status:
+     *         OK - 200. A user with the email is registered.
+     *         Not Found - 404. The email is available.
+     *         Bad request - 400. Invalid {@code email}.
+     */
+    @Override
+    public ResponseEntity<Void> checkEmail(String email) {
+        return userService.isEmailRegistered(email)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 
     /**
      * Retrieves a user by their unique identifier.
+     * </p>
+     * The response carries the {@code ETag} of the user, taken from its
+     * version and the media type it is written in, and its
+     * {@code Last-Modified} time, both read with the returned user, so they
+     * always describe the body. A conditional request is checked against the
+     * version of the user first, so a user matching it is not loaded. Users
+     * are cached, so such a request is usually answered without querying the
+     * database.
      *
      * @param id the unique identifier of the user to retrieve
      * @return Response containing the user's information and HTTP status:
      *         OK - 200. The user was found and returned.
+     *         Not Modified - 304. The user has not changed since the version
+     *         in {@code If-None-Match} or {@code If-Modified-Since}.
      *         Not Found - 404. No user was found with the given ID.
      *         Internal Server Error - 500. An error occurred while retrieving the
      *         user.
      */
     @Override
     public ResponseEntity<UserInfo> getById(Long id) {
-        var user = userService.getById(id);
-        var userInfo = userMapper.toUserInfo(user);
-        return ResponseEntity.ok(userInfo);
+        var request = currentConditionalRequest();
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            var version = userService.getVersionById(id);
+            var eTag = EntityTags.ofUser(id, version.version(), representation());
+            var lastModified = EntityTags.toEpochMilli(version.lastModified());
+            if (request.checkNotModified(eTag, lastModified)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).lastModified(lastModified).build();
+            }
+        }
+
+        var user = userService.getInfoById(id);
+        var version = user.version();
+        return ResponseEntity.ok()
+                .eTag(EntityTags.ofUser(id, version.version(), representation()))
+                .lastModified(EntityTags.toEpochMilli(version.lastModified()))
+                .body(user.user());
     }
 
     /**
      * Updates an existing user by their unique identifier.
+     * </p>
+     * Updates of a user are optimistically locked. The response carries the
+     * {@code ETag} of the new version; sent back in {@code If-Match}, it bases
+     * the next update on that version, and the update is rejected if the user
+     * has been changed since. The same applies to the partial updates below.
      *
      * @param id             the unique identifier of the user to update
      * @param userUpdateForm the user update form containing the new data to update
      *                       the user with
+     * @param ifMatch        the entity tag of the version the update is based
+     *                       on. It is optional.
      * @return Response containing the updated user's information and HTTP
      *         status:
      *         OK - 200. The user was successfully updated.
      *         Not Found - 404. No user was found with the given ID.
+     *         Precondition Failed - 412. The user was changed since the
+     *         version in {@code If-Match}, or concurrently.
      *         Internal Server Error - 500. An error occurred while updating the
      *         user.
      */
     @Override
-    public ResponseEntity<UserInfo> updateById(Long id, UserUpdateForm userUpdateForm) {
+    public ResponseEntity<UserInfo> updateById(Long id, UserUpdateForm userUpdateForm, String ifMatch) {
         var user = userMapper.toUser(userUpdateForm);
-        var updatedUser = userService.updateById(id, user);
-        var userInfo = userMapper.toUserInfo(updatedUser);
-        return ResponseEntity.ok(userInfo);
+        var updatedUser = userService.updateById(id, user, EntityTags.parseUserVersion(id, ifMatch));
+        return updated(updatedUser);
     }
 
     /**
      * Updates the email address of an existing user by their unique identifier.
      *
      * @param id              the unique identifier of the user to update
+     * @param ifMatch         the entity tag of the version the update is based
+     *                        on. It is optional.
      * @param updateEmailForm the form containing the new email address to update
      *                        the user with
      * @return Response containing the updated user's information and HTTP
@@ -115,52 +334,59 @@ public class UserController implements UsersApi {
      *         OK - 200. The user's email was successfully updated.
      *         Bad request. Email already taken.
      *         Not Found - 404. No user was found with the given ID.
+     *         Precondition Failed - 412. The user was changed since the
+     *         version in {@code If-Match}, or concurrently.
      *         Internal Server Error - 500. An error occurred while updating the
      *         user's email.
      */
     @Override
-    public ResponseEntity<UserInfo> updateUserEmail(Long id, UpdateEmailForm updateEmailForm) {
-        var updatedUser = userService.updateEmail(id, updateEmailForm.getEmail());
-        var userInfo = userMapper.toUserInfo(updatedUser);
-        return ResponseEntity.ok(userInfo);
+    public ResponseEntity<UserInfo> updateUserEmail(Long id, String ifMatch, UpdateEmailForm updateEmailForm) {
+        var updatedUser = userService.updateEmail(id, updateEmailForm.getEmail(),
+                EntityTags.parseUserVersion(id, ifMatch));
+        return updated(updatedUser);
     }
 
     /**
      * Updates the phone number of an existing user by their unique identifier.
      *
-     * @param id    Users ID (required)
-     * @param phone phone (optional)
+     * @param id      Users ID (required)
+     * @param ifMatch entity tag of the version the update is based on (optional)
+     * @param phone   phone (optional)
      * @return Response containing the updated user's information and HTTP
      *         status:
      *         OK - 200. The user's phone was successfully updated.
      *         Not Found - 404. No user was found with the given ID.
+     *         Precondition Failed - 412. The user was changed since the
+     *         version in {@code If-Match}, or concurrently.
      *         Internal Server Error - 500. An error occurred while updating the
      *         user's email.
      */
     @Override
-    public ResponseEntity<UserInfo> updateUserPhone(Long id, Phone phone) {
-        var updatedUser = userService.updatePhone(id, phone);
-        var userInfo = userMapper.toUserInfo(updatedUser);
-        return ResponseEntity.ok(userInfo);
+    public ResponseEntity<UserInfo> updateUserPhone(Long id, String ifMatch, Phone phone) {
+        var updatedUser = userService.updatePhone(id, phone, EntityTags.parseUserVersion(id, ifMatch));
+        return updated(updatedUser);
     }
 
     /**
      * Updates the address of an existing user by their unique identifier.
      *
      * @param id      the unique identifier of the user to update
+     * @param ifMatch the entity tag of the version the update is based on. It
+     *                is optional.
      * @param address the new address to update the user with
      * @return Response containing the updated user's information and HTTP
      *         status:
      *         OK - 200. The user's address was successfully updated.
      *         Not Found - 404. No user was found with the given ID.
+     *         Precondition Failed - 412. The user was changed since the
+     *         version in {@code If-Match}, or concurrently.
      *         Internal Server Error - 500. An error occurred while updating the
      *         user's address.
      */
     @Override
-    public ResponseEntity<UserInfo> updateUserAddress(Long id, Address address) {
-        var updatedUser = userService.updateAddress(id, address);
-        var userInfo = userMapper.toUserInfo(updatedUser);
-        return ResponseEntity.ok(userInfo);
+    public ResponseEntity<UserInfo> updateUserAddress(Long id, String ifMatch, Address address) {
+        var updatedUser = userService.updateAddress(id, address, EntityTags.parseUserVersion(id, ifMatch));
+        return updated(updatedUser);
     }
 
     /**
@@ -194,4 +420,92 @@ public class UserController implements UsersApi {
         userService.deleteUsersAddress(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Builds the response of an update, carrying the entity tag of the new
+     * version of the user, so the next update can be based on it.
+     *
+     * @param user the updated user
+     * @return the response with the user's information
+     */
+    private ResponseEntity<UserInfo> updated(User user) {
+        return ResponseEntity.ok()
+                .eTag(EntityTags.ofUser(user.getId(), user.getVersion(), representation()))
+                .body(userMapper.toUserInfo(user));
+    }
+
+    /**
+     * Negotiates the media type the body of the current request is written
+     * in, as the message converters do: of the media types of the operation
+     * matching the request, the first one compatible with the most preferred
+     * acceptable media type.
+     *
+     * @return the media type of the body
+     */
+    private MediaType representation() {
+        var request = currentRequest();
+        if (!(request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE) instanceof Set<?> producible)
+                || producible.isEmpty()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            for (var acceptable : contentNegotiationManager.resolveMediaTypes(new ServletWebRequest(request))) {
+                for (var mediaType : producible) {
+                    if (acceptable.isCompatibleWith((MediaType) mediaType)) return (MediaType) mediaType;
+                }
+            }
+        } catch (HttpMediaTypeNotAcceptableException ex) {
+            // Not expected: a request with an invalid Accept header is not mapped to the operation
+        }
+        return (MediaType) producible.iterator().next();
+    }
+
+    /**
+     * Returns the request handled by the current thread.
+     *
+     * @return the current request
+     */
+    private static HttpServletRequest currentRequest() {
+        return ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+    }
+
+    /**
+     * Returns the request handled by the current thread together with its
+     * response, to evaluate conditional request headers.
+     *
+     * @return the current request and response
+     */
+    private static ServletWebRequest currentWebRequest() {
+        var attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        return new ServletWebRequest(attributes.getRequest(), attributes.getResponse());
+    }
+
+    /**
+     * Returns the request handled by the current thread without its response,
+     * to evaluate conditional request headers against a version other than
+     * the one of the returned entity, which sets the response headers itself.
+     *
+     * @return the current request
+     */
+    private static ServletWebRequest currentConditionalRequest() {
+        var attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        return new ServletWebRequest(attributes.getRequest());
+    }
+
+    /**
+     * Builds the {@code Link} header value pointing to the slice that follows
+     * the current one. All other query parameters of the current request are
+     * preserved.
+     *
+     * @param next the encoded cursor of the next slice
+     * @return the link header value with {@code rel="next"}
+     */
+    private String nextSliceLink(String next) {
+        var uri = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("page")
+                .replaceQueryParam("after", next)
+                .build()
+                .toUriString();
+        return String.format("<%s>; rel=\"next\"", uri);
+    }
 }
@@ -0,0 +1,78 @@
+package com.github.malyshevhen.controllers;
+
+import java.io.IOException;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.malyshevhen.dto.UserInfo;
+import com.github.malyshevhen.dto.UsersPage;
+
+/**
+ * Writes a {@link UsersPage} without the reflective bean serializer of the
+ * generated class.
+ * </p>
+ * The property names are encoded once, absent properties are skipped rather
+ * than written as {@code null}, and the serializer of the users is resolved
+ * once per page instead of once per user. Pages are written on every
+ * {@code GET /users}, so the envelope costs no more than the users it carries.
+ *
+ * @author Evhen Malysh
+ */
+@JsonComponent
+class UsersPageSerializer extends StdSerializer<UsersPage> {
+
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString PAGE = new SerializedString("page");
+    private static final SerializedString NEXT_PAGE = new SerializedString("nextPage");
+    private static final SerializedString NEXT = new SerializedString("next");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString TOTALS = new SerializedString("totals");
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+
+    UsersPageSerializer() {
+        super(UsersPage.class);
+    }
+
+    @Override
+    public void serialize(UsersPage page, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(page);
+
+        var content = page.getContent();
+        generator.writeFieldName(CONTENT);
+        generator.writeStartArray(content, content.size());
+        if (!content.isEmpty()) {
+            var userSerializer = provider.findValueSerializer(UserInfo.class);
+            for (var user : content) {
+                userSerializer.serialize(user, generator, provider);
+            }
+        }
+        generator.writeEndArray();
+
+        if (page.getPage() != null) {
+            generator.writeFieldName(PAGE);
+            generator.writeNumber(page.getPage());
+        }
+        if (page.getNextPage() != null) {
+            generator.writeFieldName(NEXT_PAGE);
+            generator.writeNumber(page.getNextPage());
+        }
+        if (page.getNext() != null) {
+            generator.writeFieldName(NEXT);
+            generator.writeString(page.getNext());
+        }
+        generator.writeFieldName(SIZE);
+        generator.writeNumber(page.getSize());
+        generator.writeFieldName(TOTALS);
+        generator.writeString(page.getTotals().getValue());
+        if (page.getTotalElements() != null) {
+            generator.writeFieldName(TOTAL_ELEMENTS);
+            generator.writeNumber(page.getTotalElements());
+        }
+
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.malyshevhen.domain.dto;
+
+import java.time.LocalDateTime;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Version of a collection of entities: it changes whenever an entity of the
+ * collection is added, updated or removed.
+ * </p>
+ * Additions and updates move the latest modification time forward and
+ * removals decrease the count. Updates also increase the sum of the
+ * optimistic locking versions, which detects an update committed after a
+ * later one, whose modification time is not the latest.
+ *
+ * @param lastModified the latest modification time of the entities, or
+ *                     {@code null} if the collection is empty
+ * @param count        the number of entities
+ * @param versions     the sum of the optimistic locking versions of the
+ *                     entities
+ * @author Evhen Malysh
+ */
+public record CollectionVersion(@Nullable LocalDateTime lastModified, long count, long versions) {
+}
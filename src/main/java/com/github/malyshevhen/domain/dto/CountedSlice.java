@@ -0,0 +1,98 @@
+package com.github.malyshevhen.domain.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.lang.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A {@link org.springframework.data.domain.Slice} that optionally carries the
+ * total number of elements, together with the {@link TotalsMode} it was
+ * calculated with.
+ * </p>
+ * Unlike {@link Page}, the totals are not required, so the slice can be
+ * served without a count query. Estimated totals are kept consistent with the
+ * slice itself: they are never lower than the number of elements known to
+ * exist, and are exact once the last slice has been reached.
+ *
+ * @param <T> the type of the slice content
+ * @author Evhen Malysh
+ */
+public class CountedSlice<T> extends SliceImpl<T> {
+
+    private final TotalsMode totals;
+    private final Long totalElements;
+
+    private CountedSlice(List<T> content, Pageable pageable, boolean hasNext,
+            TotalsMode totals, @Nullable Long totalElements) {
+        super(content, pageable, hasNext);
+        this.totals = totals;
+        this.totalElements = totalElements;
+    }
+
+    /**
+     * Creates a slice without totals.
+     *
+     * @param content  the slice content
+     * @param pageable the paging information of the slice
+     * @param hasNext  whether a next slice exists
+     * @return the slice served with {@link TotalsMode#NONE}
+     */
+    public static <T> CountedSlice<T> uncounted(List<T> content, Pageable pageable, boolean hasNext) {
+        return new CountedSlice<>(content, pageable, hasNext, TotalsMode.NONE, null);
+    }
+
+    /**
+     * Creates a slice with estimated totals.
+     *
+     * @param content  the slice content
+     * @param pageable the paging information of the slice
+     * @param hasNext  whether a next slice exists
+     * @param estimate the estimated total number of elements
+     * @return the slice served with {@link TotalsMode#ESTIMATED}
+     */
+    public static <T> CountedSlice<T> estimated(List<T> content, Pageable pageable, boolean hasNext, long estimate) {
+        long known = (pageable.isPaged() ? pageable.getOffset() : 0) + content.size();
+        long total = hasNext ? Math.max(estimate, known + 1) : known;
+        return new CountedSlice<>(content, pageable, hasNext, TotalsMode.ESTIMATED, total);
+    }
+
+    /**
+     * Creates a slice from a page with exact totals.
+     *
+     * @param page the page calculated with a count query
+     * @return the slice served with {@link TotalsMode#EXACT}
+     */
+    public static <T> CountedSlice<T> exact(Page<T> page) {
+        return new CountedSlice<>(page.getContent(), page.getPageable(), page.hasNext(),
+                TotalsMode.EXACT, page.getTotalElements());
+    }
+
+    public TotalsMode getTotals() {
+        return totals;
+    }
+
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    @Nullable
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Integer getTotalPages() {
+        if (totalElements == null) return null;
+
+        return getSize() == 0 ? 1 : (int) Math.ceil((double) totalElements / (double) getSize());
+    }
+
+    @Override
+    public <U> CountedSlice<U> map(Function<? super T, ? extends U> converter) {
+        return new CountedSlice<>(getConvertedContent(converter), getPageable(), hasNext(), totals, totalElements);
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.malyshevhen.domain.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version of an entity: the optimistic locking version, incremented by every
+ * update, and the time of the last update.
+ *
+ * @param version      the optimistic locking version
+ * @param lastModified the time of the last update
+ * @author Evhen Malysh
+ */
+public record EntityVersion(long version, LocalDateTime lastModified) {
+}
@@ -1,11 +1,16 @@
 package com.github.malyshevhen.domain.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * Represents an error response containing a message and a timestamp.
+ * </p>
+ * If the error is caused by a single field of the request, such as a unique
+ * field that is already registered, the field is named as well.
  * 
  * @author Evhen Malysh
  */
-public record ErrorResponse(String message, long timestamp) {
+public record ErrorResponse(String message, @JsonInclude(JsonInclude.Include.NON_NULL) String field, long timestamp) {
 
     /**
      * Constructs an ErrorResponse object with the given message and automatically
@@ -14,6 +19,17 @@ public record ErrorResponse(String message, long timestamp) {
      * @param message the error message
      */
     public ErrorResponse(String message) {
-        this(message, System.currentTimeMillis());
+        this(message, null);
+    }
+
+    /**
+     * Constructs an ErrorResponse object with the given message and field and
+     * automatically sets the timestamp.
+     *
+     * @param message the error message
+     * @param field   the field causing the error, may be {@code null}
+     */
+    public ErrorResponse(String message, String field) {
+        this(message, field, System.currentTimeMillis());
     }
 }
@@ -0,0 +1,11 @@
+package com.github.malyshevhen.domain.dto;
+
+/**
+ * A rejected line of a user import.
+ *
+ * @param line  the one-based line number in the import stream
+ * @param error the reason of the rejection
+ * @author Evhen Malysh
+ */
+public record ImportRejection(long line, String error) {
+}
@@ -0,0 +1,24 @@
+package com.github.malyshevhen.domain.dto;
+
+import java.util.List;
+
+/**
+ * Result of a user import.
+ *
+ * @param accepted   the number of imported users
+ * @param rejected   the number of rejected users
+ * @param rejections the rejected lines in line order, limited to the first
+ *                   {@value #REJECTIONS_LIMIT}
+ * @author Evhen Malysh
+ */
+public record ImportResult(long accepted, long rejected, List<ImportRejection> rejections) {
+
+    /**
+     * Maximum number of rejected lines reported in a result.
+     */
+    public static final int REJECTIONS_LIMIT = 1000;
+
+    public ImportResult {
+        rejections = List.copyOf(rejections);
+    }
+}
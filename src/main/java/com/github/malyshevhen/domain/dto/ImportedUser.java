@@ -0,0 +1,13 @@
+package com.github.malyshevhen.domain.dto;
+
+import com.github.malyshevhen.domain.models.User;
+
+/**
+ * A user read from an import stream that passed validation.
+ *
+ * @param line the one-based line number of the user in the import stream
+ * @param user the user to be imported
+ * @author Evhen Malysh
+ */
+public record ImportedUser(long line, User user) {
+}
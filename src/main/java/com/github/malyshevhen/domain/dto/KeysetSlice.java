@@ -0,0 +1,46 @@
+package com.github.malyshevhen.domain.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.lang.Nullable;
+
+/**
+ * A {@link org.springframework.data.domain.Slice} read in keyset pagination
+ * mode, carrying the cursor of the slice that follows.
+ * </p>
+ * The cursor is taken from the sort keys of the last row as it was read, so
+ * the content can be mapped without keeping the keys.
+ *
+ * @param <T> the type of the slice content
+ * @author Evhen Malysh
+ */
+public class KeysetSlice<T> extends SliceImpl<T> {
+
+    private final PageCursor next;
+
+    /**
+     * Creates a slice.
+     *
+     * @param content  the slice content
+     * @param pageable the size and keyset sort order of the slice
+     * @param next     the cursor of the next slice, {@code null} on the last
+     *                 slice
+     */
+    public KeysetSlice(List<T> content, Pageable pageable, @Nullable PageCursor next) {
+        super(content, pageable, next != null);
+        this.next = next;
+    }
+
+    @Nullable
+    public PageCursor getNext() {
+        return next;
+    }
+
+    @Override
+    public <U> KeysetSlice<U> map(Function<? super T, ? extends U> converter) {
+        return new KeysetSlice<>(getConvertedContent(converter), getPageable(), next);
+    }
+}
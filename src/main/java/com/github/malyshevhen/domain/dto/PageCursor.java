@@ -0,0 +1,98 @@
+package com.github.malyshevhen.domain.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Opaque cursor for keyset (seek) pagination.
+ * </p>
+ * Holds the sort key values of the last row of a page, in sort order. The last
+ * key is always the unique identifier of the row, so the cursor points to exactly
+ * one position regardless of duplicate values in the other sort keys.
+ * <p>
+ * The token form is a URL-safe Base64 string, so clients should treat it as
+ * opaque and pass it back unchanged.
+ *
+ * @author Evhen Malysh
+ */
+public record PageCursor(List<Key> keys) {
+
+    private static final String KEY_SEPARATOR = ";";
+    private static final String VALUE_SEPARATOR = "=";
+
+    public PageCursor {
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("Cursor must contain at least one key");
+        }
+        keys = List.copyOf(keys);
+    }
+
+    /**
+     * Decodes a cursor from its token form.
+     *
+     * @param token the token previously produced by {@link #encode()}
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageCursor decode(String token) {
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var keys = Arrays.stream(decoded.split(KEY_SEPARATOR))
+                    .map(Key::parse)
+                    .toList();
+            return new PageCursor(keys);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Malformed page cursor");
+        }
+    }
+
+    /**
+     * Encodes this cursor into an opaque URL-safe token.
+     *
+     * @return the token form of this cursor
+     */
+    public String encode() {
+        var joined = String.join(KEY_SEPARATOR, keys.stream().map(Key::format).toList());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the sort order this cursor was created for.
+     *
+     * @return the sort order of the cursor keys
+     */
+    public Sort toSort() {
+        return Sort.by(keys.stream()
+                .map(key -> new Sort.Order(key.direction(), key.property()))
+                .toList());
+    }
+
+    /**
+     * A single sort key of the cursor.
+     *
+     * @param property  the sorted property name
+     * @param direction the sort direction of the property
+     * @param value     the string form of the property value of the last row
+     */
+    public record Key(String property, Sort.Direction direction, String value) {
+
+        private static Key parse(String raw) {
+            var direction = switch (raw.charAt(0)) {
+                case '+' -> Sort.Direction.ASC;
+                case '-' -> Sort.Direction.DESC;
+                default -> throw new IllegalArgumentException("Unknown sort direction");
+            };
+            var separator = raw.indexOf(VALUE_SEPARATOR);
+            return new Key(raw.substring(1, separator), direction, raw.substring(separator + 1));
+        }
+
+        private String format() {
+            var sign = direction.isAscending() ? "+" : "-";
+            return sign + property + VALUE_SEPARATOR + value;
+        }
+    }
+}
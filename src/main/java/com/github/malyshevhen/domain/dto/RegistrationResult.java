@@ -0,0 +1,35 @@
+package com.github.malyshevhen.domain.dto;
+
+import com.github.malyshevhen.domain.models.User;
+
+/**
+ * Result of the registration of a single user of a batch.
+ *
+ * @param index  the zero-based position of the user in the batch
+ * @param status whether the user was registered or rejected
+ * @param user   the registered user, {@code null} if rejected
+ * @param error  the reason of the rejection, {@code null} if registered
+ * @author Evhen Malysh
+ */
+public record RegistrationResult(int index, Status status, User user, String error) {
+
+    /**
+     * Outcome of a registration.
+     */
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+
+    public static RegistrationResult created(int index, User user) {
+        return new RegistrationResult(index, Status.CREATED, user, null);
+    }
+
+    public static RegistrationResult rejected(int index, String error) {
+        return new RegistrationResult(index, Status.REJECTED, null, error);
+    }
+
+    public boolean isCreated() {
+        return status == Status.CREATED;
+    }
+}
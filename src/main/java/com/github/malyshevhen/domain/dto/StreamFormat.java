@@ -0,0 +1,80 @@
+package com.github.malyshevhen.domain.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Defines the supported formats of user import and export streams.
+ *
+ * @author Evhen Malysh
+ */
+public enum StreamFormat {
+
+    /**
+     * Newline delimited JSON, one user per line.
+     */
+    NDJSON(MediaType.valueOf("application/x-ndjson")),
+
+    /**
+     * Comma separated values with a header line naming the columns.
+     */
+    CSV(MediaType.valueOf("text/csv"));
+
+    private final MediaType mediaType;
+
+    StreamFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Resolves the format by the content type of an import stream.
+     *
+     * @param contentType the content type, parameters such as the charset are
+     *                    ignored
+     * @return the stream format
+     * @throws IllegalArgumentException if the content type is missing or not
+     *                                  supported
+     */
+    public static StreamFormat fromContentType(String contentType) {
+        if (contentType == null) {
+            throw new IllegalArgumentException("Content type of the import is missing");
+        }
+
+        var mediaType = MediaType.parseMediaType(contentType);
+        return Arrays.stream(values())
+                .filter(format -> format.mediaType.equalsTypeAndSubtype(mediaType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        String.format("Unsupported import content type '%s'. Supported: %s",
+                                contentType, Arrays.stream(values()).map(StreamFormat::getMediaType).toList())));
+    }
+
+    /**
+     * Resolves the format of an export stream by the {@code Accept} header,
+     * preferring the most specific media type with the highest quality.
+     *
+     * @param accept the accepted media types, may be {@code null}
+     * @return the first supported format, or {@link #NDJSON} if the client
+     *         accepts none of them specifically
+     * @throws IllegalArgumentException if the header is malformed
+     */
+    public static StreamFormat fromAccept(String accept) {
+        if (accept == null || accept.isBlank()) return NDJSON;
+
+        var mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        MimeTypeUtils.sortBySpecificity(mediaTypes);
+        return mediaTypes.stream()
+                .filter(mediaType -> !mediaType.isWildcardType())
+                .flatMap(mediaType -> Arrays.stream(values())
+                        .filter(format -> format.mediaType.isCompatibleWith(mediaType)))
+                .findFirst()
+                .orElse(NDJSON);
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.malyshevhen.domain.dto;
+
+import java.util.Arrays;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Defines how the total number of elements of a page is calculated.
+ *
+ * @author Evhen Malysh
+ */
+public enum TotalsMode {
+
+    /**
+     * Totals are not calculated. Only the existence of a next page is known.
+     */
+    NONE("none"),
+
+    /**
+     * Totals are estimated from the database planner statistics.
+     */
+    ESTIMATED("estimated"),
+
+    /**
+     * Totals are calculated with a count query.
+     */
+    EXACT("exact");
+
+    private final String value;
+
+    TotalsMode(String value) {
+        this.value = value;
+    }
+
+    @JsonValue
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Resolves the mode by its API value.
+     *
+     * @param value the API value of the mode, {@code null} resolves to
+     *              {@link #EXACT}
+     * @return the totals mode
+     * @throws IllegalArgumentException if the value is unknown
+     */
+    public static TotalsMode fromValue(String value) {
+        if (value == null) return EXACT;
+
+        return Arrays.stream(values())
+                .filter(mode -> mode.value.equals(value))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        String.format("Unknown totals mode '%s'. Supported: %s",
+                                value, Arrays.stream(values()).map(TotalsMode::getValue).toList())));
+    }
+}
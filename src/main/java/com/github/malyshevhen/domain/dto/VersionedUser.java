@@ -0,0 +1,17 @@
+package com.github.malyshevhen.domain.dto;
+
+import com.github.malyshevhen.dto.UserInfo;
+
+/**
+ * Information of a user together with its version, as cached by ID.
+ * </p>
+ * The information is read from the database without an entity, so nothing
+ * else refers to it. It is shared by the requests it is served to and must not
+ * be modified.
+ *
+ * @param user    the information of the user
+ * @param version the version of the user the information was read at
+ * @author Evhen Malysh
+ */
+public record VersionedUser(UserInfo user, EntityVersion version) {
+}
@@ -1,20 +1,33 @@
 package com.github.malyshevhen.domain.mapper;
 
+import java.util.List;
+
+import com.github.malyshevhen.domain.dto.CountedSlice;
+import com.github.malyshevhen.domain.dto.ImportRejection;
+import com.github.malyshevhen.domain.dto.ImportResult;
+import com.github.malyshevhen.domain.dto.KeysetSlice;
+import com.github.malyshevhen.domain.dto.RegistrationResult;
 import com.github.malyshevhen.domain.models.User;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.springframework.data.domain.Slice;
 
+import com.github.malyshevhen.dto.UserBatchItemResult;
+import com.github.malyshevhen.dto.UserBatchResult;
+import com.github.malyshevhen.dto.UserImportRejection;
+import com.github.malyshevhen.dto.UserImportResult;
 import com.github.malyshevhen.dto.UserInfo;
 import com.github.malyshevhen.dto.UserRegistrationForm;
 import com.github.malyshevhen.dto.UserUpdateForm;
+import com.github.malyshevhen.dto.UsersPage;
 
 /**
  * Mapper interface for converting between User entities and DTO objects.
  * </p>
  * Provides methods to map a UserRegistrationForm to a User entity, a
  * UserUpdateForm to a User entity, and a User entity to a UserInfo DTO.
- * The mapping ignores the id, createdAt, and updatedAt fields, as these are
- * typically managed by the application.
+ * The mapping ignores the id, createdAt, updatedAt and version fields, as these
+ * are typically managed by the application.
  * 
  * @author Evhen Malysh
  */
@@ -23,7 +36,8 @@ public interface UserMapper {
 
     /**
      * Maps a {@link UserUpdateForm} to a {@link User} entity, ignoring the
-     * {@code id}, {@code createdAt}, and {@code updatedAt} properties.
+     * {@code id}, {@code createdAt}, {@code updatedAt} and {@code version}
+     * properties.
      *
      * @param updateForm the {@link UserUpdateForm} to map from
      * @return the mapped {@link User} entity
@@ -31,12 +45,13 @@ public interface UserMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     User toUser(UserRegistrationForm registrationForm);
 
     /**
      * Maps a {@link UserUpdateForm} to a {@link User} entity.
-     * The {@code id}, {@code createdAt}, and {@code updatedAt} fields are ignored
-     * during the mapping.
+     * The {@code id}, {@code createdAt}, {@code updatedAt} and {@code version}
+     * fields are ignored during the mapping.
      *
      * @param updateForm the {@link UserUpdateForm} to map from
      * @return the mapped {@link User} entity
@@ -44,6 +59,7 @@ public interface UserMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     User toUser(UserUpdateForm updateForm);
 
     /**
@@ -53,4 +69,79 @@ public interface UserMapper {
      * @return the corresponding {@link UserInfo} data transfer object
      */
     UserInfo toUserInfo(User user);
+
+    /**
+     * Converts a page of user information to a {@link UsersPage} data transfer
+     * object, with the number of the next page unless it is the last one. The
+     * totals are taken from a {@link CountedSlice}, other slices have none.
+     *
+     * @param users the page of user information
+     * @return the corresponding {@link UsersPage}
+     */
+    default UsersPage toUsersPage(Slice<UserInfo> users) {
+        var page = new UsersPage(users.getContent(), users.getSize(), UsersPage.TotalsEnum.NONE)
+                .page(users.getNumber())
+                .nextPage(users.hasNext() ? users.getNumber() + 1 : null);
+        if (users instanceof CountedSlice<UserInfo> counted) {
+            page.totals(UsersPage.TotalsEnum.fromValue(counted.getTotals().getValue()))
+                    .totalElements(counted.getTotalElements());
+        }
+        return page;
+    }
+
+    /**
+     * Converts a slice of user information read in cursor pagination mode to a
+     * {@link UsersPage} data transfer object, with the encoded cursor of the
+     * next slice and without page numbers and totals.
+     *
+     * @param users the slice of user information
+     * @return the corresponding {@link UsersPage}
+     */
+    default UsersPage toUsersPage(KeysetSlice<UserInfo> users) {
+        var next = users.getNext();
+        return new UsersPage(users.getContent(), users.getSize(), UsersPage.TotalsEnum.NONE)
+                .next(next == null ? null : next.encode());
+    }
+
+    /**
+     * Converts a {@link RegistrationResult} to a {@link UserBatchItemResult}
+     * data transfer object.
+     *
+     * @param result the result of a single registration
+     * @return the corresponding {@link UserBatchItemResult}
+     */
+    UserBatchItemResult toBatchItemResult(RegistrationResult result);
+
+    /**
+     * Converts the results of a batch registration to a {@link UserBatchResult}
+     * data transfer object, counting registered and rejected users.
+     *
+     * @param results the results of the batch registration
+     * @return the corresponding {@link UserBatchResult}
+     */
+    default UserBatchResult toBatchResult(List<RegistrationResult> results) {
+        var created = (int) results.stream().filter(RegistrationResult::isCreated).count();
+        return new UserBatchResult()
+                .created(created)
+                .rejected(results.size() - created)
+                .results(results.stream().map(this::toBatchItemResult).toList());
+    }
+
+    /**
+     * Converts an {@link ImportRejection} to a {@link UserImportRejection} data
+     * transfer object.
+     *
+     * @param rejection the rejected line of an import
+     * @return the corresponding {@link UserImportRejection}
+     */
+    UserImportRejection toImportRejection(ImportRejection rejection);
+
+    /**
+     * Converts an {@link ImportResult} to a {@link UserImportResult} data
+     * transfer object.
+     *
+     * @param result the result of an import
+     * @return the corresponding {@link UserImportResult}
+     */
+    UserImportResult toImportResult(ImportResult result);
 }
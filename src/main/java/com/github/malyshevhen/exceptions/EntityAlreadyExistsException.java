@@ -2,18 +2,29 @@ package com.github.malyshevhen.exceptions;
 
 import org.springframework.http.HttpStatus;
 
+import lombok.Getter;
+
 /**
  * Represents an exception that is thrown when an entity already exists in the
  * system.
  * </p>
  * This exception is typically used when attempting to create a new entity that
- * would conflict with an existing one.
+ * would conflict with an existing one. If the conflict is caused by a unique
+ * field, the field is reported to the client.
  * 
  * @author Evhen Malysh
  */
+@Getter
 public class EntityAlreadyExistsException extends BaseApplicationException {
 
+    private final String field;
+
     public EntityAlreadyExistsException(String errorMessage) {
+        this(errorMessage, null);
+    }
+
+    public EntityAlreadyExistsException(String errorMessage, String field) {
         super(errorMessage, HttpStatus.BAD_REQUEST);
+        this.field = field;
     }
 }
@@ -0,0 +1,16 @@
+package com.github.malyshevhen.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Represents an exception that is thrown when a conditional update is based
+ * on a version of an entity that is no longer current.
+ *
+ * @author Evhen Malysh
+ */
+public class PreconditionFailedException extends BaseApplicationException {
+
+    public PreconditionFailedException(String errorMessage) {
+        super(errorMessage, HttpStatus.PRECONDITION_FAILED);
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.malyshevhen.repositories;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+
+import com.github.malyshevhen.domain.dto.DateRange;
+
+/**
+ * Builds the conditions of the users filtered by the repository fragments
+ * querying with plain JDBC, with their positional parameters.
+ * </p>
+ * The conditions refer to the user aliased as {@code u}, as the queries of
+ * {@link UserRows} do, and are joined with {@code AND}. The birth date range
+ * is rendered as {@link UserSpecifications#inRange} filters the entities, so
+ * every path selects the same users.
+ *
+ * @author Evhen Malysh
+ */
+final class UserConditions {
+
+    private final List<String> conditions = new ArrayList<>(4);
+    private final List<Object> parameters = new ArrayList<>(4);
+
+    private UserConditions() {
+    }
+
+    /**
+     * Creates the conditions of the users born in the range.
+     *
+     * @param dateRange the birth date range, may be {@code null} or open on
+     *                  either side
+     * @return the conditions, empty if the range is not set
+     */
+    static UserConditions birthDateIn(@Nullable DateRange dateRange) {
+        var userConditions = new UserConditions();
+        if (dateRange != null && dateRange.getFrom() != null) {
+            userConditions.and("u.birth_date >= ?", Date.valueOf(dateRange.getFrom()));
+        }
+        if (dateRange != null && dateRange.getTo() != null) {
+            userConditions.and("u.birth_date <= ?", Date.valueOf(dateRange.getTo()));
+        }
+        return userConditions;
+    }
+
+    /**
+     * Adds a condition with its positional parameters.
+     *
+     * @param condition  the condition
+     * @param parameters the values of its parameters, in order
+     * @return these conditions
+     */
+    UserConditions and(String condition, Object... parameters) {
+        conditions.add(condition);
+        this.parameters.addAll(List.of(parameters));
+        return this;
+    }
+
+    /**
+     * Renders the conditions joined with {@code AND}.
+     *
+     * @return the conditions, or {@code TRUE} if there are none
+     */
+    String toSql() {
+        return conditions.isEmpty() ? "TRUE" : String.join(" AND ", conditions);
+    }
+
+    /**
+     * Renders the {@code WHERE} clause of the conditions.
+     *
+     * @return the clause with a leading space, or an empty string if there are
+     *         no conditions
+     */
+    String where() {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    /**
+     * Returns the values of the parameters, in the order of the conditions.
+     *
+     * @return the parameters
+     */
+    List<Object> parameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * Binds the parameters to the first positions of the statement.
+     *
+     * @param statement the statement
+     * @return the number of bound parameters
+     * @throws SQLException if a parameter cannot be bound
+     */
+    int bind(PreparedStatement statement) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+        return parameters.size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.malyshevhen.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.lang.Nullable;
+
+import com.github.malyshevhen.domain.dto.DateRange;
+
+/**
+ * Repository fragment for deleting users together with their addresses.
+ * </p>
+ * Each deletion is a single {@code DELETE ... RETURNING} statement removing the
+ * users and their addresses, without loading the users first. The deleted users
+ * are returned by identifier and email, so the caller can evict them from
+ * caches and filters.
+ * <p>
+ * Pending changes of the persistence context are flushed before a deletion,
+ * and managed instances of the deleted users are detached after it.
+ *
+ * @author Evhen Malysh
+ */
+public interface UserDeleteRepository {
+
+    /**
+     * Deletes a user and its address.
+     *
+     * @param id the identifier of the user
+     * @return the deleted user, or empty if not found
+     */
+    Optional<DeletedUser> deleteUser(Long id);
+
+    /**
+     * Deletes the users with the given identifiers and their addresses. The
+     * users are locked in identifier order.
+     *
+     * @param ids the identifiers of the users
+     * @return the deleted users, missing identifiers are ignored
+     */
+    List<DeletedUser> deleteUsers(Collection<Long> ids);
+
+    /**
+     * Deletes a limited number of users matching the filter, with the lowest
+     * identifiers above the given one, and their addresses. The users are
+     * locked in identifier order.
+     * </p>
+     * Passing the highest identifier of the previous deletion resumes the
+     * index scan where that deletion stopped, instead of scanning again from
+     * the lowest identifier past the rows already deleted.
+     *
+     * @param dateRange     the birth date range, may be {@code null}
+     * @param createdBefore the exclusive upper bound of the creation time, may be
+     *                      {@code null}
+     * @param afterId       the exclusive lower bound of the identifiers, may be
+     *                      {@code null}
+     * @param limit         the maximum number of users to delete
+     * @return the deleted users, fewer than the limit if no more users match
+     */
+    List<DeletedUser> deleteUsers(@Nullable DateRange dateRange, @Nullable LocalDateTime createdBefore,
+            @Nullable Long afterId, int limit);
+
+    /**
+     * A deleted user.
+     *
+     * @param id    the identifier of the user
+     * @param email the email of the user
+     */
+    record DeletedUser(Long id, String email) {
+    }
+}
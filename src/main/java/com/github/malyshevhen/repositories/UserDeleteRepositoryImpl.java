@@ -0,0 +1,107 @@
+package com.github.malyshevhen.repositories;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.Session;
+
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.models.User;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * PostgreSQL implementation of {@link UserDeleteRepository}.
+ * </p>
+ * The users to delete are selected and locked in identifier order first, so
+ * concurrent deletions of overlapping users wait for each other instead of
+ * deadlocking. The users are then deleted, and the addresses they referenced
+ * are deleted in the same statement; the foreign key is checked at the end of
+ * the statement, when no deleted user references them anymore.
+ *
+ * @author Evhen Malysh
+ */
+@RequiredArgsConstructor
+class UserDeleteRepositoryImpl implements UserDeleteRepository {
+
+    private static final String DELETE = """
+            WITH target AS (
+                SELECT id FROM users u WHERE %s ORDER BY id LIMIT ? FOR UPDATE
+            ),
+            deleted AS (
+                DELETE FROM users u USING target t
+                WHERE u.id = t.id
+                RETURNING u.id, u.email, u.address_id
+            ),
+            deleted_addresses AS (
+                DELETE FROM addresses a USING deleted d
+                WHERE a.id = d.address_id
+            )
+            SELECT id, email FROM deleted""";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<DeletedUser> deleteUser(Long id) {
+        return deleteUsers(List.of(id)).stream().findFirst();
+    }
+
+    @Override
+    public List<DeletedUser> deleteUsers(Collection<Long> ids) {
+        var idArray = ids.toArray(Long[]::new);
+        return delete("u.id = ANY (?)", ids.size(),
+                connection -> List.of(connection.createArrayOf("bigint", idArray)));
+    }
+
+    @Override
+    public List<DeletedUser> deleteUsers(DateRange dateRange, LocalDateTime createdBefore, Long afterId,
+            int limit) {
+        var conditions = UserConditions.birthDateIn(dateRange);
+        if (afterId != null) {
+            conditions.and("u.id > ?", afterId);
+        }
+        if (createdBefore != null) {
+            conditions.and("u.created_at < ?", Timestamp.valueOf(createdBefore));
+        }
+        return delete(conditions.toSql(), limit, connection -> conditions.parameters());
+    }
+
+    private List<DeletedUser> delete(String where, int limit, Parameters parameters) {
+        entityManager.flush();
+        var session = entityManager.unwrap(Session.class);
+        var deleted = session.doReturningWork(connection -> {
+            var values = parameters.bind(connection);
+            try (var statement = connection.prepareStatement(DELETE.formatted(where))) {
+                for (int i = 0; i < values.size(); i++) {
+                    statement.setObject(i + 1, values.get(i));
+                }
+                statement.setInt(values.size() + 1, limit);
+                try (var resultSet = statement.executeQuery()) {
+                    var users = new ArrayList<DeletedUser>();
+                    while (resultSet.next()) {
+                        users.add(new DeletedUser(resultSet.getLong(1), resultSet.getString(2)));
+                    }
+                    return users;
+                }
+            }
+        });
+        deleted.forEach(user -> session.detach(session.getReference(User.class, user.id())));
+        return deleted;
+    }
+
+    /**
+     * Creates the statement parameters, some of which depend on the connection.
+     */
+    @FunctionalInterface
+    private interface Parameters {
+
+        List<?> bind(Connection connection) throws SQLException;
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.malyshevhen.repositories;
+
+import java.util.function.Consumer;
+
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.models.User;
+
+/**
+ * Repository fragment for reading all users as a stream.
+ * </p>
+ * Users are read from a server-side cursor in fixed-size chunks and are not
+ * attached to the persistence context, so the memory used to read them does
+ * not depend on the number of users. Must be called in a transaction, the
+ * cursor is only kept open until the end of the transaction.
+ *
+ * @author Evhen Malysh
+ */
+public interface UserExportRepository {
+
+    /**
+     * Reads the users with the birth date in the given range, ordered by
+     * identifier, together with their addresses, and passes each of them to the
+     * given action as soon as it is read.
+     * </p>
+     * If the action throws an exception, the query is cancelled and the
+     * exception is rethrown.
+     *
+     * @param dateRange the birth date range, may be {@code null}
+     * @param action    the action to perform on each user
+     */
+    void forEachUser(DateRange dateRange, Consumer<User> action);
+}
@@ -0,0 +1,56 @@
+package com.github.malyshevhen.repositories;
+
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+import org.hibernate.Session;
+
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.models.User;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * PostgreSQL implementation of {@link UserExportRepository}.
+ * </p>
+ * pgjdbc reads the whole result set into memory unless a fetch size is set on
+ * a statement executed inside a transaction; in that case the query is
+ * executed as a portal and rows are fetched {@value #FETCH_SIZE} at a time.
+ * The rows are mapped to detached entities directly, bypassing the
+ * persistence context.
+ *
+ * @author Evhen Malysh
+ */
+@RequiredArgsConstructor
+class UserExportRepositoryImpl implements UserExportRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT_USERS = "SELECT " + UserRows.COLUMNS
+            + " FROM users u LEFT JOIN addresses a ON a.id = u.address_id";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public void forEachUser(DateRange dateRange, Consumer<User> action) {
+        var conditions = UserConditions.birthDateIn(dateRange);
+        var sql = SELECT_USERS + conditions.where() + " ORDER BY u.id";
+
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(FETCH_SIZE);
+                conditions.bind(statement);
+                try (var resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        action.accept(UserRows.toUser(resultSet));
+                    }
+                } catch (RuntimeException ex) {
+                    statement.cancel();
+                    throw ex;
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.malyshevhen.repositories;
+
+import java.util.Iterator;
+
+import com.github.malyshevhen.domain.dto.ImportResult;
+import com.github.malyshevhen.domain.dto.ImportedUser;
+
+/**
+ * Repository fragment for importing large numbers of users.
+ * </p>
+ * Users are first streamed into a temporary staging table with the PostgreSQL
+ * {@code COPY} protocol and then merged into the users and addresses tables
+ * with set-based statements, so the memory used by an import does not depend
+ * on the number of imported users. Must be called in a transaction; the
+ * staging table is dropped before the call returns, so a transaction may import
+ * several chunks of users.
+ *
+ * @author Evhen Malysh
+ */
+public interface UserImportRepository {
+
+    /**
+     * Imports the given users.
+     * </p>
+     * Users whose email is already registered, or repeated in the import, are
+     * rejected. The first of the repeated users is imported. Users whose email
+     * is registered concurrently are rejected as well, instead of failing the
+     * import.
+     *
+     * @param users the users to import, in line order. The iterator is consumed
+     *              while the users are streamed to the database
+     * @return the number of imported and rejected users, with the first
+     *         {@value ImportResult#REJECTIONS_LIMIT} rejected lines
+     */
+    ImportResult importUsers(Iterator<ImportedUser> users);
+}
@@ -0,0 +1,238 @@
+package com.github.malyshevhen.repositories;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import com.github.malyshevhen.domain.dto.ImportRejection;
+import com.github.malyshevhen.domain.dto.ImportResult;
+import com.github.malyshevhen.domain.dto.ImportedUser;
+import com.github.malyshevhen.domain.models.Address;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * PostgreSQL implementation of {@link UserImportRepository}.
+ * </p>
+ * The staging table is filled with {@code COPY ... FROM STDIN} in CSV format.
+ * Rejections are flagged in the staging table, and the accepted rows are merged
+ * with a single statement inserting the users and their addresses. Users whose
+ * email was registered since the rejections were flagged are skipped by the
+ * merge, which flags them as rejected too, and so are their addresses. The
+ * staging table is dropped once the rejections are read, so the next chunk of
+ * an import may create it again in the same transaction.
+ * <p>
+ * Identifiers are taken from the entity sequences in blocks of
+ * {@value #ALLOCATION_SIZE}, the same way the pooled optimizer of the entity
+ * identifier generators allocates them, so imported and registered users never
+ * share an identifier.
+ *
+ * @author Evhen Malysh
+ */
+@RequiredArgsConstructor
+class UserImportRepositoryImpl implements UserImportRepository {
+
+    private static final int ALLOCATION_SIZE = 50;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CREATE_STAGING_TABLE = """
+            CREATE TEMPORARY TABLE users_import (
+                line       BIGINT PRIMARY KEY,
+                email      VARCHAR(255) NOT NULL,
+                first_name VARCHAR(255) NOT NULL,
+                last_name  VARCHAR(255) NOT NULL,
+                birth_date DATE NOT NULL,
+                phone      VARCHAR(255),
+                country    VARCHAR(255),
+                city       VARCHAR(255),
+                street     VARCHAR(255),
+                number     VARCHAR(255),
+                has_address BOOLEAN NOT NULL,
+                rejection  TEXT
+            ) ON COMMIT DROP""";
+    private static final String COPY_STAGING_TABLE = """
+            COPY users_import (line, email, first_name, last_name, birth_date, phone,
+                               country, city, street, number, has_address)
+            FROM STDIN WITH (FORMAT csv)""";
+    private static final String REJECT_REGISTERED = """
+            UPDATE users_import i SET rejection = 'User with this email already registered'
+            FROM users u WHERE u.email = i.email""";
+    private static final String REJECT_REPEATED = """
+            UPDATE users_import i SET rejection = 'User with this email is repeated in the import'
+            FROM (SELECT line, row_number() OVER (PARTITION BY email ORDER BY line) AS occurrence
+                  FROM users_import WHERE rejection IS NULL) r
+            WHERE r.line = i.line AND r.occurrence > 1""";
+    private static final String SELECT_REJECTIONS = """
+            SELECT line, rejection FROM users_import
+            WHERE rejection IS NOT NULL ORDER BY line LIMIT ?""";
+    private static final String COUNT_REJECTIONS =
+            "SELECT count(*) FROM users_import WHERE rejection IS NOT NULL";
+    private static final String DROP_STAGING_TABLE = "DROP TABLE users_import";
+
+    /**
+     * Numbers the accepted rows, allocates one identifier block per started
+     * {@value #ALLOCATION_SIZE} rows plus a spare one, and joins the rows with
+     * the identifiers by their numbers. The spare block covers the first block
+     * of a fresh sequence, whose identifiers below 1 are skipped.
+     * </p>
+     * A user whose email was registered concurrently is not inserted, waiting
+     * for the registering transaction if it is still running, and its row is
+     * flagged as rejected. The addresses are only inserted for the inserted
+     * users; the foreign keys are checked at the end of the statement.
+     */
+    private static final String MERGE = """
+            WITH accepted AS (
+                SELECT i.*,
+                       row_number() OVER (ORDER BY line) AS user_number,
+                       CASE WHEN has_address
+                            THEN count(*) FILTER (WHERE has_address) OVER (ORDER BY line) END AS address_number
+                FROM users_import i
+                WHERE rejection IS NULL
+            ),
+            user_ids AS (
+                SELECT id, row_number() OVER (ORDER BY id) AS number
+                FROM (SELECT nextval('users_id_seq') AS hi
+                      FROM generate_series(0, (SELECT count(*) FROM accepted) / %1$d)) blocks,
+                     LATERAL (SELECT hi - %1$d + offs AS id FROM generate_series(1, %1$d) offs) ids
+                WHERE id >= 1
+            ),
+            address_ids AS (
+                SELECT id, row_number() OVER (ORDER BY id) AS number
+                FROM (SELECT nextval('addresses_id_seq') AS hi
+                      FROM generate_series(0, (SELECT count(*) FROM accepted WHERE has_address) / %1$d)) blocks,
+                     LATERAL (SELECT hi - %1$d + offs AS id FROM generate_series(1, %1$d) offs) ids
+                WHERE id >= 1
+            ),
+            merged AS (
+                SELECT a.*, u.id AS user_id, ad.id AS address_id
+                FROM accepted a
+                JOIN user_ids u ON u.number = a.user_number
+                LEFT JOIN address_ids ad ON ad.number = a.address_number
+            ),
+            users_inserted AS (
+                INSERT INTO users (id, email, first_name, last_name, birth_date, address_id, phone, created_at,
+                                   updated_at)
+                SELECT user_id, email, first_name, last_name, birth_date, address_id, phone, LOCALTIMESTAMP,
+                       LOCALTIMESTAMP
+                FROM merged
+                ON CONFLICT (email) DO NOTHING
+                RETURNING id
+            ),
+            addresses_inserted AS (
+                INSERT INTO addresses (id, country, city, street, number, created_at)
+                SELECT m.address_id, m.country, m.city, m.street, m.number, LOCALTIMESTAMP
+                FROM merged m JOIN users_inserted u ON u.id = m.user_id
+                WHERE m.address_id IS NOT NULL
+            )
+            UPDATE users_import i SET rejection = 'User with this email already registered'
+            FROM merged m
+            WHERE m.line = i.line AND m.user_id NOT IN (SELECT id FROM users_inserted)""".formatted(ALLOCATION_SIZE);
+
+    private final EntityManager entityManager;
+
+    @Override
+    public ImportResult importUsers(Iterator<ImportedUser> users) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            execute(connection, CREATE_STAGING_TABLE);
+            var staged = copy(connection, users);
+            execute(connection, "ANALYZE users_import");
+
+            execute(connection, REJECT_REGISTERED);
+            execute(connection, REJECT_REPEATED);
+            execute(connection, MERGE);
+            var rejected = countRejections(connection);
+            var result = new ImportResult(staged - rejected, rejected, rejections(connection));
+            execute(connection, DROP_STAGING_TABLE);
+            return result;
+        });
+    }
+
+    /**
+     * Streams the users into the staging table.
+     *
+     * @return the number of streamed users
+     */
+    private long copy(Connection connection, Iterator<ImportedUser> users) throws SQLException {
+        var copyStream = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_STAGING_TABLE,
+                COPY_BUFFER_SIZE);
+        long staged = 0;
+        try (var writer = new BufferedWriter(new OutputStreamWriter(copyStream, StandardCharsets.UTF_8))) {
+            while (users.hasNext()) {
+                writeRow(writer, users.next());
+                staged++;
+            }
+        } catch (IOException ex) {
+            throw new PersistenceException("Unable to copy the imported users", ex);
+        }
+        return staged;
+    }
+
+    private static void writeRow(Writer writer, ImportedUser importedUser) throws IOException {
+        var user = importedUser.user();
+        var address = user.getAddress() == null ? new Address() : user.getAddress();
+        writer.write(Long.toString(importedUser.line()));
+        writeValue(writer, user.getEmail());
+        writeValue(writer, user.getFirstName());
+        writeValue(writer, user.getLastName());
+        writeValue(writer, user.getBirthDate().toString());
+        writeValue(writer, user.getPhone());
+        writeValue(writer, address.getCountry());
+        writeValue(writer, address.getCity());
+        writeValue(writer, address.getStreet());
+        writeValue(writer, address.getNumber());
+        writeValue(writer, Boolean.toString(user.getAddress() != null));
+        writer.write('\n');
+    }
+
+    /**
+     * Writes a CSV field. Values are always quoted, so an unquoted empty field
+     * stands for {@code NULL} and a quoted one for an empty string.
+     */
+    private static void writeValue(Writer writer, String value) throws IOException {
+        writer.write(',');
+        if (value == null) return;
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static int execute(Connection connection, String sql) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            return statement.executeUpdate(sql);
+        }
+    }
+
+    private static long countRejections(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement();
+                var resultSet = statement.executeQuery(COUNT_REJECTIONS)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static ArrayList<ImportRejection> rejections(Connection connection) throws SQLException {
+        var rejections = new ArrayList<ImportRejection>();
+        try (var statement = connection.prepareStatement(SELECT_REJECTIONS)) {
+            statement.setInt(1, ImportResult.REJECTIONS_LIMIT);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rejections.add(new ImportRejection(resultSet.getLong(1), resultSet.getString(2)));
+                }
+            }
+        }
+        return rejections;
+    }
+}
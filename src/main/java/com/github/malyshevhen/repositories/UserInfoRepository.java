@@ -0,0 +1,74 @@
+package com.github.malyshevhen.repositories;
+
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.lang.Nullable;
+
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.KeysetSlice;
+import com.github.malyshevhen.domain.dto.PageCursor;
+import com.github.malyshevhen.domain.dto.VersionedUser;
+import com.github.malyshevhen.dto.UserInfo;
+
+/**
+ * Repository fragment for reading pages of users as {@link UserInfo} without
+ * entities.
+ * </p>
+ * Only the columns of {@link UserInfo} are selected, with the address joined
+ * in the same query, and rows are mapped to the DTOs directly. Nothing is
+ * attached to the persistence context, so no entity, snapshot for dirty
+ * checking or second copy by the mapper is made per user. Users to be changed
+ * are loaded as entities.
+ *
+ * @author Evhen Malysh
+ */
+public interface UserInfoRepository {
+
+    /**
+     * Retrieves a slice of users with the birth date in the given range, with
+     * their addresses. Users are filtered as by
+     * {@link UserSpecifications#inRange(DateRange)} and sorted by the
+     * properties of the entity, as pages of entities are. One extra row is
+     * fetched to detect whether a next slice exists, so no count query is
+     * executed.
+     *
+     * @param dateRange the birth date range, may be {@code null}
+     * @param pageable  the pagination details
+     * @return the slice of users
+     * @throws PropertyReferenceException if the sort names no property of a user
+     */
+    Slice<UserInfo> findInfoSlice(DateRange dateRange, Pageable pageable);
+
+    /**
+     * Retrieves a slice of users with the birth date in the given range,
+     * positioned after the cursor in its keyset sort order, with their
+     * addresses. Users are filtered as by {@link #findInfoSlice}, and the
+     * cursor is applied as a row comparison of the sort keys, so the slice is
+     * read from the index of the sort order. One extra row is fetched to detect
+     * whether a next slice exists.
+     *
+     * @param dateRange the birth date range, may be {@code null}
+     * @param after     the cursor of the previous slice, or {@code null} to
+     *                  start from the first user
+     * @param sort      the keyset sort order, see
+     *                  {@link UserSpecifications#keysetSort}. Ignored if the
+     *                  cursor is set
+     * @param size      the size of the slice
+     * @return the slice of users, with the cursor of the next slice
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    KeysetSlice<UserInfo> findInfoSliceAfter(DateRange dateRange, @Nullable PageCursor after, Sort sort, int size);
+
+    /**
+     * Retrieves the information of a user with the address, together with the
+     * version of the user, with a single query.
+     *
+     * @param id the identifier of the user
+     * @return the user information and version, or empty if not found
+     */
+    Optional<VersionedUser> findVersionedInfoById(Long id);
+}
@@ -0,0 +1,164 @@
+package com.github.malyshevhen.repositories;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.EntityVersion;
+import com.github.malyshevhen.domain.dto.KeysetSlice;
+import com.github.malyshevhen.domain.dto.PageCursor;
+import com.github.malyshevhen.domain.dto.VersionedUser;
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.dto.UserInfo;
+import com.github.malyshevhen.repositories.UserSpecifications.KeysetProperty;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link JdbcClient} implementation of {@link UserInfoRepository}.
+ * </p>
+ * The properties of the sort are resolved against the {@link User} entity, as
+ * Spring Data JPA resolves them, and mapped to the columns of the users and
+ * addresses tables. The statements run on the connection of the current
+ * transaction.
+ * <p>
+ * Keyset slices select the columns of the sort keys after those of the user
+ * information, to build the cursor of the next slice from the last row.
+ *
+ * @author Evhen Malysh
+ */
+@RequiredArgsConstructor
+class UserInfoRepositoryImpl implements UserInfoRepository {
+
+    private static final String SELECT_USER_INFOS = "SELECT " + UserRows.INFO_COLUMNS
+            + " FROM users u LEFT JOIN addresses a ON a.id = u.address_id";
+    private static final String SELECT_VERSIONED_USER_INFO = "SELECT " + UserRows.INFO_COLUMNS
+            + ", u.version, u.updated_at FROM users u LEFT JOIN addresses a ON a.id = u.address_id WHERE u.id = ?";
+
+    /**
+     * Columns of the sortable properties of a user.
+     */
+    private static final Map<String, String> SORT_COLUMNS = Map.ofEntries(
+            Map.entry("id", "u.id"),
+            Map.entry("email", "u.email"),
+            Map.entry("firstName", "u.first_name"),
+            Map.entry("lastName", "u.last_name"),
+            Map.entry("birthDate", "u.birth_date"),
+            Map.entry("phone", "u.phone"),
+            Map.entry("createdAt", "u.created_at"),
+            Map.entry("updatedAt", "u.updated_at"),
+            Map.entry("version", "u.version"),
+            Map.entry("address", "u.address_id"),
+            Map.entry("address.id", "a.id"),
+            Map.entry("address.country", "a.country"),
+            Map.entry("address.city", "a.city"),
+            Map.entry("address.street", "a.street"),
+            Map.entry("address.number", "a.number"),
+            Map.entry("address.createdAt", "a.created_at"),
+            Map.entry("address.updatedAt", "a.updated_at"),
+            Map.entry("address.version", "a.version"));
+
+    private final JdbcClient jdbcClient;
+
+    @Override
+    public Slice<UserInfo> findInfoSlice(DateRange dateRange, Pageable pageable) {
+        var conditions = UserConditions.birthDateIn(dateRange);
+        var sql = new StringBuilder(SELECT_USER_INFOS).append(conditions.where());
+        var parameters = new ArrayList<Object>(conditions.parameters());
+        if (pageable.getSort().isSorted()) {
+            sql.append(" ORDER BY ").append(orderBy(pageable.getSort()));
+        }
+        if (pageable.isPaged()) {
+            sql.append(" LIMIT ? OFFSET ?");
+            parameters.add(pageable.getPageSize() + 1);
+            parameters.add(pageable.getOffset());
+        }
+
+        var users = jdbcClient.sql(sql.toString())
+                .params(parameters)
+                .query((resultSet, rowNum) -> UserRows.toUserInfo(resultSet))
+                .list();
+
+        var hasNext = pageable.isPaged() && users.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? users.subList(0, pageable.getPageSize()) : users, pageable, hasNext);
+    }
+
+    @Override
+    public KeysetSlice<UserInfo> findInfoSliceAfter(DateRange dateRange, PageCursor after, Sort sort, int size) {
+        var conditions = UserConditions.birthDateIn(dateRange);
+        var orderBy = after == null ? sort : after.toSort();
+        var columns = orderBy.stream().map(order -> SORT_COLUMNS.get(order.getProperty())).toList();
+        if (after != null) {
+            var values = UserSpecifications.keysetValues(after);
+            var comparison = orderBy.iterator().next().isAscending() ? " > " : " < ";
+            var placeholders = String.join(", ", columns.stream().map(column -> "?").toList());
+            conditions.and("(" + String.join(", ", columns) + ")" + comparison + "(" + placeholders + ")",
+                    values.toArray());
+        }
+        var sql = "SELECT " + UserRows.INFO_COLUMNS + ", " + String.join(", ", columns)
+                + " FROM users u LEFT JOIN addresses a ON a.id = u.address_id" + conditions.where()
+                + " ORDER BY " + orderBy(orderBy) + " LIMIT ?";
+        var parameters = new ArrayList<Object>(conditions.parameters());
+        parameters.add(size + 1);
+
+        var keys = new ArrayList<List<PageCursor.Key>>(size + 1);
+        var users = jdbcClient.sql(sql)
+                .params(parameters)
+                .query((resultSet, rowNum) -> {
+                    var rowKeys = new ArrayList<PageCursor.Key>(columns.size());
+                    int column = 14;
+                    for (var order : orderBy) {
+                        var value = resultSet.getObject(column++, KeysetProperty.of(order.getProperty()).type());
+                        rowKeys.add(new PageCursor.Key(order.getProperty(), order.getDirection(), String.valueOf(value)));
+                    }
+                    keys.add(rowKeys);
+                    return UserRows.toUserInfo(resultSet);
+                })
+                .list();
+
+        var hasNext = users.size() > size;
+        var next = hasNext ? new PageCursor(keys.get(size - 1)) : null;
+        return new KeysetSlice<>(hasNext ? users.subList(0, size) : users, PageRequest.of(0, size, orderBy), next);
+    }
+
+    @Override
+    public Optional<VersionedUser> findVersionedInfoById(Long id) {
+        return jdbcClient.sql(SELECT_VERSIONED_USER_INFO)
+                .param(id)
+                .query((resultSet, rowNum) -> new VersionedUser(UserRows.toUserInfo(resultSet),
+                        new EntityVersion(resultSet.getLong(14), resultSet.getObject(15, LocalDateTime.class))))
+                .optional();
+    }
+
+    /**
+     * Renders the sort as Spring Data JPA does for queries with specifications:
+     * case is ignored for text properties only, and the null handling is left
+     * to the database.
+     */
+    private static String orderBy(Sort sort) {
+        return sort.stream()
+                .map(order -> {
+                    var property = PropertyPath.from(order.getProperty(), User.class);
+                    var column = SORT_COLUMNS.get(property.toDotPath());
+                    if (column == null) {
+                        throw new IllegalArgumentException(
+                                String.format("Sorting by '%s' is not supported", property.toDotPath()));
+                    }
+                    var ignoreCase = order.isIgnoreCase() && property.getLeafType() == String.class;
+                    return (ignoreCase ? "lower(" + column + ")" : column) + (order.isAscending() ? " ASC" : " DESC");
+                })
+                .collect(Collectors.joining(", "));
+    }
+}
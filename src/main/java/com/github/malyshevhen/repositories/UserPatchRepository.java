@@ -0,0 +1,72 @@
+package com.github.malyshevhen.repositories;
+
+import java.util.Optional;
+
+import org.springframework.lang.Nullable;
+
+import com.github.malyshevhen.domain.models.Address;
+import com.github.malyshevhen.domain.models.User;
+
+/**
+ * Repository fragment for updating single fields of a user in place.
+ * </p>
+ * Each update is a single {@code UPDATE ... RETURNING} statement: the user is
+ * not loaded before it is changed, the version is incremented and the update
+ * time is set by the statement itself, and the updated row is returned together
+ * with the address. A missing user, or a user that is not at the expected
+ * version, is reported as an empty result, because the statement affects no
+ * row.
+ * <p>
+ * Pending changes of the persistence context are flushed before the statement,
+ * and a managed instance of the user is detached after it, so later reads in
+ * the same transaction see the update. The returned users are detached.
+ *
+ * @author Evhen Malysh
+ */
+public interface UserPatchRepository {
+
+    /**
+     * Sets the email of a user.
+     *
+     * @param id      the identifier of the user
+     * @param email   the new email
+     * @param version the expected version of the user, or {@code null} to update
+     *                any version
+     * @return the updated user with the email it had before, or empty if no
+     *         user was updated
+     */
+    Optional<EmailChange> updateEmail(Long id, String email, @Nullable Long version);
+
+    /**
+     * Sets the phone of a user.
+     *
+     * @param id      the identifier of the user
+     * @param phone   the new phone, may be {@code null}
+     * @param version the expected version of the user, or {@code null} to update
+     *                any version
+     * @return the updated user, or empty if no user was updated
+     */
+    Optional<User> updatePhone(Long id, @Nullable String phone, @Nullable Long version);
+
+    /**
+     * Inserts a new address and assigns it to a user. The address is only
+     * inserted if the user is updated.
+     *
+     * @param id      the identifier of the user
+     * @param address the new address
+     * @param version the expected version of the user, or {@code null} to update
+     *                any version
+     * @return the updated user with the new address, or empty if no user was
+     *         updated
+     */
+    Optional<User> updateAddress(Long id, Address address, @Nullable Long version);
+
+    /**
+     * A user with a changed email.
+     *
+     * @param user          the updated user
+     * @param previousEmail the email of the user before the update
+     */
+    record EmailChange(User user, String previousEmail) {
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.malyshevhen.repositories;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.Session;
+
+import com.github.malyshevhen.domain.models.Address;
+import com.github.malyshevhen.domain.models.User;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * PostgreSQL implementation of {@link UserPatchRepository}.
+ * </p>
+ * The updates are data-modifying common table expressions: the user is updated
+ * with {@code RETURNING}, and the returned row is joined with the address, so
+ * one round trip both writes the user and reads it back. The version condition
+ * is only added if a version is expected. The update time is the time of the
+ * statement rather than the start of the transaction, the same as the update
+ * timestamps set by Hibernate.
+ * <p>
+ * The new address of a user takes an identifier from the entity sequence. The
+ * pooled optimizer of the identifier generator allocates the identifiers up to
+ * each value of the sequence, so a value taken from the sequence directly is
+ * never handed out by the generator.
+ *
+ * @author Evhen Malysh
+ */
+@RequiredArgsConstructor
+class UserPatchRepositoryImpl implements UserPatchRepository {
+
+    private static final String VERSION_CONDITION = " AND u.version = ?";
+
+    /**
+     * Locks the user first, so the previous email is read from the same row
+     * version the update is applied to.
+     */
+    private static final String UPDATE_EMAIL = """
+            WITH previous AS (
+                SELECT id, email FROM users WHERE id = ? FOR UPDATE
+            ),
+            updated AS (
+                UPDATE users u
+                SET email = ?, version = u.version + 1, updated_at = clock_timestamp()::timestamp
+                FROM previous p
+                WHERE u.id = p.id%s
+                RETURNING u.*, p.email AS previous_email
+            )
+            SELECT %s, u.previous_email
+            FROM updated u
+            LEFT JOIN addresses a ON a.id = u.address_id""";
+
+    private static final String UPDATE_PHONE = """
+            WITH updated AS (
+                UPDATE users u
+                SET phone = ?, version = u.version + 1, updated_at = clock_timestamp()::timestamp
+                WHERE u.id = ?%s
+                RETURNING u.*
+            )
+            SELECT %s
+            FROM updated u
+            LEFT JOIN addresses a ON a.id = u.address_id""";
+
+    /**
+     * Locks the user first and inserts the address only for a locked user, so
+     * no address is left behind if the user is missing or at another version.
+     */
+    private static final String UPDATE_ADDRESS = """
+            WITH target AS (
+                SELECT id FROM users u WHERE u.id = ?%s FOR UPDATE
+            ),
+            inserted AS (
+                INSERT INTO addresses (id, country, city, street, number, created_at, updated_at, version)
+                SELECT nextval('addresses_id_seq'), ?, ?, ?, ?,
+                       clock_timestamp()::timestamp, clock_timestamp()::timestamp, 0
+                FROM target
+                RETURNING *
+            ),
+            updated AS (
+                UPDATE users u
+                SET address_id = i.id, version = u.version + 1, updated_at = clock_timestamp()::timestamp
+                FROM inserted i, target t
+                WHERE u.id = t.id
+                RETURNING u.*
+            )
+            SELECT %s
+            FROM updated u
+            LEFT JOIN inserted a ON a.id = u.address_id""";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<EmailChange> updateEmail(Long id, String email, Long version) {
+        var parameters = parameters(id, email);
+        var sql = UPDATE_EMAIL.formatted(versionCondition(parameters, version), UserRows.COLUMNS);
+        return update(id, sql, parameters,
+                resultSet -> new EmailChange(UserRows.toUser(resultSet), resultSet.getString("previous_email")));
+    }
+
+    @Override
+    public Optional<User> updatePhone(Long id, String phone, Long version) {
+        var parameters = parameters(phone, id);
+        var sql = UPDATE_PHONE.formatted(versionCondition(parameters, version), UserRows.COLUMNS);
+        return update(id, sql, parameters, UserRows::toUser);
+    }
+
+    @Override
+    public Optional<User> updateAddress(Long id, Address address, Long version) {
+        var parameters = parameters(id);
+        var sql = UPDATE_ADDRESS.formatted(versionCondition(parameters, version), UserRows.COLUMNS);
+        Collections.addAll(parameters, address.getCountry(), address.getCity(), address.getStreet(),
+                address.getNumber());
+        return update(id, sql, parameters, UserRows::toUser);
+    }
+
+    /**
+     * Executes an update returning at most the updated user.
+     */
+    private <T> Optional<T> update(Long id, String sql, List<?> parameters, RowReader<T> reader) {
+        entityManager.flush();
+        var session = entityManager.unwrap(Session.class);
+        var result = session.doReturningWork(connection -> {
+            try (var statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                try (var resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? Optional.of(reader.read(resultSet)) : Optional.<T>empty();
+                }
+            }
+        });
+        session.detach(session.getReference(User.class, id));
+        return result;
+    }
+
+    private static ArrayList<Object> parameters(Object... values) {
+        var parameters = new ArrayList<>(values.length + 5);
+        Collections.addAll(parameters, values);
+        return parameters;
+    }
+
+    /**
+     * Returns the version condition and adds its parameter, if a version is
+     * expected.
+     */
+    private static String versionCondition(List<Object> parameters, Long version) {
+        if (version == null) return "";
+
+        parameters.add(version);
+        return VERSION_CONDITION;
+    }
+
+    @FunctionalInterface
+    private interface RowReader<T> {
+
+        T read(ResultSet resultSet) throws SQLException;
+    }
+}
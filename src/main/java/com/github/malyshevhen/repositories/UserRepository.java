@@ -1,19 +1,71 @@
 package com.github.malyshevhen.repositories;
 
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 
+import com.github.malyshevhen.domain.dto.EntityVersion;
 import com.github.malyshevhen.domain.models.User;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository interface for managing User entities.
  * </p>
- * Extends JpaRepository and JpaSpecificationExecutor to use Spring Data JPA features.
+ * Extends JpaRepository and JpaSpecificationExecutor to use Spring Data JPA features,
+ * {@link UserStatisticsRepository} for approximate table statistics,
+ * {@link UserImportRepository} for bulk imports,
+ * {@link UserExportRepository} for streaming exports,
+ * {@link UserPatchRepository} for single-statement updates of user fields,
+ * {@link UserDeleteRepository} for single-statement deletions of users,
+ * {@link UserInfoRepository} for pages of users read without entities and
+ * {@link UserVersionRepository} for versions of collections of users.
+ * <p>
+ * The address of a user is loaded lazily. Finder methods returning users to be
+ * changed fetch it in the same query with the {@value #ADDRESS_GRAPH} entity
+ * graph.
  *
  * @author Evhen Malysh
  */
-public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>,
+        UserStatisticsRepository, UserImportRepository,
+        UserExportRepository, UserPatchRepository, UserDeleteRepository,
+        UserInfoRepository, UserVersionRepository {
+
+    /**
+     * Attribute path of the user address, to be fetched together with the user.
+     */
+    String ADDRESS_GRAPH = "address";
+
+    /**
+     * Retrieves a user by identifier together with the address.
+     *
+     * @param id the identifier of the user
+     * @return the user, or empty if not found
+     */
+    @Override
+    @EntityGraph(attributePaths = ADDRESS_GRAPH)
+    Optional<User> findById(@NonNull Long id);
+
+    /**
+     * Retrieves the version of a user without loading the user.
+     *
+     * @param id the identifier of the user
+     * @return the version, or empty if not found
+     */
+    @Query("select new com.github.malyshevhen.domain.dto.EntityVersion(u.version, u.updatedAt) "
+            + "from User u where u.id = :id")
+    Optional<EntityVersion> findVersionById(@NonNull @Param("id") Long id);
 
     /**
      * Checks if a user with the given email address exists in the repository.
@@ -23,4 +75,23 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
      */
     boolean existsByEmail(@NonNull String email);
 
+    /**
+     * Streams the email addresses of all users. Must be called in a
+     * transaction and the stream must be closed.
+     *
+     * @return the registered email addresses
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.email from User u")
+    Stream<String> streamEmails();
+
+    /**
+     * Finds which of the given email addresses are already registered.
+     *
+     * @param emails the email addresses to check
+     * @return the registered email addresses among the given ones
+     */
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findRegisteredEmails(@NonNull @Param("emails") Collection<String> emails);
+
 }
@@ -0,0 +1,104 @@
+package com.github.malyshevhen.repositories;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.github.malyshevhen.domain.models.Address;
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.dto.UserInfo;
+
+/**
+ * Maps rows of the users table joined with their addresses to detached
+ * entities or to {@link UserInfo}, for the repository fragments reading users
+ * with plain JDBC.
+ * </p>
+ * A query must select {@link #COLUMNS} or {@link #INFO_COLUMNS} first, with the
+ * user aliased as {@code u} and the address as {@code a}.
+ *
+ * @author Evhen Malysh
+ */
+final class UserRows {
+
+    /**
+     * Columns mapped by {@link #toUser(ResultSet)}, in order.
+     */
+    static final String COLUMNS = """
+            u.id, u.email, u.first_name, u.last_name, u.birth_date, u.phone, u.created_at, u.updated_at,
+            u.version, a.id, a.country, a.city, a.street, a.number, a.created_at, a.updated_at, a.version""";
+
+    /**
+     * Columns mapped by {@link #toUserInfo(ResultSet)}, in order.
+     */
+    static final String INFO_COLUMNS = """
+            u.id, u.email, u.first_name, u.last_name, u.birth_date, u.phone,
+            a.id, a.country, a.city, a.street, a.number, a.created_at, a.updated_at""";
+
+    private UserRows() {
+    }
+
+    /**
+     * Maps the current row to a user with the address, if the user has one.
+     *
+     * @param resultSet the result set positioned on a row
+     * @return the detached user
+     * @throws SQLException if a column cannot be read
+     */
+    static User toUser(ResultSet resultSet) throws SQLException {
+        var addressId = resultSet.getObject(10, Long.class);
+        var address = addressId == null ? null : Address.builder()
+                .id(addressId)
+                .country(resultSet.getString(11))
+                .city(resultSet.getString(12))
+                .street(resultSet.getString(13))
+                .number(resultSet.getString(14))
+                .createdAt(resultSet.getObject(15, LocalDateTime.class))
+                .updatedAt(resultSet.getObject(16, LocalDateTime.class))
+                .version(resultSet.getObject(17, Long.class))
+                .build();
+
+        return User.builder()
+                .id(resultSet.getLong(1))
+                .email(resultSet.getString(2))
+                .firstName(resultSet.getString(3))
+                .lastName(resultSet.getString(4))
+                .birthDate(resultSet.getObject(5, LocalDate.class))
+                .phone(resultSet.getString(6))
+                .createdAt(resultSet.getObject(7, LocalDateTime.class))
+                .updatedAt(resultSet.getObject(8, LocalDateTime.class))
+                .version(resultSet.getObject(9, Long.class))
+                .address(address)
+                .build();
+    }
+
+    /**
+     * Maps the current row to the information of a user, with the address if
+     * the user has one.
+     *
+     * @param resultSet the result set positioned on a row
+     * @return the user information
+     * @throws SQLException if a column cannot be read
+     */
+    static UserInfo toUserInfo(ResultSet resultSet) throws SQLException {
+        var addressId = resultSet.getObject(7, Long.class);
+        var address = addressId == null ? null : Address.builder()
+                .id(addressId)
+                .country(resultSet.getString(8))
+                .city(resultSet.getString(9))
+                .street(resultSet.getString(10))
+                .number(resultSet.getString(11))
+                .createdAt(resultSet.getObject(12, LocalDateTime.class))
+                .updatedAt(resultSet.getObject(13, LocalDateTime.class))
+                .build();
+
+        return new UserInfo()
+                .id(resultSet.getLong(1))
+                .email(resultSet.getString(2))
+                .firstName(resultSet.getString(3))
+                .lastName(resultSet.getString(4))
+                .birthDate(resultSet.getObject(5, LocalDate.class))
+                .phone(resultSet.getString(6))
+                .address(address);
+    }
+}
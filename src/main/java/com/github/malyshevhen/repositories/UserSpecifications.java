@@ -0,0 +1,158 @@
+package com.github.malyshevhen.repositories;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.PageCursor;
+import com.github.malyshevhen.domain.models.User;
+
+/**
+ * Reusable {@link Specification}s and keyset helpers for querying {@link User}
+ * entities.
+ * </p>
+ * Keyset pagination is supported for a single property of a fixed set, each
+ * backed by an index ending with the user identifier. The identifier is always
+ * used as the final tie-breaker in the same direction, so every sort order
+ * used with a {@link PageCursor} is total and read from its index without a
+ * sort.
+ *
+ * @author Evhen Malysh
+ */
+public final class UserSpecifications {
+
+    private static final String ID = "id";
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * Filters users by birth date. Both bounds are inclusive and optional.
+     *
+     * @param dateRange the birth date range, may be {@code null}
+     * @return the specification, matching all users if the range is not set
+     */
+    public static Specification<User> inRange(DateRange dateRange) {
+        if (dateRange == null || !dateRange.isSet()) return Specification.where(null);
+
+        return (root, query, criteriaBuilder) -> {
+            var birthDate = root.<LocalDate>get("birthDate");
+
+            if ((dateRange.getFrom() == null)) {
+                return criteriaBuilder.lessThanOrEqualTo(birthDate, dateRange.getTo());
+            } else if (dateRange.getTo() == null) {
+                return criteriaBuilder.greaterThanOrEqualTo(birthDate, dateRange.getFrom());
+            }
+            return criteriaBuilder.between(birthDate, dateRange.from(), dateRange.to());
+        };
+    }
+
+    /**
+     * Completes the requested sort order into a total order usable for keyset
+     * pagination, appending the identifier as a tie-breaker when it is missing.
+     * An unsorted request is ordered by identifier ascending.
+     * </p>
+     * Only a single supported property is accepted, optionally followed by the
+     * identifier in the same direction, as only these orders are served by an
+     * index. Any other order would sort every user matching the filter.
+     *
+     * @param sort the requested sort order
+     * @return the keyset sort order
+     * @throws IllegalArgumentException if a property is not supported for keyset
+     *                                  pagination, or the order has several
+     *                                  properties or directions
+     */
+    public static Sort keysetSort(Sort sort) {
+        if (sort.isUnsorted()) return Sort.by(Sort.Direction.ASC, ID);
+
+        var first = sort.iterator().next();
+        var direction = first.getDirection();
+        KeysetProperty.of(first.getProperty());
+        var single = Sort.by(direction, first.getProperty());
+        var keysetSort = ID.equals(first.getProperty()) ? single : single.and(Sort.by(direction, ID));
+        var requested = Sort.by(sort.stream()
+                .map(order -> new Sort.Order(order.getDirection(), order.getProperty()))
+                .toList());
+        if (!requested.equals(single) && !requested.equals(keysetSort)) {
+            throw new IllegalArgumentException(String.format("Sorting by '%s' is not supported with cursor "
+                    + "pagination. Sort by a single property, optionally followed by id in the same direction",
+                    sort.toString().replace(": ", ",")));
+        }
+        return keysetSort;
+    }
+
+    /**
+     * Parses the values of the keys of the cursor.
+     *
+     * @param cursor the cursor pointing to the last row of the previous slice
+     * @return the values of the keys, in the order of the keys
+     * @throws IllegalArgumentException if the cursor is not in a keyset sort
+     *                                  order or contains malformed values
+     */
+    static List<Object> keysetValues(PageCursor cursor) {
+        if (!isKeysetSort(cursor.toSort())) {
+            throw new IllegalArgumentException("Malformed page cursor");
+        }
+        return cursor.keys().stream()
+                .map(key -> KeysetProperty.of(key.property()).parse(key.value()))
+                .toList();
+    }
+
+    private static boolean isKeysetSort(Sort sort) {
+        try {
+            return keysetSort(sort).equals(sort);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Properties supported as keyset pagination keys. All of them are
+     * non-nullable columns.
+     */
+    enum KeysetProperty {
+        ID_KEY(ID, Long.class, Long::valueOf),
+        BIRTH_DATE("birthDate", LocalDate.class, LocalDate::parse),
+        CREATED_AT("createdAt", LocalDateTime.class, LocalDateTime::parse);
+
+        private final String property;
+        private final Class<?> type;
+        private final Function<String, Object> parser;
+
+        KeysetProperty(String property, Class<?> type, Function<String, Object> parser) {
+            this.property = property;
+            this.type = type;
+            this.parser = parser;
+        }
+
+        static KeysetProperty of(String property) {
+            return Arrays.stream(values())
+                    .filter(candidate -> candidate.property.equals(property))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            String.format("Sorting by '%s' is not supported with cursor pagination. Supported: %s",
+                                    property, Arrays.stream(values()).map(key -> key.property).toList())));
+        }
+
+        /**
+         * Returns the Java type the column of the property is read as.
+         */
+        Class<?> type() {
+            return type;
+        }
+
+        Object parse(String value) {
+            try {
+                return parser.apply(value);
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Malformed page cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.malyshevhen.repositories;
+
+import java.util.OptionalLong;
+
+import com.github.malyshevhen.domain.dto.DateRange;
+
+/**
+ * Repository fragment providing approximate statistics of the users table.
+ * </p>
+ * Estimates are read from the PostgreSQL planner statistics, so they cost the
+ * same regardless of the table size, but are only as fresh as the last
+ * {@code ANALYZE} of the table.
+ *
+ * @author Evhen Malysh
+ */
+public interface UserStatisticsRepository {
+
+    /**
+     * Estimates the number of users with the birth date in the given range.
+     *
+     * @param dateRange the birth date range, may be {@code null}
+     * @return the estimated number of users, or empty if the table has not been
+     *         analyzed yet and no estimate is available
+     */
+    OptionalLong estimateCount(DateRange dateRange);
+}
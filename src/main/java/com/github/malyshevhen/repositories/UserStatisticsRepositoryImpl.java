@@ -0,0 +1,74 @@
+package com.github.malyshevhen.repositories;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.OptionalLong;
+
+import org.hibernate.Session;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.malyshevhen.domain.dto.DateRange;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * PostgreSQL implementation of {@link UserStatisticsRepository}.
+ * </p>
+ * The unfiltered estimate is the {@code pg_class.reltuples} value of the users
+ * table. Filtered estimates are the row estimates of the planner for the
+ * filtered query, taken from its {@code EXPLAIN} output without executing it.
+ *
+ * @author Evhen Malysh
+ */
+@RequiredArgsConstructor
+class UserStatisticsRepositoryImpl implements UserStatisticsRepository {
+
+    private static final String RELTUPLES_QUERY =
+            "SELECT reltuples FROM pg_class WHERE oid = 'users'::regclass";
+    private static final String EXPLAIN_QUERY =
+            "EXPLAIN (FORMAT JSON) SELECT 1 FROM users u";
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public OptionalLong estimateCount(DateRange dateRange) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            var reltuples = reltuples(connection);
+            if (reltuples < 0) return OptionalLong.empty();
+            if (dateRange == null || !dateRange.isSet()) return OptionalLong.of(reltuples);
+
+            return OptionalLong.of(planRows(connection, dateRange));
+        });
+    }
+
+    /**
+     * Reads the number of rows of the users table recorded by the last
+     * {@code VACUUM} or {@code ANALYZE}.
+     *
+     * @return the number of rows, or {@code -1} if the table was never analyzed
+     */
+    private long reltuples(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement(RELTUPLES_QUERY);
+                var resultSet = statement.executeQuery()) {
+            return resultSet.next() ? (long) resultSet.getFloat(1) : -1;
+        }
+    }
+
+    private long planRows(Connection connection, DateRange dateRange) throws SQLException {
+        var conditions = UserConditions.birthDateIn(dateRange);
+        try (var statement = connection.prepareStatement(EXPLAIN_QUERY + conditions.where())) {
+            conditions.bind(statement);
+            try (var resultSet = statement.executeQuery()) {
+                resultSet.next();
+                var plan = objectMapper.readTree(resultSet.getString(1));
+                return plan.path(0).path("Plan").path("Plan Rows").asLong();
+            }
+        } catch (JsonProcessingException ex) {
+            throw new PersistenceException("Unable to read the query plan estimate", ex);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.malyshevhen.repositories;
+
+import com.github.malyshevhen.domain.dto.CollectionVersion;
+import com.github.malyshevhen.domain.dto.DateRange;
+
+/**
+ * Repository fragment providing versions of collections of users, used to
+ * answer conditional requests without loading the users.
+ *
+ * @author Evhen Malysh
+ */
+public interface UserVersionRepository {
+
+    /**
+     * Retrieves the version of the users with the birth date in the given
+     * range with a single aggregate query. Users are filtered as by
+     * {@link UserSpecifications#inRange(DateRange)}, and the query is served
+     * by an index-only scan.
+     *
+     * @param dateRange the birth date range, may be {@code null}
+     * @return the version of the matching users
+     */
+    CollectionVersion findVersion(DateRange dateRange);
+}
@@ -0,0 +1,40 @@
+package com.github.malyshevhen.repositories;
+
+import java.time.LocalDateTime;
+
+import org.springframework.jdbc.core.simple.JdbcClient;
+
+import com.github.malyshevhen.domain.dto.CollectionVersion;
+import com.github.malyshevhen.domain.dto.DateRange;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link JdbcClient} implementation of {@link UserVersionRepository}.
+ * </p>
+ * The aggregated columns are included in the birth date index, so the version
+ * of the filtered and of all users is read from the index alone. The
+ * statement runs on the connection of the current transaction.
+ *
+ * @author Evhen Malysh
+ */
+@RequiredArgsConstructor
+class UserVersionRepositoryImpl implements UserVersionRepository {
+
+    private static final String SELECT_VERSION =
+            "SELECT max(u.updated_at), count(*), coalesce(sum(u.version), 0) FROM users u";
+
+    private final JdbcClient jdbcClient;
+
+    @Override
+    public CollectionVersion findVersion(DateRange dateRange) {
+        var conditions = UserConditions.birthDateIn(dateRange);
+        return jdbcClient.sql(SELECT_VERSION + conditions.where())
+                .params(conditions.parameters())
+                .query((resultSet, rowNum) -> new CollectionVersion(
+                        resultSet.getObject(1, LocalDateTime.class),
+                        resultSet.getLong(2),
+                        resultSet.getLong(3)))
+                .single();
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.malyshevhen.services;
+
+import java.io.OutputStream;
+
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.StreamFormat;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Provides export of all users to a stream.
+ *
+ * @author Evhen Malysh
+ */
+@Validated
+public interface UserExportService {
+
+    /**
+     * Writes all users with the birth date in the given range to the given
+     * stream, ordered by identifier.
+     * </p>
+     * Users are written while they are read from the database, so the memory
+     * used by an export does not depend on the number of users. All users are
+     * read from one consistent snapshot of the database. If writing to the
+     * stream fails, e.g. because the client disconnected, the query is
+     * cancelled.
+     *
+     * @param dateRange date filtering details
+     * @param format    the format of the stream
+     * @param output    the stream to write the users to. It is not closed
+     */
+    void exportUsers(@Valid DateRange dateRange, @NotNull StreamFormat format, @NotNull OutputStream output);
+}
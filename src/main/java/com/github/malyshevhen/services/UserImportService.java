@@ -0,0 +1,36 @@
+package com.github.malyshevhen.services;
+
+import java.io.InputStream;
+
+import com.github.malyshevhen.domain.dto.ImportResult;
+import com.github.malyshevhen.domain.dto.StreamFormat;
+
+import jakarta.validation.constraints.NotNull;
+
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Provides bulk import of users from a stream.
+ *
+ * @author Evhen Malysh
+ */
+@Validated
+public interface UserImportService {
+
+    /**
+     * Imports users from the given stream, one user per line.
+     * </p>
+     * The stream is read incrementally, so the memory used by an import does not
+     * depend on its size. Each user is checked with the same rules as a single
+     * registration: malformed or invalid lines, users whose age is not legal and
+     * users whose email is already registered or repeated in the import are
+     * rejected, including the ones registered while the import runs. The
+     * remaining users are imported in chunks, each in its own transaction.
+     *
+     * @param input  the import stream
+     * @param format the format of the import stream
+     * @return the number of imported and rejected users, with the first rejected
+     *         lines
+     */
+    ImportResult importUsers(@NotNull InputStream input, @NotNull StreamFormat format);
+}
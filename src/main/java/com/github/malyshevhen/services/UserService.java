@@ -1,17 +1,35 @@
 package com.github.malyshevhen.services;
 
+import com.github.malyshevhen.domain.dto.CollectionVersion;
+import com.github.malyshevhen.domain.dto.CountedSlice;
 import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.EntityVersion;
+import com.github.malyshevhen.domain.dto.KeysetSlice;
+import com.github.malyshevhen.domain.dto.PageCursor;
+import com.github.malyshevhen.domain.dto.RegistrationResult;
+import com.github.malyshevhen.domain.dto.TotalsMode;
+import com.github.malyshevhen.domain.dto.VersionedUser;
 import com.github.malyshevhen.dto.Phone;
-import org.springframework.data.domain.Page;
+import com.github.malyshevhen.dto.UserInfo;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
 import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
 import org.springframework.validation.annotation.Validated;
 
 import com.github.malyshevhen.exceptions.EntityAlreadyExistsException;
 import com.github.malyshevhen.exceptions.EntityNotFoundException;
+import com.github.malyshevhen.exceptions.PreconditionFailedException;
 import com.github.malyshevhen.domain.models.Address;
 import com.github.malyshevhen.domain.models.User;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 
 /**
@@ -35,14 +53,88 @@ public interface UserService {
     User save(@Valid User userToRegister) throws EntityAlreadyExistsException;
 
     /**
-     * Retrieve page of users based on given pageable.
+     * Registers a batch of new users.
+     * </p>
+     * Each user is checked before anything is written: users whose email is
+     * already registered or repeated in the batch, or whose age is not legal,
+     * are rejected. The remaining users are registered in one transaction.
+     *
+     * @param usersToRegister the users to be registered
+     * @return the result of each user, in the order of the batch
+     */
+    List<RegistrationResult> saveAll(@NotNull List<@Valid User> usersToRegister);
+
+    /**
+     * Retrieve page of user information based on given pageable, calculating
+     * the total number of users as requested. Users are read as
+     * {@link UserInfo} without loading entities.
      *
      * @param pageable  the pagination details
      * @param dateRange date filtering details
-     * @return a {@link Page} object containing the list of users
-     * and page details
+     * @param totals    how the total number of users is calculated.
+     *                  {@link TotalsMode#NONE} skips the count query,
+     *                  {@link TotalsMode#ESTIMATED} uses the planner statistics
+     *                  and {@link TotalsMode#EXACT} runs a count query
+     * @return a {@link CountedSlice} containing the list of user information,
+     * page details and the totals
+     */
+    CountedSlice<UserInfo> getUserInfos(@NotNull Pageable pageable, @Valid DateRange dateRange,
+            @NotNull TotalsMode totals);
+
+    /**
+     * Retrieve page of user information as by
+     * {@link #getUserInfos(Pageable, DateRange, TotalsMode)}, with the number
+     * of users matching the filter already known, e.g. from their
+     * {@link CollectionVersion}. The known number is used instead of a count
+     * query.
+     *
+     * @param pageable  the pagination details
+     * @param dateRange date filtering details
+     * @param totals    how the total number of users is calculated
+     * @param count     the number of users matching the filter
+     * @return a {@link CountedSlice} containing the list of user information,
+     * page details and the totals
+     */
+    CountedSlice<UserInfo> getUserInfos(@NotNull Pageable pageable, @Valid DateRange dateRange,
+            @NotNull TotalsMode totals, long count);
+
+    /**
+     * Retrieve a slice of user information positioned after the given cursor
+     * (keyset pagination). Unlike {@link #getUserInfos(Pageable, DateRange,
+     * TotalsMode)} the cost of a request does not depend on how deep the client
+     * has paged. Users are
+     * read as {@link UserInfo} without loading entities.
+     *
+     * @param after     the cursor of the last row of the previous slice, or
+     *                  {@code null} to start from the first row
+     * @param pageable  the slice size and, optionally, the sort order. The page
+     *                  number is ignored
+     * @param dateRange date filtering details
+     * @return a {@link KeysetSlice} of user information sorted by the keyset
+     *         sort order, with the cursor of the next slice
+     *
+     * @throws IllegalArgumentException if the sort order is not supported for
+     *                keyset pagination or does not match the cursor
      */
-    Page<User> getAll(@NotNull Pageable pageable, @Valid DateRange dateRange);
+    KeysetSlice<UserInfo> getUserInfos(@Nullable PageCursor after, @NotNull Pageable pageable,
+            @Valid DateRange dateRange);
+
+    /**
+     * Reads users, optionally filtered by birth date, unless the client already
+     * has them. The version of the filtered users is read first, without
+     * loading them, and the users are read only if {@code notModified} rejects
+     * it. Both are read in one read-only transaction, so from the same
+     * database, and the users are never older than the version.
+     *
+     * @param dateRange   date filtering details
+     * @param notModified tests whether the client has the users at the version
+     * @param read        reads the users at the version, e.g. a page of them
+     *                    with this service, counted by the version
+     * @param <T>         the type of the users read
+     * @return the users read, or empty if the client has them
+     */
+    <T> Optional<T> readIfModified(@Valid DateRange dateRange, @NotNull Predicate<CollectionVersion> notModified,
+            @NotNull Function<CollectionVersion, T> read);
 
     /**
      * Gets the user by identifier.
@@ -55,19 +147,55 @@ public interface UserService {
      */
     User getById(@NotNull Long id) throws EntityNotFoundException;
 
+    /**
+     * Gets the information of the user by identifier together with its
+     * version. Users are cached, so most calls do not query the database.
+     *
+     * @param id The identifier
+     * @return The {@link VersionedUser} by identifier, not to be modified.
+     *
+     * @throws EntityNotFoundException if the user for retrieve is not found
+     *                in DB
+     */
+    VersionedUser getInfoById(@NotNull Long id) throws EntityNotFoundException;
+
+    /**
+     * Gets the version of the user without loading the user. The version of a
+     * cached user is taken from the cache.
+     *
+     * @param id The identifier
+     * @return The {@link EntityVersion} of the user.
+     *
+     * @throws EntityNotFoundException if the user is not found in DB
+     */
+    EntityVersion getVersionById(@NotNull Long id) throws EntityNotFoundException;
+
+
+    /**
+     * Checks whether a user with the email is registered. Most checks of
+     * unregistered emails are answered without querying the database.
+     *
+     * @param email The email to check
+     * @return {@code true} if the email is registered
+     */
+    boolean isEmailRegistered(@NotNull String email);
+
     /**
      * Update all user fields.
      *
-     * @param id   The identifier
-     * @param user The parameters for users update
+     * @param id      The identifier
+     * @param user    The parameters for users update
+     * @param version The version the update is based on, or {@code null} to
+     *                update the current version
      * @return Updated {@link User}
      *
      * @throws EntityAlreadyExistsException if the email to update is
      * @throws EntityNotFoundException if the user to update is not found in
      *                DB.
+     * @throws PreconditionFailedException if the user is not at the version
      */
-    User updateById(@NotNull Long id, @Valid User user)
-            throws EntityNotFoundException, EntityAlreadyExistsException;
+    User updateById(@NotNull Long id, @Valid User user, @Nullable Long version)
+            throws EntityNotFoundException, EntityAlreadyExistsException, PreconditionFailedException;
 
     /**
      * Delete user by unique identifier.
@@ -78,31 +206,65 @@ public interface UserService {
      */
     void deleteById(@NotNull Long id) throws EntityNotFoundException;
 
+    /**
+     * Delete users by unique identifiers.
+     * </p>
+     * The users are deleted in chunks, each in its own transaction. Missing
+     * users are ignored.
+     *
+     * @param ids The identifiers
+     * @return The number of deleted users
+     */
+    long deleteAllById(@NotEmpty Collection<@NotNull Long> ids);
+
+    /**
+     * Delete users matching the filter.
+     * </p>
+     * The users are deleted in chunks, each in its own transaction. At least
+     * one filter is required.
+     *
+     * @param dateRange     The birth date range, may be {@code null}
+     * @param createdBefore The exclusive upper bound of the creation time, may
+     *                      be {@code null}
+     * @return The number of deleted users
+     *
+     * @throws IllegalArgumentException if no filter is given
+     */
+    long deleteAll(@Valid @Nullable DateRange dateRange, @Nullable LocalDateTime createdBefore);
+
     /**
      * Update users email field
      *
-     * @param id    The identifier
-     * @param email The email
+     * @param id      The identifier
+     * @param email   The email
+     * @param version The version the update is based on, or {@code null} to
+     *                update the current version
      * @return Updated {@link User}
      *
      * @throws  EntityAlreadyExistsException if the email to update is
      *                already taken.
      * @throws  EntityNotFoundException if the user for update is not
      *                found ib DB.
+     * @throws  PreconditionFailedException if the user is not at the version
      */
-    User updateEmail(Long id, String email) throws EntityNotFoundException, EntityAlreadyExistsException;
+    User updateEmail(Long id, String email, @Nullable Long version)
+            throws EntityNotFoundException, EntityAlreadyExistsException, PreconditionFailedException;
 
     /**
      * Update users address
      *
      * @param id      The identifier
      * @param address The address
+     * @param version The version the update is based on, or {@code null} to
+     *                update the current version
      * @return Updated {@link User}
      *
      * @throws EntityNotFoundException if the user for update is not found
      *                in DB.
+     * @throws PreconditionFailedException if the user is not at the version
      */
-    User updateAddress(Long id, Address address) throws EntityNotFoundException;
+    User updateAddress(Long id, Address address, @Nullable Long version)
+            throws EntityNotFoundException, PreconditionFailedException;
 
     /**
      * Delete users address
@@ -117,11 +279,15 @@ public interface UserService {
      *
      * @param id      The identifier
      * @param phone   Phone to update
+     * @param version The version the update is based on, or {@code null} to
+     *                update the current version
      * @return Updated {@link User}
      *
      * @throws EntityNotFoundException if the user for update is not found
      *                in DB.
+     * @throws PreconditionFailedException if the user is not at the version
      */
-    User updatePhone(Long id, Phone phone) throws EntityNotFoundException;
+    User updatePhone(Long id, Phone phone, @Nullable Long version)
+            throws EntityNotFoundException, PreconditionFailedException;
 
 }
@@ -0,0 +1,288 @@
+package com.github.malyshevhen.services.impl;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.malyshevhen.configs.Workload;
+import com.github.malyshevhen.repositories.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory filter of the registered emails, answering most email existence
+ * checks without querying the database.
+ * </p>
+ * The filter is a {@link ScalableBloomFilter} loaded from the users table when
+ * the application is ready. A negative answer is final; a positive answer may
+ * be false and is confirmed by the database. Until the filter is loaded, every
+ * check is passed to the database.
+ * <p>
+ * Registered emails must be added to the filter, otherwise they would be
+ * reported as not registered. They are added when they are written, before
+ * the transaction commits, so they are never missing once committed; an email
+ * whose transaction rolls back only raises the false positive rate. A reload
+ * installs the new filter, so later writes add their emails to it as well,
+ * then waits for the transactions that wrote emails before that, and only
+ * then reads the users table. Every email committed before the new filter
+ * replaces the old one is therefore either read by the reload or added to the
+ * new filter. Emails that are no longer registered cannot be
+ * removed from a Bloom filter and only raise its false positive rate, so they
+ * are counted, and the filter is reloaded in the background once they make up
+ * a fifth of it.
+ * <p>
+ * The filter publishes the {@code users.email.filter.checks} counter tagged
+ * with the check result, the observed false positive rate, the false positive
+ * probability expected from its fill, and its size.
+ *
+ * @author Evhen Malysh
+ */
+@Slf4j
+@Component
+class EmailFilter {
+
+    private static final long INITIAL_CAPACITY = 1 << 16;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final double RELOAD_STALE_RATIO = 0.2;
+    private static final Duration WRITERS_POLL_INTERVAL = Duration.ofMillis(10);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile ScalableBloomFilter filter;
+    private volatile ScalableBloomFilter loading;
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private final AtomicLong stale = new AtomicLong();
+
+    /**
+     * Number of the reloads started so far. The transactions writing emails
+     * are counted in {@link #writers} by the parity of the reloads started
+     * when they wrote their first email.
+     */
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLongArray writers = new AtomicLongArray(2);
+
+    private final Counter negatives;
+    private final Counter falsePositives;
+    private final Counter truePositives;
+
+    EmailFilter(UserRepository userRepository, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+
+        this.negatives = checks(meterRegistry, "negative");
+        this.falsePositives = checks(meterRegistry, "false_positive");
+        this.truePositives = checks(meterRegistry, "true_positive");
+        Gauge.builder("users.email.filter.false.positive.rate", this, EmailFilter::falsePositiveRate)
+                .description("Share of the checks of unregistered emails that were passed to the database")
+                .register(meterRegistry);
+        Gauge.builder("users.email.filter.expected.false.positive.rate", this,
+                emailFilter -> emailFilter.filter == null ? 1 : emailFilter.filter.expectedFalsePositiveProbability())
+                .description("False positive probability expected from the fill of the filter")
+                .register(meterRegistry);
+        Gauge.builder("users.email.filter.size", this,
+                emailFilter -> emailFilter.filter == null ? 0 : emailFilter.filter.size())
+                .description("Number of emails in the filter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the filter from the users table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void load() {
+        if (reloading.compareAndSet(false, true)) {
+            reload();
+        }
+    }
+
+    /**
+     * Tells whether the email is registered.
+     *
+     * @param email  the email to check
+     * @param lookup the database lookup of the email, used if the filter may
+     *               contain the email
+     * @return {@code true} if the email is registered
+     */
+    boolean isRegistered(String email, Predicate<String> lookup) {
+        var current = filter;
+        if (current != null && !current.mightContain(email)) {
+            negatives.increment();
+            return false;
+        }
+        var registered = lookup.test(email);
+        if (current != null) {
+            (registered ? truePositives : falsePositives).increment();
+        }
+        return registered;
+    }
+
+    /**
+     * Finds which of the emails are registered.
+     *
+     * @param emails the emails to check
+     * @param lookup the database lookup of the emails the filter may contain
+     * @return the registered emails among the given ones
+     */
+    Set<String> findRegistered(Collection<String> emails, Function<List<String>, Set<String>> lookup) {
+        var current = filter;
+        var candidates = current == null
+                ? List.copyOf(emails)
+                : emails.stream().filter(current::mightContain).toList();
+        if (current != null) {
+            negatives.increment(emails.size() - candidates.size());
+        }
+        if (candidates.isEmpty()) return Set.of();
+
+        var registered = lookup.apply(candidates);
+        if (current != null) {
+            truePositives.increment(registered.size());
+            falsePositives.increment(candidates.size() - registered.size());
+        }
+        return registered;
+    }
+
+    /**
+     * Adds a registered email to the filter.
+     *
+     * @param email the email
+     */
+    void add(String email) {
+        registerWriter();
+        var next = loading;
+        var current = filter;
+        if (current != null) current.add(email);
+        if (next != null) next.add(email);
+    }
+
+    /**
+     * Records that the email is no longer registered, once the current
+     * transaction commits, if any. A rolled back removal is not counted, and a
+     * reload it starts reads the users table without the email.
+     *
+     * @param email the email
+     */
+    void remove(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    countStale();
+                }
+            });
+        } else {
+            countStale();
+        }
+    }
+
+    private void countStale() {
+        var current = filter;
+        if (current == null) return;
+
+        if (stale.incrementAndGet() > current.size() * RELOAD_STALE_RATIO
+                && reloading.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("email-filter-reload").start(this::reload);
+        }
+    }
+
+    /**
+     * Counts the current transaction as writing emails until it completes, so
+     * a reload started meanwhile waits for it. Registered once per
+     * transaction; without a transaction the email is already committed.
+     */
+    private void registerWriter() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        long started;
+        do {
+            started = reloads.get();
+            writers.incrementAndGet(parity(started));
+            if (reloads.get() == started) break;
+            writers.decrementAndGet(parity(started));
+        } while (true);
+
+        var slot = parity(started);
+        TransactionSynchronizationManager.bindResource(this, slot);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(EmailFilter.this);
+                writers.decrementAndGet(slot);
+            }
+        });
+    }
+
+    /**
+     * Waits for the transactions that wrote emails before the given reload
+     * started.
+     */
+    private void awaitWriters(long started) {
+        var slot = parity(started);
+        while (writers.get(slot) > 0) {
+            try {
+                Thread.sleep(WRITERS_POLL_INTERVAL);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for transactions writing emails", ex);
+            }
+        }
+    }
+
+    private static int parity(long reloads) {
+        return (int) (reloads & 1);
+    }
+
+    private void reload() {
+        var next = new ScalableBloomFilter(INITIAL_CAPACITY, FALSE_POSITIVE_PROBABILITY);
+        loading = next;
+        try {
+            awaitWriters(reloads.getAndIncrement());
+            Workload.MAINTENANCE.run(() -> transactionTemplate.executeWithoutResult(status -> {
+                try (var emails = userRepository.streamEmails()) {
+                    emails.forEach(next::add);
+                }
+            }));
+            filter = next;
+            stale.set(0);
+            log.info("Email filter loaded with {} emails", next.size());
+        } catch (RuntimeException ex) {
+            log.warn("Unable to load the email filter, email checks are passed to the database", ex);
+        } finally {
+            loading = null;
+            reloading.set(false);
+        }
+    }
+
+    private double falsePositiveRate() {
+        var unregistered = negatives.count() + falsePositives.count();
+        return unregistered == 0 ? 0 : falsePositives.count() / unregistered;
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("users.email.filter.checks")
+                .description("Email existence checks by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.malyshevhen.services.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe scalable Bloom filter of strings.
+ * </p>
+ * The filter is a series of Bloom filters. When the last one has reached its
+ * capacity, a new one is added with twice the capacity and half the false
+ * positive probability, so the false positive probability of the whole filter
+ * stays below twice the one of the first filter however many values are added.
+ * <p>
+ * A value that was added is always reported as possibly contained. Values
+ * cannot be removed.
+ *
+ * @author Evhen Malysh
+ */
+final class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param initialCapacity          the number of values the first filter is
+     *                                 sized for
+     * @param falsePositiveProbability the upper bound of the false positive
+     *                                 probability of the whole filter
+     */
+    ScalableBloomFilter(long initialCapacity, double falsePositiveProbability) {
+        segments.add(new Segment(initialCapacity, falsePositiveProbability * (1 - TIGHTENING)));
+    }
+
+    /**
+     * Tells whether the value may have been added to the filter.
+     *
+     * @param value the value
+     * @return {@code false} if the value was definitely not added
+     */
+    boolean mightContain(String value) {
+        var h1 = hash(value);
+        return mightContain(h1, rehash(h1));
+    }
+
+    /**
+     * Adds the value to the filter.
+     *
+     * @param value the value
+     */
+    void add(String value) {
+        var h1 = hash(value);
+        var h2 = rehash(h1);
+        if (mightContain(h1, h2)) return;
+
+        var segment = segments.getLast();
+        if (segment.isFull()) {
+            synchronized (segments) {
+                segment = segments.getLast();
+                if (segment.isFull()) {
+                    segment = segment.next();
+                    segments.add(segment);
+                }
+            }
+        }
+        segment.add(h1, h2);
+    }
+
+    /**
+     * Returns the approximate number of distinct values added.
+     */
+    long size() {
+        return segments.stream().mapToLong(segment -> segment.count.get()).sum();
+    }
+
+    /**
+     * Returns the false positive probability expected from the current fill of
+     * the filter.
+     */
+    double expectedFalsePositiveProbability() {
+        var negative = 1.0;
+        for (var segment : segments) {
+            negative *= 1 - segment.expectedFalsePositiveProbability();
+        }
+        return 1 - negative;
+    }
+
+    private boolean mightContain(long h1, long h2) {
+        for (var segment : segments) {
+            if (segment.mightContain(h1, h2)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the UTF-8 bytes, finalized with the MurmurHash3
+     * mixer.
+     */
+    private static long hash(String value) {
+        var hash = 0xcbf29ce484222325L;
+        for (var b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long rehash(long hash) {
+        return mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Bloom filter sized for a fixed capacity, using double hashing to derive
+     * the bit positions.
+     */
+    private static final class Segment {
+
+        private final long capacity;
+        private final double falsePositiveProbability;
+        private final long bits;
+        private final int hashes;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+
+        Segment(long capacity, double falsePositiveProbability) {
+            this.capacity = capacity;
+            this.falsePositiveProbability = falsePositiveProbability;
+            var optimalBits = (long) Math.ceil(
+                    -capacity * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+            this.bits = Math.max(64, (optimalBits + 63) / 64 * 64);
+            this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+            this.words = new AtomicLongArray(Math.toIntExact(bits / 64));
+        }
+
+        Segment next() {
+            return new Segment(capacity * GROWTH, falsePositiveProbability * TIGHTENING);
+        }
+
+        boolean isFull() {
+            return count.get() >= capacity;
+        }
+
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                var bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        void add(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                var bit = Math.floorMod(h1 + i * h2, bits);
+                var index = (int) (bit >>> 6);
+                var mask = 1L << bit;
+                var word = words.get(index);
+                while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                    word = words.get(index);
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        double expectedFalsePositiveProbability() {
+            return Math.pow(1 - Math.exp(-(double) hashes * count.get() / bits), hashes);
+        }
+    }
+}
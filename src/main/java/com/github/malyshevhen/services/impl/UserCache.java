@@ -0,0 +1,145 @@
+package com.github.malyshevhen.services.impl;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.malyshevhen.configs.CacheConfig;
+import com.github.malyshevhen.configs.ReplicaRoutingDataSource;
+import com.github.malyshevhen.domain.dto.EntityVersion;
+import com.github.malyshevhen.domain.dto.VersionedUser;
+
+/**
+ * Cache of the users by ID, holding their information with their versions.
+ * </p>
+ * Users missing from the cache are loaded in a read-only transaction on the
+ * primary database, so a load does not return a version older than the last
+ * committed write. An entry is only put if it is not older than the entry it
+ * replaces. A write of a user replaces its entry with a tombstone of the
+ * written version, so a read that loaded an older version before the write
+ * committed cannot cache it afterwards; the tombstone of a deleted user
+ * rejects every version. The entry is dropped if the write rolls back,
+ * otherwise the tombstone is replaced by the first load of its version, or
+ * expires as the entries do.
+ * <p>
+ * Entries are kept in the Caffeine cache {@value CacheConfig#USERS_CACHE},
+ * configured with the {@code spring.cache} properties and published with the
+ * {@code cache.*} metrics. A read finding a tombstone counts as a hit.
+ *
+ * @author Evhen Malysh
+ */
+@Component
+class UserCache {
+
+    private final Cache<Object, Object> cache;
+    private final ConcurrentMap<Object, Object> entries;
+    private final TransactionOperations transactionOperations;
+
+    @SuppressWarnings("unchecked")
+    UserCache(CacheManager cacheManager, PlatformTransactionManager transactionManager) {
+        this((Cache<Object, Object>) cacheManager.getCache(CacheConfig.USERS_CACHE).getNativeCache(),
+                readOnly(new TransactionTemplate(transactionManager)));
+    }
+
+    UserCache(Cache<Object, Object> cache, TransactionOperations transactionOperations) {
+        this.cache = cache;
+        this.entries = cache.asMap();
+        this.transactionOperations = transactionOperations;
+    }
+
+    /**
+     * Returns the information of a user, loading it if it is not cached or
+     * was written since.
+     *
+     * @param id     the identifier of the user
+     * @param loader loads the user by identifier
+     * @return the user, or empty if not found
+     */
+    Optional<VersionedUser> get(Long id, Function<Long, Optional<VersionedUser>> loader) {
+        if (cache.getIfPresent(id) instanceof VersionedUser user) return Optional.of(user);
+
+        var loaded = ReplicaRoutingDataSource.readFromPrimary(
+                () -> transactionOperations.execute(status -> loader.apply(id)));
+        loaded.ifPresent(user -> entries.merge(id, user, UserCache::later));
+        return loaded;
+    }
+
+    /**
+     * Returns the version of a user, taken from the cached user if there is
+     * one, otherwise read without loading or caching the user.
+     *
+     * @param id     the identifier of the user
+     * @param loader reads the version of the user by identifier
+     * @return the version of the user, or empty if not found
+     */
+    Optional<EntityVersion> getVersion(Long id, Function<Long, Optional<EntityVersion>> loader) {
+        if (cache.getIfPresent(id) instanceof VersionedUser user) return Optional.of(user.version());
+
+        return ReplicaRoutingDataSource.readFromPrimary(
+                () -> transactionOperations.execute(status -> loader.apply(id)));
+    }
+
+    /**
+     * Invalidates the cached user written at the version by the current
+     * transaction, until its write is committed and loaded. If the transaction
+     * rolls back, the user is loaded again.
+     *
+     * @param id      the identifier of the user
+     * @param version the written version of the user
+     */
+    void invalidate(Long id, long version) {
+        entries.merge(id, new Tombstone(version), UserCache::later);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) entries.remove(id);
+                }
+            });
+        }
+    }
+
+    /**
+     * Invalidates the cached user deleted by the current transaction for good.
+     *
+     * @param id the identifier of the user
+     */
+    void remove(Long id) {
+        invalidate(id, Long.MAX_VALUE);
+    }
+
+    private static TransactionTemplate readOnly(TransactionTemplate transactionTemplate) {
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    /**
+     * Picks the later of two entries of a user. Of a tombstone and a user of
+     * the same version, the user is kept, since it was loaded after the write.
+     */
+    private static Object later(Object cached, Object entry) {
+        var cachedVersion = version(cached);
+        var version = version(entry);
+        if (cachedVersion != version) return version > cachedVersion ? entry : cached;
+        return cached instanceof VersionedUser ? cached : entry;
+    }
+
+    private static long version(Object entry) {
+        return entry instanceof VersionedUser user ? user.version().version() : ((Tombstone) entry).version();
+    }
+
+    /**
+     * Entry of a user written at the version, rejecting earlier versions.
+     */
+    private record Tombstone(long version) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.malyshevhen.services.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.StreamFormat;
+import com.github.malyshevhen.domain.mapper.UserMapper;
+import com.github.malyshevhen.domain.models.Address;
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.dto.UserInfo;
+import com.github.malyshevhen.repositories.UserRepository;
+import com.github.malyshevhen.services.UserExportService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Provides an implementation of the {@link UserExportService} interface.
+ * <p>
+ * Users are read with {@link UserRepository#forEachUser} in a read-only
+ * repeatable read transaction, so the whole export sees one snapshot. Each
+ * user is serialized as soon as it is read; the output is only flushed by the
+ * underlying stream when its buffer is full.
+ *
+ * @author Evhen Malysh
+ */
+@Service
+@RequiredArgsConstructor
+public class UserExportServiceImpl implements UserExportService {
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+            .addColumns(List.of("id", "email", "firstName", "lastName", "birthDate", "phone", "country", "city",
+                    "street", "number"), CsvSchema.ColumnType.STRING)
+            .setUseHeader(true)
+            .build();
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes all users with the birth date in the given range to the given
+     * stream.
+     *
+     * @param dateRange date filtering details
+     * @param format    the format of the stream
+     * @param output    the stream to write the users to
+     * @throws UncheckedIOException if writing to the stream fails
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    @Override
+    public void exportUsers(DateRange dateRange, StreamFormat format, OutputStream output) {
+        try {
+            switch (format) {
+                case NDJSON -> exportNdjson(dateRange, output);
+                case CSV -> exportCsv(dateRange, output);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write the export", ex);
+        }
+    }
+
+    private void exportNdjson(DateRange dateRange, OutputStream output) throws IOException {
+        var writer = objectMapper.writerFor(UserInfo.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (var generator = objectMapper.createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            userRepository.forEachUser(dateRange, user -> {
+                try {
+                    writer.writeValue(generator, userMapper.toUserInfo(user));
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Unable to write the export", ex);
+                }
+            });
+        }
+    }
+
+    private void exportCsv(DateRange dateRange, OutputStream output) throws IOException {
+        try (var writer = CSV_MAPPER.writer(CSV_SCHEMA)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(output)) {
+            userRepository.forEachUser(dateRange, user -> {
+                try {
+                    writer.write(toCsvRow(user));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Unable to write the export", ex);
+                }
+            });
+        }
+    }
+
+    private static String[] toCsvRow(User user) {
+        var address = user.getAddress() == null ? new Address() : user.getAddress();
+        return new String[] {
+                String.valueOf(user.getId()),
+                user.getEmail(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getBirthDate().toString(),
+                Objects.toString(user.getPhone(), ""),
+                Objects.toString(address.getCountry(), ""),
+                Objects.toString(address.getCity(), ""),
+                Objects.toString(address.getStreet(), ""),
+                Objects.toString(address.getNumber(), "")
+        };
+    }
+}
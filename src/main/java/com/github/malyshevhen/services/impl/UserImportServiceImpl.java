@@ -0,0 +1,326 @@
+package com.github.malyshevhen.services.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.github.malyshevhen.configs.UserConstraints;
+import com.github.malyshevhen.domain.dto.ImportRejection;
+import com.github.malyshevhen.domain.dto.ImportResult;
+import com.github.malyshevhen.domain.dto.ImportedUser;
+import com.github.malyshevhen.domain.dto.StreamFormat;
+import com.github.malyshevhen.domain.mapper.UserMapper;
+import com.github.malyshevhen.domain.models.Address;
+import com.github.malyshevhen.dto.UserRegistrationForm;
+import com.github.malyshevhen.exceptions.UserValidationException;
+import com.github.malyshevhen.repositories.UserRepository;
+import com.github.malyshevhen.services.UserImportService;
+
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Provides an implementation of the {@link UserImportService} interface.
+ * <p>
+ * The import stream is parsed lazily, one line at a time. Each line is
+ * validated as a {@link UserRegistrationForm} and the user is checked with the
+ * same age rule as a single registration; the accepted users are handed over to
+ * the {@link UserRepository} while the stream is being read, in chunks of
+ * {@value #IMPORT_CHUNK_SIZE} users imported in their own transactions, so an
+ * import neither holds a connection in a transaction nor keeps its snapshot for
+ * its whole duration. A user repeating the email of a user of an earlier chunk
+ * is rejected as already registered. Only the first rejected lines are kept in
+ * memory. The emails of the accepted users are added to the
+ * {@link EmailFilter}; the ones the database rejects only raise its false
+ * positive rate.
+ *
+ * @author Evhen Malysh
+ */
+@Service
+@RequiredArgsConstructor
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+            .build();
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.emptySchema().withHeader();
+
+    /**
+     * Maximum number of users imported in one transaction.
+     */
+    static final int IMPORT_CHUNK_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+    private final UserConstraints userConstraints;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EmailFilter emailFilter;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Imports users from the given stream, committing the users of each
+     * chunk. If the import fails, the chunks committed before stay imported.
+     *
+     * @param input  the import stream, UTF-8 encoded
+     * @param format the format of the import stream
+     * @return the number of imported and rejected users, with the first
+     *         {@value ImportResult#REJECTIONS_LIMIT} rejected lines in line order
+     * @throws UncheckedIOException if the stream can not be read
+     */
+    @Override
+    public ImportResult importUsers(InputStream input, StreamFormat format) {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        var lines = switch (format) {
+            case NDJSON -> new NdjsonLines(reader);
+            case CSV -> new CsvLines(reader);
+        };
+        var users = new AcceptedUsers(lines);
+
+        long accepted = 0;
+        long rejected = 0;
+        var importRejections = new ArrayList<ImportRejection>();
+        while (users.hasNext()) {
+            var chunk = new Chunk(users, IMPORT_CHUNK_SIZE);
+            var result = transactionTemplate.execute(status -> userRepository.importUsers(chunk));
+            accepted += result.accepted();
+            rejected += result.rejected();
+            result.rejections().stream()
+                    .limit(ImportResult.REJECTIONS_LIMIT - importRejections.size())
+                    .forEach(importRejections::add);
+        }
+        var rejections = Stream.concat(users.rejections.stream(), importRejections.stream())
+                .sorted(Comparator.comparingLong(ImportRejection::line))
+                .limit(ImportResult.REJECTIONS_LIMIT)
+                .toList();
+        return new ImportResult(accepted, users.rejected + rejected, rejections);
+    }
+
+    /**
+     * A line of the import stream, either parsed into a registration form or
+     * rejected as malformed.
+     */
+    private record ParsedLine(long line, UserRegistrationForm form, String error) {
+    }
+
+    /**
+     * Iterator reading its elements one by one from an underlying source.
+     */
+    private abstract static class ReadingIterator<T> implements Iterator<T> {
+
+        private T next;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = read();
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            var element = next;
+            next = null;
+            return element;
+        }
+
+        /**
+         * Reads the next element.
+         *
+         * @return the next element, or {@code null} at the end of the source
+         */
+        protected abstract T read();
+    }
+
+    /**
+     * Reads one JSON registration form per line, skipping blank lines.
+     */
+    private class NdjsonLines extends ReadingIterator<ParsedLine> {
+
+        private final BufferedReader reader;
+        private long lineNumber;
+
+        NdjsonLines(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        protected ParsedLine read() {
+            try {
+                String line;
+                do {
+                    line = reader.readLine();
+                    lineNumber++;
+                } while (line != null && line.isBlank());
+                if (line == null) return null;
+
+                try {
+                    return new ParsedLine(lineNumber, objectMapper.readValue(line, UserRegistrationForm.class), null);
+                } catch (JsonProcessingException ex) {
+                    return new ParsedLine(lineNumber, null, "Malformed JSON: " + ex.getOriginalMessage());
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to read the import", ex);
+            }
+        }
+    }
+
+    /**
+     * Reads one registration form per CSV record. The columns are named by the
+     * header line and missing or empty values are read as {@code null}.
+     */
+    private static class CsvLines extends ReadingIterator<ParsedLine> {
+
+        private final MappingIterator<Map<String, String>> records;
+
+        CsvLines(BufferedReader reader) {
+            try {
+                this.records = CSV_MAPPER.readerForMapOf(String.class).with(CSV_SCHEMA).readValues(reader);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to read the import", ex);
+            }
+        }
+
+        @Override
+        protected ParsedLine read() {
+            long lineNumber = 0;
+            try {
+                if (!records.hasNextValue()) return null;
+
+                lineNumber = records.getParser().currentLocation().getLineNr();
+                return new ParsedLine(lineNumber, toForm(records.nextValue()), null);
+            } catch (JsonProcessingException ex) {
+                return new ParsedLine(lineNumber, null, "Malformed CSV: " + ex.getOriginalMessage());
+            } catch (DateTimeParseException ex) {
+                return new ParsedLine(lineNumber, null, "birthDate: " + ex.getMessage());
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to read the import", ex);
+            }
+        }
+
+        private static UserRegistrationForm toForm(Map<String, String> record) {
+            var birthDate = value(record, "birthDate");
+            var address = Address.builder()
+                    .country(value(record, "country"))
+                    .city(value(record, "city"))
+                    .street(value(record, "street"))
+                    .number(value(record, "number"))
+                    .build();
+            var hasAddress = Stream.of(address.getCountry(), address.getCity(), address.getStreet(),
+                    address.getNumber()).anyMatch(Objects::nonNull);
+
+            return new UserRegistrationForm()
+                    .email(value(record, "email"))
+                    .firstName(value(record, "firstName"))
+                    .lastName(value(record, "lastName"))
+                    .birthDate(birthDate == null ? null : LocalDate.parse(birthDate))
+                    .phone(value(record, "phone"))
+                    .address(hasAddress ? address : null);
+        }
+
+        private static String value(Map<String, String> record, String column) {
+            var value = record.get(column);
+            return value == null || value.isEmpty() ? null : value;
+        }
+    }
+
+    /**
+     * Yields at most the given number of users of the underlying iterator.
+     */
+    private static class Chunk extends ReadingIterator<ImportedUser> {
+
+        private final Iterator<ImportedUser> users;
+        private int remaining;
+
+        Chunk(Iterator<ImportedUser> users, int size) {
+            this.users = users;
+            this.remaining = size;
+        }
+
+        @Override
+        protected ImportedUser read() {
+            if (remaining == 0 || !users.hasNext()) return null;
+
+            remaining--;
+            return users.next();
+        }
+    }
+
+    /**
+     * Validates the parsed lines and yields the accepted users, counting the
+     * rejected ones and keeping the first of them.
+     */
+    private class AcceptedUsers extends ReadingIterator<ImportedUser> {
+
+        private final Iterator<ParsedLine> lines;
+        private final List<ImportRejection> rejections = new ArrayList<>();
+        private long rejected;
+
+        AcceptedUsers(Iterator<ParsedLine> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        protected ImportedUser read() {
+            while (lines.hasNext()) {
+                var line = lines.next();
+                var error = line.error() == null ? validate(line.form()) : line.error();
+                if (error == null) {
+                    var user = userMapper.toUser(line.form());
+                    try {
+                        UserRules.assertThatAgeIsLegal(user, userConstraints.getRequiredAge());
+                        emailFilter.add(user.getEmail());
+                        return new ImportedUser(line.line(), user);
+                    } catch (UserValidationException ex) {
+                        error = ex.getMessage();
+                    }
+                }
+                reject(line.line(), error);
+            }
+            return null;
+        }
+
+        private String validate(UserRegistrationForm form) {
+            var violations = validator.validate(form);
+            if (violations.isEmpty()) return null;
+
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+
+        private void reject(long line, String error) {
+            rejected++;
+            if (rejections.size() < ImportResult.REJECTIONS_LIMIT) {
+                rejections.add(new ImportRejection(line, error));
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.malyshevhen.services.impl;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.exceptions.UserValidationException;
+
+/**
+ * Business rules shared by the user services.
+ *
+ * @author Evhen Malysh
+ */
+final class UserRules {
+
+    private UserRules() {
+    }
+
+    /**
+     * Checks if the provided age is legal, i.e., greater than or equal to the
+     * required minimum age.
+     *
+     * @param user        the user whose age should be checked
+     * @param requiredAge the required minimum age
+     * @throws UserValidationException if the user's age is below the required
+     *                                 age
+     */
+    static void assertThatAgeIsLegal(User user, int requiredAge) {
+        long userAge = ChronoUnit.YEARS.between(user.getBirthDate(), LocalDate.now());
+        if (userAge < requiredAge) {
+            var message = String.format("Users age must be greater than or equal to %d", requiredAge);
+            throw new UserValidationException(message);
+        }
+    }
+}
@@ -1,27 +1,54 @@
 package com.github.malyshevhen.services.impl;
 
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+import com.github.malyshevhen.domain.dto.CollectionVersion;
+import com.github.malyshevhen.domain.dto.CountedSlice;
 import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.EntityVersion;
+import com.github.malyshevhen.domain.dto.KeysetSlice;
+import com.github.malyshevhen.domain.dto.PageCursor;
+import com.github.malyshevhen.domain.dto.RegistrationResult;
+import com.github.malyshevhen.domain.dto.TotalsMode;
+import com.github.malyshevhen.domain.dto.VersionedUser;
 import com.github.malyshevhen.configs.UserConstraints;
 import com.github.malyshevhen.dto.Phone;
+import com.github.malyshevhen.dto.UserInfo;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.github.malyshevhen.exceptions.BaseApplicationException;
 import com.github.malyshevhen.exceptions.EntityAlreadyExistsException;
 import com.github.malyshevhen.exceptions.EntityNotFoundException;
+import com.github.malyshevhen.exceptions.PreconditionFailedException;
 import com.github.malyshevhen.exceptions.UserValidationException;
 import com.github.malyshevhen.domain.models.Address;
 import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.repositories.UserDeleteRepository.DeletedUser;
 import com.github.malyshevhen.repositories.UserRepository;
+import com.github.malyshevhen.repositories.UserSpecifications;
 import com.github.malyshevhen.services.UserService;
 
 import com.github.malyshevhen.configs.ApplicationConfig;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -34,18 +61,55 @@ import lombok.RequiredArgsConstructor;
  * application-specific configuration.
  * <p>
  * The service methods perform various validation checks, such as ensuring the
- * user's age is legal and the email is not already taken, before performing the
- * requested operations.
- * Also operations are performed in a transactional way.
+ * user's age is legal, before performing the requested operations. Uniqueness
+ * of the email is not checked up front: the write is flushed and a violation of
+ * the unique constraint is translated into an
+ * {@link EntityAlreadyExistsException} naming the conflicting field, so a write
+ * costs a single statement and is not racy.
+ * <p>
+ * The information of users returned by {@link #getInfoById} is cached with
+ * their versions, never the entities. Every method changing a user invalidates
+ * it in the cache at the version it wrote, so no read racing the change can
+ * cache the previous version, see {@link UserCache}. Entities are always
+ * loaded from the database.
+ * <p>
+ * Updates are guarded by the optimistic locking of the user: an update based on
+ * a given version fails if the user is no longer at that version, and an update
+ * never overwrites a concurrent one. The email, phone and address are updated
+ * with a single statement checking the version and returning the updated user,
+ * so these updates do not read the user first. Also operations are performed
+ * in a transactional way.
+ * <p>
+ * Users are deleted together with their addresses by a single statement. Bulk
+ * deletions are split into chunks of {@value #DELETE_CHUNK_SIZE} users, each
+ * deleted in its own transaction, so the deleted rows are not locked until the
+ * whole deletion completes.
+ * <p>
+ * Every method is timed as the {@code users.service} metric, tagged with the
+ * method name and the exception it failed with, if any.
  *
  * @author Evhen Malysh
  */
 @Service
 @RequiredArgsConstructor
+@Timed(value = "users.service", description = "Time of the user service methods")
 public class UserServiceImpl implements UserService {
 
+    /**
+     * Unique constraints of the users table by the field they apply to.
+     */
+    private static final Map<String, String> UNIQUE_FIELDS = Map.of("users_email_key", "email");
+
+    /**
+     * Maximum number of users deleted in one transaction by bulk deletions.
+     */
+    static final int DELETE_CHUNK_SIZE = 1000;
+
     private final UserRepository userRepository;
     private final UserConstraints userConstraints;
+    private final EmailFilter emailFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final UserCache userCache;
 
     /**
      * Saves a new user to the system.
@@ -60,26 +124,156 @@ public class UserServiceImpl implements UserService {
     @Override
     public User save(User userToRegister) {
         assertThatAgeIsLegal(userToRegister);
-        assertThatEmailNotTaken(userToRegister.getEmail());
 
-        return userRepository.save(userToRegister);
+        var user = writeUnique(() -> userRepository.save(userToRegister));
+        emailFilter.add(user.getEmail());
+        return user;
     }
 
     /**
-     * Retrieves a paginated list of all users.
+     * Registers a batch of new users.
      * </p>
-     * If {@code pageable} is null, using default values for sorting and paging.
-     * If 0 or negative number passed as page size, then it will be set to 10.
-     * If the result is empty, returns an empty page.
+     * All emails are checked with a single query. Accepted users are inserted in
+     * one transaction; identifiers are allocated from pooled sequences, so the
+     * inserts are sent to the database in JDBC batches. An email registered
+     * concurrently after the check fails the whole batch.
+     *
+     * @param usersToRegister the users to be registered
+     * @return the result of each user, in the order of the batch
+     * @throws EntityAlreadyExistsException if an accepted email was registered
+     *                                      after it was checked
+     */
+    @Transactional
+    @Override
+    public List<RegistrationResult> saveAll(List<User> usersToRegister) {
+        var emails = usersToRegister.stream().map(User::getEmail).toList();
+        var registeredEmails = emailFilter.findRegistered(emails, userRepository::findRegisteredEmails);
+        var batchEmails = new HashSet<String>(usersToRegister.size());
+
+        var results = new ArrayList<RegistrationResult>(usersToRegister.size());
+        var accepted = new ArrayList<User>(usersToRegister.size());
+        for (int index = 0; index < usersToRegister.size(); index++) {
+            var user = usersToRegister.get(index);
+            try {
+                assertThatAgeIsLegal(user);
+                if (registeredEmails.contains(user.getEmail())) {
+                    throw new EntityAlreadyExistsException("User with this email already registered");
+                }
+                if (!batchEmails.add(user.getEmail())) {
+                    throw new EntityAlreadyExistsException("User with this email is repeated in the batch");
+                }
+                accepted.add(user);
+                results.add(RegistrationResult.created(index, user));
+            } catch (UserValidationException | EntityAlreadyExistsException ex) {
+                results.add(RegistrationResult.rejected(index, ex.getMessage()));
+            }
+        }
+
+        writeUnique(() -> userRepository.saveAll(accepted));
+        accepted.forEach(user -> emailFilter.add(user.getEmail()));
+        return results;
+    }
+
+    /**
+     * Retrieves a page of user information with the totals calculated as
+     * requested, read without loading entities.
+     * </p>
+     * One extra row is fetched to detect whether a next page exists, and the
+     * count query is only executed for exact totals, or if no estimate is
+     * available. No count query is executed for exact totals when the first
+     * page is not full.
      *
      * @param pageable  the pagination parameters
      * @param dateRange date range filter for filtering users by age
-     * @return a page of users
+     * @param totals    how the total number of users is calculated
+     * @return a slice of user information with the totals
      */
     @Transactional(readOnly = true)
     @Override
-    public Page<User> getAll(Pageable pageable, DateRange dateRange) {
-        return userRepository.findAll(inRange(dateRange), pageable);
+    public CountedSlice<UserInfo> getUserInfos(Pageable pageable, DateRange dateRange, TotalsMode totals) {
+        return getUserInfos(pageable, dateRange, totals,
+                () -> userRepository.count(UserSpecifications.inRange(dateRange)));
+    }
+
+    /**
+     * Retrieves a page of user information with the totals calculated as
+     * requested, without a count query as the number of users is known.
+     *
+     * @param pageable  the pagination parameters
+     * @param dateRange date range filter for filtering users by age
+     * @param totals    how the total number of users is calculated
+     * @param count     the number of users matching the filter
+     * @return a slice of user information with the totals
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public CountedSlice<UserInfo> getUserInfos(Pageable pageable, DateRange dateRange, TotalsMode totals,
+            long count) {
+        return getUserInfos(pageable, dateRange, totals, () -> count);
+    }
+
+    private CountedSlice<UserInfo> getUserInfos(Pageable pageable, DateRange dateRange, TotalsMode totals,
+            LongSupplier count) {
+        var slice = userRepository.findInfoSlice(dateRange, pageable);
+        var content = slice.getContent();
+        if (totals == TotalsMode.NONE && pageable.isPaged()) {
+            return CountedSlice.uncounted(content, pageable, slice.hasNext());
+        }
+        if (totals == TotalsMode.ESTIMATED && pageable.isPaged()) {
+            var estimate = userRepository.estimateCount(dateRange);
+            if (estimate.isPresent()) {
+                return CountedSlice.estimated(content, pageable, slice.hasNext(), estimate.getAsLong());
+            }
+        }
+        return CountedSlice.exact(PageableExecutionUtils.getPage(content, pageable, count));
+    }
+
+    /**
+     * Retrieves a slice of user information positioned after the given cursor,
+     * read without loading entities.
+     * </p>
+     * The sort order is taken from the cursor. If {@code pageable} is sorted as
+     * well, it must resolve to the same keyset order. One extra row is fetched
+     * to detect whether a next slice exists, so no count query is executed.
+     *
+     * @param after     the cursor of the previous slice, or {@code null} to start
+     *                  from the first row
+     * @param pageable  the slice size and optional sort order
+     * @param dateRange date range filter for filtering users by age
+     * @return a slice of user information with the cursor of the next slice
+     * @throws IllegalArgumentException if the sort order is not supported or
+     *                                  does not match the cursor
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public KeysetSlice<UserInfo> getUserInfos(PageCursor after, Pageable pageable, DateRange dateRange) {
+        var sort = UserSpecifications.keysetSort(pageable.getSort());
+        if (after != null && pageable.getSort().isSorted() && !sort.equals(after.toSort())) {
+            throw new IllegalArgumentException("Page cursor does not match the requested sort order");
+        }
+        return userRepository.findInfoSliceAfter(dateRange, after, sort, pageable.getPageSize());
+    }
+
+    /**
+     * Reads users unless the client already has them.
+     * </p>
+     * The version is a single aggregate query of an index. The read joins this
+     * read-only transaction when it calls the transactional methods of the
+     * service, so it runs on the same connection, after the version query. The
+     * read is given the version, so it can take the number of users from it
+     * instead of counting them again.
+     *
+     * @param dateRange   date range filter for filtering users by age
+     * @param notModified tests whether the client has the users at the version
+     * @param read        reads the users
+     * @return the users read, or empty if the client has them
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public <T> Optional<T> readIfModified(DateRange dateRange, Predicate<CollectionVersion> notModified,
+            Function<CollectionVersion, T> read) {
+        var version = userRepository.findVersion(dateRange);
+        return notModified.test(version) ? Optional.empty() : Optional.of(read.apply(version));
     }
 
     /**
@@ -97,6 +291,56 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new EntityNotFoundException(errorMessage));
     }
 
+    /**
+     * Retrieves the information of a user with its version, from the cache if
+     * possible.
+     * </p>
+     * A user missing from the cache is loaded with a single query on the
+     * primary database and cached unless it was written meanwhile, see
+     * {@link UserCache}. A cache hit costs no transaction.
+     *
+     * @param id the unique identifier of the user to retrieve
+     * @return the user information and version
+     * @throws EntityNotFoundException if no user is found with the specified ID
+     */
+    @Override
+    public VersionedUser getInfoById(Long id) {
+        return userCache.get(id, userRepository::findVersionedInfoById)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("User with id %d was not found", id)));
+    }
+
+    /**
+     * Retrieves the version of a user, from the cached user if possible.
+     * </p>
+     * The version of a user missing from the cache is read with a query of
+     * the version columns on the primary database, as cached users are
+     * loaded, and the user is not loaded. A cache hit costs no transaction.
+     *
+     * @param id the unique identifier of the user
+     * @return the version of the user
+     * @throws EntityNotFoundException if no user is found with the specified ID
+     */
+    @Override
+    public EntityVersion getVersionById(Long id) {
+        return userCache.getVersion(id, userRepository::findVersionById)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("User with id %d was not found", id)));
+    }
+
+    /**
+     * Checks whether a user with the email is registered.
+     * </p>
+     * The email filter answers the check if the email is definitely not
+     * registered, otherwise the database is queried. The method is not
+     * transactional, so a negative answer costs no transaction.
+     *
+     * @param email the email to check
+     * @return {@code true} if the email is registered
+     */
+    @Override
+    public boolean isEmailRegistered(String email) {
+        return emailFilter.isRegistered(email, userRepository::existsByEmail);
+    }
+
     /**
      * Updates an existing user with the provided user data.
      * </p>
@@ -105,18 +349,20 @@ public class UserServiceImpl implements UserService {
      * <p>
      * This method is kept for test assignment purposes only.
      *
-     * @param id   the ID of the user to update
-     * @param user the updated user data
+     * @param id      the ID of the user to update
+     * @param user    the updated user data
+     * @param version the version the update is based on, may be {@code null}
      * @return the updated user
      * @throws EntityNotFoundException      if no user found with the specified ID
      * @throws EntityAlreadyExistsException if the new email is already registered
      * @throws UserValidationException      if the user's age is below the required
      *                                      age
+     * @throws PreconditionFailedException  if the user is not at the version
      */
     @Transactional
     @Override
-    public User updateById(Long id, User user) {
-        var existingUser = getById(id);
+    public User updateById(Long id, User user, Long version) {
+        var existingUser = getById(id, version);
         existingUser.setFirstName(user.getFirstName());
         existingUser.setLastName(user.getLastName());
         existingUser.setAddress(user.getAddress());
@@ -129,49 +375,59 @@ public class UserServiceImpl implements UserService {
             existingUser.setBirthDate(user.getBirthDate());
         }
 
-        var existingEmail = existingUser.getEmail();
-        var emailToUpdate = user.getEmail();
-        if (!Objects.equals(existingEmail, emailToUpdate)) {
-            assertThatEmailNotTaken(emailToUpdate);
-            existingUser.setEmail(user.getEmail());
-        }
+        var previousEmail = existingUser.getEmail();
+        existingUser.setEmail(user.getEmail());
 
-        return existingUser;
+        var written = writeEmail(existingUser, previousEmail);
+        userCache.invalidate(id, written.getVersion());
+        return written;
     }
 
     /**
-     * Updates the email of an existing user.
+     * Updates the email of an existing user with a single statement.
      *
-     * @param id    The ID of the user to update.
-     * @param email The new email address to set for the user.
+     * @param id      The ID of the user to update.
+     * @param email   The new email address to set for the user.
+     * @param version The version the update is based on, may be {@code null}.
      * @return The updated user entity.
+     * @throws EntityNotFoundException      if no user is found with the specified
+     *                                      ID.
      * @throws EntityAlreadyExistsException if the new email is already registered
      *                                      to another user.
+     * @throws PreconditionFailedException  if the user is not at the version.
      */
     @Transactional
     @Override
-    public User updateEmail(Long id, String email) {
-        assertThatEmailNotTaken(email);
-
-        var existingUser = getById(id);
-        existingUser.setEmail(email);
-        return existingUser;
+    public User updateEmail(Long id, String email, Long version) {
+        var change = writeUnique(() -> userRepository.updateEmail(id, email, version))
+                .orElseThrow(() -> notUpdated(id, version));
+        var user = change.user();
+        if (!Objects.equals(change.previousEmail(), user.getEmail())) {
+            emailFilter.add(user.getEmail());
+            emailFilter.remove(change.previousEmail());
+        }
+        userCache.invalidate(id, user.getVersion());
+        return user;
     }
 
     /**
-     * Updates the address of the user with the specified ID.
+     * Updates the address of the user with the specified ID with a single
+     * statement inserting the new address.
      *
      * @param id      the ID of the user whose address should be updated
      * @param address the new address to set for the user
+     * @param version the version the update is based on, may be {@code null}
      * @return the updated user with the new address
-     * @throws EntityNotFoundException if no user is found with the specified ID
+     * @throws EntityNotFoundException     if no user is found with the specified ID
+     * @throws PreconditionFailedException if the user is not at the version
      */
     @Transactional
     @Override
-    public User updateAddress(Long id, Address address) {
-        var existingUser = getById(id);
-        existingUser.setAddress(address);
-        return existingUser;
+    public User updateAddress(Long id, Address address, Long version) {
+        var user = userRepository.updateAddress(id, address, version)
+                .orElseThrow(() -> notUpdated(id, version));
+        userCache.invalidate(id, user.getVersion());
+        return user;
     }
 
     /**
@@ -185,18 +441,33 @@ public class UserServiceImpl implements UserService {
     public void deleteUsersAddress(Long id) {
         var existingUser = getById(id);
         existingUser.setAddress(null);
+        userRepository.flush();
+        userCache.invalidate(id, existingUser.getVersion());
     }
 
+    /**
+     * Updates the phone of the user with the specified ID with a single
+     * statement.
+     *
+     * @param id      the ID of the user whose phone should be updated
+     * @param phone   the new phone
+     * @param version the version the update is based on, may be {@code null}
+     * @return the updated user
+     * @throws EntityNotFoundException     if no user is found with the specified ID
+     * @throws PreconditionFailedException if the user is not at the version
+     */
     @Transactional
     @Override
-    public User updatePhone(Long id, Phone phone) {
-       var user = getById(id);
-       user.setPhone(user.getPhone());
-       return user;
+    public User updatePhone(Long id, Phone phone, Long version) {
+        var user = userRepository.updatePhone(id, phone.getPhone(), version)
+                .orElseThrow(() -> notUpdated(id, version));
+        userCache.invalidate(id, user.getVersion());
+        return user;
     }
 
     /**
-     * Deletes the user with the specified ID.
+     * Deletes the user with the specified ID and its address with a single
+     * statement.
      *
      * @param id the ID of the user to delete
      * @throws EntityNotFoundException if no user is found with the specified ID
@@ -204,52 +475,172 @@ public class UserServiceImpl implements UserService {
     @Transactional
     @Override
     public void deleteById(Long id) {
-        var existingUser = getById(id);
-        userRepository.delete(existingUser);
+        var deleted = userRepository.deleteUser(id)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("User with id %d was not found", id)));
+        emailFilter.remove(deleted.email());
+        userCache.remove(id);
     }
 
     /**
-     * Checks if the provided email is already taken in the database.
+     * Deletes the users with the specified IDs in chunks of
+     * {@value #DELETE_CHUNK_SIZE}, in ascending ID order.
      *
-     * @param email the email to check for existence
-     * @throws EntityAlreadyExistsException if the email is already taken
+     * @param ids the IDs of the users to delete
+     * @return the number of deleted users
      */
-    private void assertThatEmailNotTaken(String email) {
-        if (userRepository.existsByEmail(email)) {
-            throw new EntityAlreadyExistsException("User with this email already registered");
+    @Override
+    public long deleteAllById(Collection<Long> ids) {
+        var sortedIds = List.copyOf(new TreeSet<>(ids));
+        long deleted = 0;
+        for (int from = 0; from < sortedIds.size(); from += DELETE_CHUNK_SIZE) {
+            var chunk = sortedIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, sortedIds.size()));
+            deleted += deleteChunk(() -> userRepository.deleteUsers(chunk)).size();
         }
+        return deleted;
     }
 
     /**
-     * Checks if the provided age is legal, i.e., greater than or equal to the
-     * required minimum age.
+     * Deletes the users matching the filter in chunks of
+     * {@value #DELETE_CHUNK_SIZE}, in ascending ID order, until a chunk is not
+     * full. Each chunk starts after the highest ID of the previous one, so
+     * users registered meanwhile with lower IDs are not deleted.
      *
-     * @param user the user whose age should be checked
-     * @throws UserValidationException if the user's age is below the required
-     *                                 age
+     * @param dateRange     the birth date range, may be {@code null}
+     * @param createdBefore the exclusive upper bound of the creation time, may
+     *                      be {@code null}
+     * @return the number of deleted users
+     * @throws IllegalArgumentException if no filter is given
      */
-    private void assertThatAgeIsLegal(User user) {
-        int requiredAge = userConstraints.getRequiredAge();
-        long userAge = ChronoUnit.YEARS.between(user.getBirthDate(), LocalDate.now());
-        if (userAge < requiredAge) {
-            var message = String.format("Users age must be greater than or equal to %d", requiredAge);
-            throw new UserValidationException(message);
+    @Override
+    public long deleteAll(DateRange dateRange, LocalDateTime createdBefore) {
+        if ((dateRange == null || !dateRange.isSet()) && createdBefore == null) {
+            throw new IllegalArgumentException("At least one filter of the users to delete is required");
+        }
+
+        long deleted = 0;
+        Long afterId = null;
+        List<DeletedUser> chunk;
+        do {
+            var from = afterId;
+            chunk = deleteChunk(() -> userRepository.deleteUsers(dateRange, createdBefore, from, DELETE_CHUNK_SIZE));
+            deleted += chunk.size();
+            afterId = chunk.stream().mapToLong(DeletedUser::id).max().orElse(0);
+        } while (chunk.size() == DELETE_CHUNK_SIZE);
+        return deleted;
+    }
+
+    /**
+     * Retrieves a user to update, checking that it is at the version the
+     * update is based on.
+     * </p>
+     * The check covers the changes committed before the user is read. A change
+     * committed after is detected when the update is written, by the version
+     * condition of the optimistic locking, and fails the transaction with an
+     * {@link org.springframework.dao.OptimisticLockingFailureException}.
+     *
+     * @param id      the ID of the user
+     * @param version the expected version, or {@code null} to skip the check
+     * @return the user
+     * @throws EntityNotFoundException     if no user is found with the specified ID
+     * @throws PreconditionFailedException if the user is not at the version
+     */
+    private User getById(Long id, Long version) {
+        var user = getById(id);
+        if (version != null && !version.equals(user.getVersion())) {
+            throw new PreconditionFailedException(String.format(
+                    "User with id %d was modified, its current version is %d", id, user.getVersion()));
         }
+        return user;
     }
 
-    private Specification<User> inRange(DateRange dateRange) {
-        if (dateRange == null || !dateRange.isSet()) return Specification.where(null);
+    /**
+     * Writes the user with a possibly changed email and keeps the email filter
+     * up to date.
+     *
+     * @param user          the user to write
+     * @param previousEmail the email of the user before the change
+     * @return the written user
+     * @throws EntityAlreadyExistsException if a unique field of the user is
+     *                                      already registered
+     */
+    private User writeEmail(User user, String previousEmail) {
+        var written = writeUnique(() -> user);
+        if (!Objects.equals(previousEmail, written.getEmail())) {
+            emailFilter.add(written.getEmail());
+            emailFilter.remove(previousEmail);
+        }
+        return written;
+    }
 
-        return (root, query, criteriaBuilder) -> {
-            query.distinct(true);
-            var birthDate = root.get("birthDate").as(LocalDate.class);
+    /**
+     * Performs a deletion in its own transaction, unless one is in progress,
+     * then invalidates the deleted users in the cache and records their emails as
+     * no longer registered.
+     *
+     * @param deletion the deletion to perform
+     * @return the deleted users
+     */
+    private List<DeletedUser> deleteChunk(Supplier<List<DeletedUser>> deletion) {
+        var deleted = transactionTemplate.execute(status -> deletion.get());
+        for (var user : deleted) {
+            userCache.remove(user.id());
+            emailFilter.remove(user.email());
+        }
+        return deleted;
+    }
+
+    /**
+     * Explains why an update based on the version affected no user.
+     *
+     * @param id      the ID of the user
+     * @param version the version the update was based on, may be {@code null}
+     * @return {@link PreconditionFailedException} if the user exists at another
+     *         version, {@link EntityNotFoundException} otherwise
+     */
+    private BaseApplicationException notUpdated(Long id, Long version) {
+        var current = version == null ? Optional.<EntityVersion>empty() : userRepository.findVersionById(id);
+        if (current.isPresent()) {
+            return new PreconditionFailedException(String.format(
+                    "User with id %d was modified, its current version is %d", id, current.get().version()));
+        }
+        return new EntityNotFoundException(String.format("User with id %d was not found", id));
+    }
 
-            if ((dateRange.getFrom() == null)) {
-                return criteriaBuilder.lessThanOrEqualTo(birthDate, dateRange.getTo());
-            } else if (dateRange.getTo() == null) {
-                return criteriaBuilder.greaterThanOrEqualTo(birthDate, dateRange.getFrom());
+    /**
+     * Performs the write and flushes it, translating a violation of a unique
+     * constraint of the users table.
+     *
+     * @param write the write to perform
+     * @param <T>   the type of the write result
+     * @return the result of the write
+     * @throws EntityAlreadyExistsException if a unique field of the user is
+     *                                      already registered
+     */
+    private <T> T writeUnique(Supplier<T> write) {
+        try {
+            var result = write.get();
+            userRepository.flush();
+            return result;
+        } catch (DataIntegrityViolationException ex) {
+            if (ex.getCause() instanceof ConstraintViolationException violation
+                    && UNIQUE_FIELDS.containsKey(violation.getConstraintName())) {
+                var field = UNIQUE_FIELDS.get(violation.getConstraintName());
+                throw new EntityAlreadyExistsException(
+                        String.format("User with this %s already registered", field), field);
             }
-            return criteriaBuilder.between(birthDate, dateRange.from(), dateRange.to());
-        };
+            throw ex;
+        }
+    }
+
+    /**
+     * Checks if the provided age is legal, i.e., greater than or equal to the
+     * required minimum age.
+     *
+     * @param user the user whose age should be checked
+     * @throws UserValidationException if the user's age is below the required
+     *                                 age
+     */
+    private void assertThatAgeIsLegal(User user) {
+        UserRules.assertThatAgeIsLegal(user, userConstraints.getRequiredAge());
     }
 }
@@ -0,0 +1,8 @@
+-- Users: indexes matching the supported sort orders. The id column is the
+-- tie-breaker of every sort order, so range filters, ORDER BY and keyset
+-- pagination on these columns are served by an index scan without sorting.
+-- The indexes are built concurrently, without blocking writes to the users,
+-- so Flyway runs this migration outside a transaction. A build that fails
+-- leaves an invalid index behind, which must be dropped before retrying.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_birth_date_id_idx ON users (birth_date, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_created_at_id_idx ON users (created_at, id);
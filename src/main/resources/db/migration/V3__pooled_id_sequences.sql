@@ -0,0 +1,5 @@
+-- Identifiers are allocated by the application from the sequences in blocks of
+-- 50 (pooled optimizer), so inserts can be batched. The increment must match
+-- the allocation size of the entity identifier generators.
+ALTER SEQUENCE addresses_id_seq INCREMENT BY 50;
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
@@ -0,0 +1,9 @@
+-- Users: updated_at NOT NULL. Validating the check scans the users while
+-- allowing reads and writes; SET NOT NULL then relies on the valid check
+-- instead of scanning again, so the exclusive lock it takes is brief. The
+-- lock timeout fails the migration rather than queue writes behind it while a
+-- long transaction holds the table.
+SET LOCAL lock_timeout = '5s';
+ALTER TABLE users VALIDATE CONSTRAINT users_updated_at_not_null;
+ALTER TABLE users ALTER COLUMN updated_at SET NOT NULL;
+ALTER TABLE users DROP CONSTRAINT users_updated_at_not_null;
@@ -0,0 +1,10 @@
+-- Users: updated_at is the version of a user, it is set on insert as well as
+-- on update, and is served as the Last-Modified time of the user.
+-- The backfill runs in one transaction and locks the users never updated
+-- since they were created until it commits; on a large table, run it in a
+-- maintenance window or backfill these users beforehand in batches, then this
+-- statement finds nothing to update. The column is made NOT NULL in the next
+-- migration, by validating this check without blocking writes first.
+SET LOCAL lock_timeout = '5s';
+UPDATE users SET updated_at = created_at WHERE updated_at IS NULL;
+ALTER TABLE users ADD CONSTRAINT users_updated_at_not_null CHECK (updated_at IS NOT NULL) NOT VALID;
@@ -0,0 +1,10 @@
+-- Users and addresses: version columns of the optimistic locking. Every update
+-- increments the version and is applied only if the row is still at the
+-- version it was read at, so concurrent updates cannot overwrite each other.
+-- A constant default is stored in the catalog, so the columns are added
+-- without rewriting the tables, under a brief exclusive lock. The lock timeout
+-- fails the migration rather than queue writes behind it while a long
+-- transaction holds a table.
+SET LOCAL lock_timeout = '5s';
+ALTER TABLE users ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE addresses ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
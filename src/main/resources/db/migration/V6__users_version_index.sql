@@ -0,0 +1,8 @@
+-- Users: index of the version of a collection of users, their latest
+-- updated_at, count and sum of versions. It is read by an index-only scan for
+-- users filtered by birth date and for all users, so a conditional request
+-- for a page of users is answered without reading the table.
+-- The index is built concurrently, without blocking writes to the users, so
+-- Flyway runs this migration outside a transaction. A build that fails leaves
+-- an invalid index behind, which must be dropped before retrying.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_birth_date_version_idx ON users (birth_date) INCLUDE (updated_at, version);
@@ -0,0 +1,130 @@
+package com.github.malyshevhen.configs;
+
+import static com.github.malyshevhen.testutils.FakeData.getValidUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.github.malyshevhen.services.UserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.SneakyThrows;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class MetricsConfigIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @DisplayName("Requests should be timed per operation of the users API")
+    @Test
+    @SneakyThrows
+    public void testRequests_shouldBeTimedPerOperation() {
+        // Prepare:
+        var id = userService.save(getValidUser()).getId();
+
+        // Execute:
+        mockMvc.perform(get("/users/{id}", id)).andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+
+        // Verify:
+        var getById = meterRegistry.find("http.server.requests").tag("operation", "getById").timers();
+        assertEquals(2, getById.stream().mapToLong(timer -> timer.count()).sum());
+        assertTrue(getById.stream().anyMatch(timer -> "404".equals(timer.getId().getTag("status"))));
+
+        userService.deleteById(id);
+    }
+
+    @DisplayName("Every user service method should be timed")
+    @Test
+    public void testUserService_shouldBeTimed() {
+        // Execute:
+        var id = userService.save(getValidUser()).getId();
+        userService.getById(id);
+        userService.deleteById(id);
+
+        // Verify:
+        for (var method : new String[] { "save", "getById", "deleteById" }) {
+            var timer = meterRegistry.find("users.service").tag("method", method).timer();
+            assertNotNull(timer, method);
+            assertTrue(timer.count() > 0, method);
+        }
+    }
+
+    @DisplayName("Hibernate statistics should be published")
+    @Test
+    public void testHibernateStatistics_shouldBePublished() {
+        // Execute:
+        var id = userService.save(getValidUser()).getId();
+        userService.deleteById(id);
+
+        // Verify:
+        var inserts = meterRegistry.find("hibernate.entities.inserts").functionCounter();
+        assertNotNull(inserts);
+        assertTrue(inserts.count() > 0);
+        assertTrue(meterRegistry.find("hibernate.statements").tag("status", "prepared").functionCounter()
+                .count() > 0);
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests").tag("result", "hit")
+                .functionCounter());
+    }
+
+    @DisplayName("Metrics should be scraped from the prometheus endpoint of the management port")
+    @Test
+    @SneakyThrows
+    public void testPrometheusEndpoint_shouldServeMetrics() {
+        // Prepare:
+        var id = userService.save(getValidUser()).getId();
+        mockMvc.perform(get("/users/{id}", id)).andExpect(status().isOk());
+
+        // Execute:
+        var response = restTemplate.getForEntity("http://localhost:" + managementPort + "/actuator/prometheus",
+                String.class);
+
+        // Verify:
+        assertEquals(200, response.getStatusCode().value());
+        var body = response.getBody();
+        assertNotNull(body);
+        assertTrue(body.contains("http_server_requests_seconds_count{"), "http.server.requests");
+        assertTrue(body.contains("operation=\"getById\""), "operation tag");
+        assertTrue(body.contains("users_service_seconds_count{"), "users.service");
+        assertTrue(body.contains("hibernate_entities_inserts_total"), "hibernate.*");
+
+        userService.deleteById(id);
+    }
+}
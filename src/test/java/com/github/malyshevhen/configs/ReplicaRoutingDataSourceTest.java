@@ -0,0 +1,357 @@
+package com.github.malyshevhen.configs;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import lombok.SneakyThrows;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration READ_YOUR_WRITES_WINDOW = Duration.ofSeconds(5);
+
+    private final MutableClock clock = new MutableClock();
+
+    private DataSource primary;
+    private Connection primaryConnection;
+
+    @BeforeEach
+    @SneakyThrows
+    void setUp() {
+        primary = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @DisplayName("Read-only connections should be balanced over the replicas in turn")
+    @Test
+    @SneakyThrows
+    public void testRoundRobin_shouldRotateReplicas() {
+        // Given:
+        var first = replica();
+        var second = replica();
+        var dataSource = routing(List.of(first, second), ReplicaBalancing.ROUND_ROBIN, Duration.ZERO);
+
+        // Execute:
+        var connections = List.of(readOnlyTarget(dataSource), readOnlyTarget(dataSource),
+                readOnlyTarget(dataSource));
+
+        // Verify:
+        assertSame(first.getConnection(), connections.get(0));
+        assertSame(second.getConnection(), connections.get(1));
+        assertSame(first.getConnection(), connections.get(2));
+    }
+
+    @DisplayName("Read-only connections should be taken from the least busy replica")
+    @Test
+    @SneakyThrows
+    public void testLeastConnections_shouldPickLeastBusyReplica() {
+        // Given:
+        var busy = hikariReplica(7);
+        var idle = hikariReplica(2);
+        var dataSource = routing(List.of(busy, idle), ReplicaBalancing.LEAST_CONNECTIONS, Duration.ZERO);
+
+        // Execute:
+        var connections = List.of(readOnlyTarget(dataSource), readOnlyTarget(dataSource));
+
+        // Verify:
+        assertSame(idle.getConnection(), connections.get(0));
+        assertSame(idle.getConnection(), connections.get(1));
+    }
+
+    @DisplayName("Writing connections should be taken from the primary database")
+    @Test
+    @SneakyThrows
+    public void testWrite_shouldUsePrimary() {
+        // Given:
+        var dataSource = routing(List.of(replica()), ReplicaBalancing.ROUND_ROBIN, Duration.ZERO);
+
+        // Execute:
+        var connection = target(dataSource.getConnection());
+
+        // Verify:
+        assertSame(primaryConnection, connection);
+    }
+
+    @DisplayName("Read-only connections taken to read from the primary should be taken from the primary database")
+    @Test
+    @SneakyThrows
+    public void testReadFromPrimary_shouldUsePrimary() {
+        // Given:
+        var replica = replica();
+        var dataSource = routing(List.of(replica), ReplicaBalancing.ROUND_ROBIN, Duration.ZERO);
+
+        // Execute:
+        var primaryRead = ReplicaRoutingDataSource.readFromPrimary(() -> readOnlyTarget(dataSource));
+        var read = readOnlyTarget(dataSource);
+
+        // Verify:
+        assertSame(primaryConnection, primaryRead);
+        assertSame(replica.getConnection(), read);
+    }
+
+    @DisplayName("Failing replica should be skipped until the retry interval passes")
+    @Test
+    @SneakyThrows
+    public void testFailingReplica_shouldBeSkippedUntilRetry() {
+        // Given:
+        var failing = mock(DataSource.class);
+        doThrow(new SQLException("Connection refused", "08001")).when(failing).getConnection();
+        var healthy = replica();
+        var dataSource = routing(List.of(failing, healthy), ReplicaBalancing.ROUND_ROBIN, Duration.ZERO);
+
+        // Execute:
+        var connections = List.of(readOnlyTarget(dataSource), readOnlyTarget(dataSource),
+                readOnlyTarget(dataSource));
+        clock.advance(RETRY_INTERVAL);
+        readOnlyTarget(dataSource);
+        readOnlyTarget(dataSource);
+
+        // Verify:
+        var healthyConnection = healthy.getConnection();
+        connections.forEach(connection -> assertSame(healthyConnection, connection));
+        verify(failing, times(2)).getConnection();
+    }
+
+    @DisplayName("Replica with an exhausted pool should be tried again on the next connection")
+    @Test
+    @SneakyThrows
+    public void testExhaustedReplica_shouldNotBeSkipped() {
+        // Given:
+        var exhausted = mock(DataSource.class);
+        var exhaustedConnection = mock(Connection.class);
+        when(exhausted.getConnection())
+                .thenThrow(new SQLTransientConnectionException("replica-1 - Connection is not available"))
+                .thenReturn(exhaustedConnection);
+        var dataSource = routing(List.of(exhausted), ReplicaBalancing.ROUND_ROBIN, Duration.ZERO);
+
+        // Execute:
+        var connections = List.of(readOnlyTarget(dataSource), readOnlyTarget(dataSource));
+
+        // Verify:
+        assertSame(primaryConnection, connections.get(0));
+        assertSame(exhaustedConnection, connections.get(1));
+    }
+
+    @DisplayName("Replica whose pool timed out connecting to it should be skipped until the retry interval passes")
+    @Test
+    @SneakyThrows
+    public void testUnreachableReplica_shouldBeSkippedUntilRetry() {
+        // Given:
+        var unreachable = mock(DataSource.class);
+        var refused = new SQLException("Connection refused", "08001");
+        when(unreachable.getConnection()).thenThrow(
+                new SQLTransientConnectionException("replica-1 - Connection is not available", "08001", refused));
+        var dataSource = routing(List.of(unreachable), ReplicaBalancing.ROUND_ROBIN, Duration.ZERO);
+
+        // Execute:
+        readOnlyTarget(dataSource);
+        readOnlyTarget(dataSource);
+
+        // Verify:
+        verify(unreachable, times(1)).getConnection();
+    }
+
+    @DisplayName("Read-only connections should fall back to the primary if no replica is available")
+    @Test
+    @SneakyThrows
+    public void testNoReplicaAvailable_shouldUsePrimary() {
+        // Given:
+        var failing = mock(DataSource.class);
+        when(failing.getConnection()).thenThrow(new SQLException("Connection refused", "08001"));
+        var dataSource = routing(List.of(failing), ReplicaBalancing.ROUND_ROBIN, Duration.ZERO);
+
+        // Execute:
+        var connection = readOnlyTarget(dataSource);
+
+        // Verify:
+        assertSame(primaryConnection, connection);
+    }
+
+    @DisplayName("Client should read from the primary within the window after its own write")
+    @Test
+    @SneakyThrows
+    public void testReadYourWrites_shouldUsePrimaryAfterOwnWrite() {
+        // Given:
+        var replica = replica();
+        var dataSource = routing(List.of(replica), ReplicaBalancing.ROUND_ROBIN, READ_YOUR_WRITES_WINDOW);
+        inRequestOf("writer");
+        commitWrite(dataSource);
+
+        // Execute:
+        var ownRead = readOnlyTarget(dataSource);
+        inRequestOf("reader");
+        var otherRead = readOnlyTarget(dataSource);
+        inRequestOf("writer");
+        clock.advance(READ_YOUR_WRITES_WINDOW);
+        var laterRead = readOnlyTarget(dataSource);
+
+        // Verify:
+        assertSame(primaryConnection, ownRead);
+        assertSame(replica.getConnection(), otherRead);
+        assertSame(replica.getConnection(), laterRead);
+    }
+
+    @DisplayName("Clients sharing an address without an identifier should read from the replicas")
+    @Test
+    @SneakyThrows
+    public void testReadYourWrites_whenClientIsNotIdentified_shouldUseReplica() {
+        // Given:
+        var replica = replica();
+        var dataSource = routing(List.of(replica), ReplicaBalancing.ROUND_ROBIN, READ_YOUR_WRITES_WINDOW);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        commitWrite(dataSource);
+
+        // Execute:
+        var read = readOnlyTarget(dataSource);
+
+        // Verify:
+        assertSame(replica.getConnection(), read);
+    }
+
+    @DisplayName("Client without an identifier should read from the primary after a write of its session")
+    @Test
+    @SneakyThrows
+    public void testReadYourWrites_whenClientHasSession_shouldUsePrimaryAfterOwnWrite() {
+        // Given:
+        var replica = replica();
+        var dataSource = routing(List.of(replica), ReplicaBalancing.ROUND_ROBIN, READ_YOUR_WRITES_WINDOW);
+        var session = new MockHttpSession();
+        inSession(session);
+        commitWrite(dataSource);
+
+        // Execute:
+        var ownRead = readOnlyTarget(dataSource);
+        inSession(new MockHttpSession());
+        var otherRead = readOnlyTarget(dataSource);
+
+        // Verify:
+        assertSame(primaryConnection, ownRead);
+        assertSame(replica.getConnection(), otherRead);
+    }
+
+    private ReplicaRoutingDataSource routing(List<DataSource> replicas, ReplicaBalancing balancing,
+            Duration readYourWritesWindow) {
+        return new ReplicaRoutingDataSource(primary, replicas, balancing, RETRY_INTERVAL, readYourWritesWindow,
+                clock);
+    }
+
+    @SneakyThrows
+    private static DataSource replica() {
+        var replica = mock(DataSource.class);
+        var connection = mock(Connection.class);
+        when(replica.getConnection()).thenReturn(connection);
+        return replica;
+    }
+
+    @SneakyThrows
+    private static DataSource hikariReplica(int activeConnections) {
+        var replica = mock(HikariDataSource.class);
+        var pool = mock(HikariPoolMXBean.class);
+        var connection = mock(Connection.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(replica.getHikariPoolMXBean()).thenReturn(pool);
+        when(pool.getActiveConnections()).thenReturn(activeConnections);
+        return replica;
+    }
+
+    @SneakyThrows
+    private static Connection readOnlyTarget(DataSource dataSource) {
+        var connection = dataSource.getConnection();
+        connection.setReadOnly(true);
+        return target(connection);
+    }
+
+    @SneakyThrows
+    private static Connection target(Connection connection) {
+        connection.createStatement();
+        return ((ConnectionProxy) connection).getTargetConnection();
+    }
+
+    @SneakyThrows
+    private static void commitWrite(DataSource dataSource) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target(dataSource.getConnection());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void inRequestOf(String clientId) {
+        var request = new MockHttpServletRequest();
+        request.addHeader(ReplicaRoutingDataSource.CLIENT_ID_HEADER, clientId);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static void inSession(MockHttpSession session) {
+        var request = new MockHttpServletRequest();
+        request.setSession(session);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.malyshevhen.configs;
+
+import static com.github.malyshevhen.testutils.FakeData.getValidEmail;
+import static com.github.malyshevhen.testutils.FakeData.getValidUser;
+import static com.github.malyshevhen.testutils.FakeData.getValidUserRegistrationForm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.malyshevhen.dto.UpdateEmailForm;
+import com.github.malyshevhen.services.UserService;
+
+import lombok.SneakyThrows;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "statement-budgets.operations.updateUserEmail=0" })
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class StatementBudgetIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private StatementBudgetProperties budgets;
+
+    @DisplayName("Requests should execute the statements of their budgets")
+    @Test
+    @SneakyThrows
+    public void testRequests_shouldExecuteBudgetedStatements() {
+        // Prepare:
+        var form = objectMapper.writeValueAsString(getValidUserRegistrationForm());
+
+        // Execute:
+        var registerUser = count(post("/users").contentType(MediaType.APPLICATION_JSON).content(form));
+        var id = userService.save(getValidUser()).getId();
+        var getById = count(get("/users/{id}", id));
+        var cachedGetById = count(get("/users/{id}", id));
+        var getAll = count(get("/users"));
+        var deleteById = count(delete("/users/{id}", id));
+
+        // Verify:
+        assertTrue(registerUser <= budgets.operationBudget("registerUser"));
+        assertEquals(1, getById);
+        assertEquals(0, cachedGetById);
+        assertTrue(getAll <= budgets.operationBudget("getAll"));
+        assertEquals(1, deleteById);
+        assertEquals(getById, budgets.operationBudget("getById"));
+    }
+
+    @DisplayName("Requests over their budget should be logged with the call site")
+    @Test
+    @SneakyThrows
+    public void testRequests_whenOverBudget_thenLogCallSite(CapturedOutput output) {
+        // Prepare:
+        var id = userService.save(getValidUser()).getId();
+        var form = objectMapper.writeValueAsString(new UpdateEmailForm(getValidEmail()));
+
+        // Execute:
+        mockMvc.perform(patch("/users/{id}/email", id).contentType(MediaType.APPLICATION_JSON).content(form))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", id)).andExpect(status().isOk());
+
+        // Verify:
+        assertTrue(output.getOut().contains("PATCH /users/" + id + "/email (updateUserEmail) executed"));
+        assertTrue(output.getOut().contains("over its budget of 0"));
+        assertTrue(output.getOut().contains("at com.github.malyshevhen.services.impl.UserServiceImpl.updateEmail"));
+        assertFalse(output.getOut().contains("(getById) executed"));
+
+        userService.deleteById(id);
+    }
+
+    @SneakyThrows
+    private int count(RequestBuilder request) {
+        try (var scope = StatementScope.open("request")) {
+            mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+            return scope.count();
+        }
+    }
+}
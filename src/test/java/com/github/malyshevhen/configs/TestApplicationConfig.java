@@ -1,14 +1,17 @@
 package com.github.malyshevhen.configs;
 
 import lombok.Setter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
 
 import javax.sql.DataSource;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * This class configures a Spring test application context with a user
  * constraint bean.
@@ -38,11 +41,15 @@ public class TestApplicationConfig {
      * Provides a test-specific DataSource for the application.
      */
     @Bean
-    DataSource getDataSource(DatasourceProperties datasourceProperties) {
-        return DataSourceBuilder.create()
-                .url(datasourceProperties.getUrl())
-                .username(datasourceProperties.getUsername())
-                .password(datasourceProperties.getPassword())
-                .build();
+    DataSource getDataSource(DatasourceProperties datasourceProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return ReplicaRoutingDataSource.of(datasourceProperties, meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * Runs the schema migrations with the maintenance connection pool.
+     */
+    @Bean
+    FlywayMigrationStrategy flywayMigrationStrategy() {
+        return flyway -> Workload.MAINTENANCE.run(flyway::migrate);
     }
 }
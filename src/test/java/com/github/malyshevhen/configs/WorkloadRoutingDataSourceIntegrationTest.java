@@ -0,0 +1,60 @@
+package com.github.malyshevhen.configs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class WorkloadRoutingDataSourceIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DisplayName("Connections should be taken from the pool of the current workload")
+    @ParameterizedTest(name = "{index}: {0}")
+    @EnumSource(Workload.class)
+    public void testWorkload_shouldUseOwnPool(Workload workload) {
+        // Execute:
+        var applicationName = workload.call(
+                () -> jdbcTemplate.queryForObject("SELECT current_setting('application_name')", String.class));
+
+        // Verify:
+        assertEquals(workload.name().toLowerCase(), applicationName);
+    }
+
+    @DisplayName("Each pool should publish its saturation metrics")
+    @ParameterizedTest(name = "{index}: {0}")
+    @EnumSource(Workload.class)
+    public void testWorkload_shouldPublishPoolMetrics(Workload workload) {
+        // Prepare:
+        workload.run(() -> jdbcTemplate.execute("SELECT 1"));
+        var pool = workload.name().toLowerCase();
+
+        // Verify:
+        for (var gauge : new String[] { "active", "idle", "pending", "max" }) {
+            assertNotNull(meterRegistry.find("hikaricp.connections." + gauge).tag("pool", pool).gauge(), gauge);
+        }
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer());
+    }
+}
@@ -5,11 +5,17 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import com.github.malyshevhen.domain.models.User;
 import com.github.malyshevhen.exceptions.EntityAlreadyExistsException;
 
 public class ApplicationExceptionHandlerTest {
@@ -28,6 +34,25 @@ public class ApplicationExceptionHandlerTest {
         assertEquals("Custom exception", response.getBody().message());
     }
 
+    @Test
+    @SuppressWarnings("null")
+    public void testHandleConflict() {
+        var ex = new EntityAlreadyExistsException("User with this email already registered", "email");
+        var response = exceptionHandler.handleConflict(ex);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("User with this email already registered", response.getBody().message());
+        assertEquals("email", response.getBody().field());
+    }
+
+    @Test
+    @SuppressWarnings("null")
+    public void testHandleConcurrentUpdate() {
+        var ex = new ObjectOptimisticLockingFailureException(User.class, 1L);
+        var response = exceptionHandler.handleConcurrentUpdate(ex);
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertNotNull(response.getBody().message());
+    }
+
     @Test
     @SuppressWarnings("null")
     public void testHandleBadRequestMethodArgumentNotValidException() {
@@ -48,6 +73,16 @@ public class ApplicationExceptionHandlerTest {
         assertEquals("Invalid argument type", response.getBody().message());
     }
 
+    @Test
+    @SuppressWarnings("null")
+    public void testHandleUnsupportedMediaType() {
+        var ex = new HttpMediaTypeNotSupportedException(MediaType.APPLICATION_JSON, List.of(MediaType.TEXT_PLAIN));
+        var response = exceptionHandler.handleUnsupportedMediaType(ex);
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, response.getStatusCode());
+        assertEquals(List.of(MediaType.TEXT_PLAIN), response.getHeaders().getAccept());
+        assertNotNull(response.getBody().message());
+    }
+
     @Test
     @SuppressWarnings("null")
     public void testHandleServerException() {
@@ -0,0 +1,75 @@
+package com.github.malyshevhen.controllers;
+
+import java.io.IOException;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.malyshevhen.domain.dto.CountedSlice;
+import com.github.malyshevhen.domain.mapper.UserMapper;
+import com.github.malyshevhen.dto.UsersPage;
+import com.github.malyshevhen.testutils.JmhBenchmark;
+
+/**
+ * Compares the formats of the response bodies, JSON, CBOR and Smile, in
+ * payload size and in encoding and decoding throughput of pages of users of
+ * typical sizes.
+ * </p>
+ * Pages are written as the application writes them, with
+ * {@code UsersPageSerializer}, and read as clients read them, with the
+ * generated {@link UsersPage}. The payload sizes are printed when a page is
+ * set up. Run with {@code mvn test -Pjmh -Djmh.benchmarks=PayloadFormatBenchmark}.
+ */
+public class PayloadFormatBenchmark extends JmhBenchmark {
+
+    private static final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    @Param({ "json", "cbor", "smile" })
+    public String format;
+
+    @Param({ "20", "100", "500" })
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private UsersPage page;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(factory(format))
+                .serializers(new UsersPageSerializer())
+                .build();
+        var users = RequestHotPathBenchmark.userInfos(size);
+        page = userMapper.toUsersPage(CountedSlice.estimated(users, PageRequest.of(0, size), true, 10_000));
+        payload = objectMapper.writeValueAsBytes(page);
+        System.out.printf("%s size of a page of %d UserInfo: %d B%n", format, size, payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public UsersPage decode() throws IOException {
+        return objectMapper.readValue(payload, UsersPage.class);
+    }
+
+    private static JsonFactory factory(String format) {
+        return switch (format) {
+            case "json" -> new JsonFactory();
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.malyshevhen.controllers;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Benchmarks requests served by the Tomcat pool of 200 platform threads.
+ */
+@TestPropertySource(properties = {
+        "spring.threads.virtual.enabled=false",
+        "server.tomcat.threads.max=200" })
+class PlatformThreadsBenchmark extends ThreadModelBenchmark {
+}
@@ -0,0 +1,215 @@
+package com.github.malyshevhen.controllers;
+
+import static com.github.malyshevhen.testutils.FakeData.getValidUser;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.bind.ServletRequestDataBinder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.malyshevhen.domain.dto.CountedSlice;
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.mapper.UserMapper;
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.dto.UserInfo;
+import com.github.malyshevhen.dto.UserRegistrationForm;
+import com.github.malyshevhen.dto.UsersPage;
+import com.github.malyshevhen.testutils.FakeData;
+import com.github.malyshevhen.testutils.JmhBenchmark;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * Measures the CPU time and allocations paid on every request besides the
+ * database: mapping between entities and DTOs, JSON serialization of users
+ * and pages, binding and validation of the {@code dateRange} query parameters,
+ * and Bean Validation of users. The compact {@code UsersPage} envelope is
+ * compared with the serialized Spring Data slice it replaced, in payload size
+ * and in throughput with and without its hand-written serializer.
+ * </p>
+ * The collaborators are configured as the application configures them, without
+ * an application context: the object mapper with the defaults of Spring Boot,
+ * the conversion service formatting {@code @DateTimeFormat} parameters, and
+ * the default Bean Validation provider. Run with {@code mvn test -Pjmh}, which
+ * adds the GC profiler, and compare the throughput and
+ * {@code gc.alloc.rate.norm} in {@code target/jmh-result.json} between
+ * releases.
+ */
+public class RequestHotPathBenchmark extends JmhBenchmark {
+
+    private static final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+    private static final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private static final ObjectMapper pageObjectMapper = Jackson2ObjectMapperBuilder.json()
+            .serializers(new UsersPageSerializer())
+            .build();
+
+    private final DefaultFormattingConversionService conversionService = new DefaultFormattingConversionService();
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private SpringValidatorAdapter springValidator;
+
+    private User user;
+    private User invalidUser;
+    private UserInfo userInfo;
+    private UserRegistrationForm registrationForm;
+    private MockHttpServletRequest dateRangeRequest;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        springValidator = new SpringValidatorAdapter(validator);
+
+        user = persisted(getValidUser());
+        invalidUser = getValidUser();
+        invalidUser.setEmail("not an email");
+        userInfo = userMapper.toUserInfo(user);
+        registrationForm = FakeData.getValidUserRegistrationForm();
+
+        dateRangeRequest = new MockHttpServletRequest("GET", "/api/users");
+        dateRangeRequest.setParameter("from", "1990-01-01");
+        dateRangeRequest.setParameter("to", "2000-12-31");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    /**
+     * Pages of users, in the shapes they took and take in responses.
+     */
+    @State(Scope.Benchmark)
+    public static class Pages {
+
+        @Param({ "2", "20" })
+        public int size;
+
+        Slice<UserInfo> slice;
+        Page<UserInfo> page;
+        UsersPage usersPage;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            var users = userInfos(size);
+            var pageable = PageRequest.of(0, size);
+            slice = CountedSlice.estimated(users, pageable, true, 1_000);
+            page = new PageImpl<>(users, pageable, 1_000);
+            usersPage = userMapper.toUsersPage(slice);
+
+            var contentBytes = objectMapper.writeValueAsBytes(users).length;
+            var sliceBytes = objectMapper.writeValueAsBytes(slice).length;
+            var beanBytes = objectMapper.writeValueAsBytes(usersPage).length;
+            var compactBytes = pageObjectMapper.writeValueAsBytes(usersPage).length;
+            System.out.printf("json size of %d UserInfo: slice %d B, page %d B with nulls, page %d B, "
+                    + "envelope %d B instead of %d B%n", size, sliceBytes, beanBytes, compactBytes,
+                    compactBytes - contentBytes, sliceBytes - contentBytes);
+        }
+    }
+
+    @Benchmark
+    public UserInfo mapToUserInfo() {
+        return userMapper.toUserInfo(user);
+    }
+
+    @Benchmark
+    public User mapToUser() {
+        return userMapper.toUser(registrationForm);
+    }
+
+    @Benchmark
+    public byte[] jsonUserInfo() throws IOException {
+        return objectMapper.writeValueAsBytes(userInfo);
+    }
+
+    @Benchmark
+    public byte[] jsonSlice(Pages pages) throws IOException {
+        return objectMapper.writeValueAsBytes(pages.slice);
+    }
+
+    @Benchmark
+    public byte[] jsonPageImpl(Pages pages) throws IOException {
+        return objectMapper.writeValueAsBytes(pages.page);
+    }
+
+    @Benchmark
+    public byte[] jsonUsersPageWithBeanSerializer(Pages pages) throws IOException {
+        return objectMapper.writeValueAsBytes(pages.usersPage);
+    }
+
+    @Benchmark
+    public byte[] jsonUsersPage(Pages pages) throws IOException {
+        return pageObjectMapper.writeValueAsBytes(pages.usersPage);
+    }
+
+    @Benchmark
+    public Object bindDateRange() {
+        var binder = new ServletRequestDataBinder(null, "dateRange");
+        binder.setTargetType(ResolvableType.forClass(DateRange.class));
+        binder.setConversionService(conversionService);
+        binder.setValidator(springValidator);
+        binder.construct(dateRangeRequest);
+        binder.validate();
+        if (binder.getBindingResult().hasErrors()) {
+            throw new IllegalStateException(binder.getBindingResult().toString());
+        }
+        return binder.getTarget();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<User>> validateUser() {
+        return validator.validate(user);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<User>> validateInvalidEmail() {
+        return validator.validate(invalidUser);
+    }
+
+    /**
+     * Completes a new user with the properties set when it is stored.
+     */
+    private static User persisted(User user) {
+        user.setId((long) user.getEmail().hashCode() & Long.MAX_VALUE);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(user.getCreatedAt());
+        user.setVersion(0L);
+        return user;
+    }
+
+    /**
+     * Creates users as returned by the API.
+     */
+    static List<UserInfo> userInfos(int size) {
+        return Stream.generate(FakeData::getValidUser)
+                .limit(size)
+                .map(RequestHotPathBenchmark::persisted)
+                .map(userMapper::toUserInfo)
+                .toList();
+    }
+}
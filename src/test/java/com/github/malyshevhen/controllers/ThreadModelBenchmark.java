@@ -0,0 +1,107 @@
+package com.github.malyshevhen.controllers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.github.malyshevhen.services.UserService;
+import com.github.malyshevhen.testutils.Benchmarks;
+import com.github.malyshevhen.testutils.DatabaseBenchmark;
+import com.github.malyshevhen.testutils.SeededUsers;
+
+/**
+ * Measures the users API served over HTTP under high concurrency, for
+ * comparing the thread models of the subclasses.
+ * </p>
+ * Concurrent clients request users by ID, answered from the cache, and pages
+ * of users, read from the database, in equal shares. The connection pool is
+ * larger than in the other tests, so requests are not only limited by it. Run
+ * with {@code mvn test -Pbenchmark} and compare the summaries of
+ * {@link PlatformThreadsBenchmark} and {@link VirtualThreadsBenchmark}.
+ * </p>
+ * The clients run in the same JVM as the server. On a machine with fewer
+ * cores than the clients and the server keep busy, the latencies measure
+ * queueing for the CPU rather than the thread model, so compare only runs on
+ * several cores, e.g. with the clients and the server pinned to separate ones.
+ */
+@DatabaseBenchmark(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.pools.interactive.maximum-pool-size=20",
+        "spring.datasource.pools.interactive.connection-timeout=60s" })
+abstract class ThreadModelBenchmark {
+
+    private static final int USERS = 100;
+    private static final int CONCURRENCY = 1000;
+    private static final int WARMUPS = 5;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private UserService userService;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    private HttpClient httpClient;
+
+    private SeededUsers users;
+
+    @BeforeEach
+    void setUp() {
+        users = SeededUsers.save(userService, USERS);
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+        users.delete();
+    }
+
+    @DisplayName("Benchmark user and page requests under high concurrency")
+    @Test
+    void benchmarkRequests() {
+        var threadModel = virtualThreads ? "virtual threads" : "platform threads";
+        Benchmarks.measureConcurrently("GET users, " + CONCURRENCY + " clients, " + threadModel, CONCURRENCY,
+                WARMUPS, ITERATIONS, () -> {
+                    var random = ThreadLocalRandom.current();
+                    var path = random.nextBoolean()
+                            ? "/users/" + users.randomId()
+                            : "/users?size=20&page=" + random.nextInt(5);
+                    get(path);
+                });
+    }
+
+    private void get(String path) {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api" + path)).build();
+        try {
+            var response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("GET " + path + " answered " + response.statusCode());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.github.malyshevhen.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.malyshevhen.dto.UpdateEmailForm;
+import com.github.malyshevhen.services.UserService;
+import com.github.malyshevhen.testutils.DatabaseBenchmark;
+import com.github.malyshevhen.testutils.FakeData;
+import com.github.malyshevhen.testutils.LatencyBaseline;
+import com.github.malyshevhen.testutils.LoadGenerator;
+import com.github.malyshevhen.testutils.SeededUsers;
+
+/**
+ * Load test of the users API served over HTTP against a PostgreSQL container,
+ * failing when the latencies regress past the saved baseline.
+ * </p>
+ * The database is seeded with users, then a mix of requests is sent at a fixed
+ * rate: registrations, pages filtered by birth date range, users by ID, email
+ * and address updates, and deletions of users registered during the test.
+ * Reads and updates target the seeded users. After a warm-up at the same rate,
+ * the latencies of every scenario are recorded, printed and written as
+ * HdrHistogram percentile distributions to {@code target/load-test}.
+ * <p>
+ * The load is configured with system properties:
+ * <ul>
+ * <li>{@code loadtest.rate}: requests per second, default 20</li>
+ * <li>{@code loadtest.duration}: measured duration, default 60s</li>
+ * <li>{@code loadtest.warmup}: warm-up duration, default 20s</li>
+ * <li>{@code loadtest.users}: number of seeded users, default 500</li>
+ * <li>{@code loadtest.max-failure-rate}: allowed share of failed requests,
+ * default 0.01</li>
+ * <li>{@code loadtest.baseline}: the baseline file, default
+ * {@code target/load-test/baseline.properties}</li>
+ * <li>{@code loadtest.tolerance}: allowed relative latency increase over the
+ * baseline, default 1.0</li>
+ * <li>{@code loadtest.slack}: allowed absolute latency increase on top of the
+ * relative one, default 100ms, as tail latencies of short runs are noisy</li>
+ * <li>{@code loadtest.save-baseline}: save the latencies as the new baseline
+ * instead of comparing them, default false; a missing baseline is saved
+ * too</li>
+ * </ul>
+ * Run with
+ * {@code mvn test -Pbenchmark -Dtest=UserApiLoadBenchmark -Dloadtest.rate=50}.
+ */
+@DatabaseBenchmark(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UserApiLoadBenchmark {
+
+    private static final Path REPORTS = Path.of("target", "load-test");
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Autowired
+    private UserService userService;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${loadtest.rate:20}")
+    private int rate;
+
+    @Value("${loadtest.duration:60s}")
+    private Duration duration;
+
+    @Value("${loadtest.warmup:20s}")
+    private Duration warmup;
+
+    @Value("${loadtest.users:500}")
+    private int users;
+
+    @Value("${loadtest.max-failure-rate:0.01}")
+    private double maxFailureRate;
+
+    @Value("${loadtest.baseline:target/load-test/baseline.properties}")
+    private Path baseline;
+
+    @Value("${loadtest.tolerance:1.0}")
+    private double tolerance;
+
+    @Value("${loadtest.slack:100ms}")
+    private Duration slack;
+
+    @Value("${loadtest.save-baseline:false}")
+    private boolean saveBaseline;
+
+    private HttpClient httpClient;
+
+    /**
+     * Seeded users, and users registered during the test, deleted by the
+     * delete scenario or after the test.
+     */
+    private SeededUsers seeded;
+
+    @BeforeEach
+    void setUp() {
+        seeded = SeededUsers.save(userService, users);
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+        seeded.delete();
+    }
+
+    @DisplayName("Load test mixed reads and writes against the latency baseline")
+    @Test
+    void loadTest() {
+        // Prepare:
+        var generator = new LoadGenerator()
+                .scenario("getById", 40, () -> send(get("/users/" + seeded.randomId()), 200))
+                .scenario("getAll", 25, () -> send(get(randomPagePath()), 200))
+                .scenario("register", 10, this::register)
+                .scenario("updateEmail", 10, () -> send(patch("/users/" + seeded.randomId() + "/email",
+                        new UpdateEmailForm(FakeData.getValidEmail())), 200))
+                .scenario("updateAddress", 10, () -> send(patch("/users/" + seeded.randomId() + "/address",
+                        FakeData.getValidAddress()), 200))
+                .scenario("delete", 5, this::delete);
+
+        // Execute:
+        generator.run(rate, warmup);
+        var results = generator.run(rate, duration);
+
+        // Verify:
+        results.values().forEach(System.out::println);
+        results.values().forEach(result -> result.writeDistribution(REPORTS.resolve(result.name() + ".hgrm")));
+        assertFailureRate(results);
+
+        var saved = LatencyBaseline.read(baseline);
+        if (saveBaseline || saved.isEmpty()) {
+            LatencyBaseline.save(baseline, results.values());
+            System.out.println("Saved the latency baseline " + baseline.toAbsolutePath());
+            return;
+        }
+        var regressions = saved.regressions(results.values(), tolerance, slack.toNanos() / 1e6);
+        assertTrue(regressions.isEmpty(), () -> "Latencies regressed past the baseline " + baseline + ":\n"
+                + String.join("\n", regressions));
+    }
+
+    private void assertFailureRate(Map<String, LoadGenerator.Result> results) {
+        var calls = results.values().stream()
+                .mapToLong(result -> result.latencies().getTotalCount() + result.failures())
+                .sum();
+        var failures = results.values().stream().mapToLong(LoadGenerator.Result::failures).sum();
+        assertTrue(failures <= maxFailureRate * calls, () -> failures + " of " + calls + " requests failed: "
+                + results.values().stream()
+                        .filter(result -> result.lastFailure() != null)
+                        .map(result -> result.name() + ": " + result.lastFailure().getMessage())
+                        .toList());
+    }
+
+    private void register() {
+        var response = send(post("/users", FakeData.getValidUserRegistrationForm()), 201);
+        try {
+            seeded.registered(objectMapper.readTree(response.body()).get("id").asLong());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void delete() {
+        var id = seeded.pollRegistered();
+        if (id == null) {
+            register();
+            return;
+        }
+        send(HttpRequest.newBuilder(uri("/users/" + id)).DELETE(), 204);
+    }
+
+    private static String randomPagePath() {
+        var random = ThreadLocalRandom.current();
+        var from = LocalDate.of(1950 + random.nextInt(40), 1, 1);
+        var to = from.plusYears(1 + random.nextInt(10));
+        return "/users?size=20&page=" + random.nextInt(3) + "&from=" + from + "&to=" + to;
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, Object body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json(body)));
+    }
+
+    private HttpRequest.Builder patch(String path, Object body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(json(body)));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api" + path);
+    }
+
+    private byte[] json(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request, int expectedStatus) {
+        var built = request.build();
+        try {
+            var response = httpClient.send(built, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != expectedStatus) {
+                throw new IllegalStateException(built.method() + " " + built.uri().getPath() + " answered "
+                        + response.statusCode());
+            }
+            return response;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -1,18 +1,40 @@
 package com.github.malyshevhen.controllers;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.malyshevhen.configs.AsyncRequestConfig;
+import com.github.malyshevhen.configs.MessageConverterConfig;
 import com.github.malyshevhen.dto.Phone;
 import com.github.malyshevhen.dto.UpdateEmailForm;
 import com.github.malyshevhen.dto.UserInfo;
 import com.github.malyshevhen.dto.UserRegistrationForm;
+import com.github.malyshevhen.dto.UsersPage;
 import com.github.malyshevhen.domain.dto.ErrorResponse;
+import com.github.malyshevhen.exceptions.PreconditionFailedException;
 import com.github.malyshevhen.domain.models.Address;
+import com.github.malyshevhen.domain.dto.CollectionVersion;
 import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.KeysetSlice;
+import com.github.malyshevhen.domain.dto.EntityVersion;
+import com.github.malyshevhen.domain.dto.ImportRejection;
+import com.github.malyshevhen.domain.dto.ImportResult;
+import com.github.malyshevhen.domain.dto.CountedSlice;
+import com.github.malyshevhen.domain.dto.PageCursor;
+import com.github.malyshevhen.domain.dto.RegistrationResult;
+import com.github.malyshevhen.domain.dto.StreamFormat;
+import com.github.malyshevhen.domain.dto.TotalsMode;
+import com.github.malyshevhen.domain.dto.VersionedUser;
 import com.github.malyshevhen.domain.models.User;
 import com.github.malyshevhen.domain.mapper.UserMapper;
 import com.github.malyshevhen.domain.mapper.UserMapperImpl;
+import com.github.malyshevhen.services.UserExportService;
+import com.github.malyshevhen.services.UserImportService;
 import com.github.malyshevhen.services.UserService;
+import com.github.malyshevhen.testutils.FakeData;
 import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -28,28 +50,44 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static com.github.malyshevhen.testutils.FakeData.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 @ActiveProfiles("test")
-@Import({ UserMapperImpl.class })
+@Import({ UserMapperImpl.class, AsyncRequestConfig.class, MessageConverterConfig.class })
 @WebMvcTest(UserController.class)
 class UserControllerTest {
 
     private static final String USERS_URL = "/users";
+    private static final long VERSION = 3;
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000);
 
     @Autowired
     private MockMvc mvc;
@@ -63,6 +101,12 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserImportService userImportService;
+
+    @MockBean
+    private UserExportService userExportService;
+
     @Captor
     private ArgumentCaptor<Pageable> pageableCaptor;
 
@@ -72,6 +116,11 @@ class UserControllerTest {
     @Captor
     private ArgumentCaptor<Phone> phoneArgumentCaptor;
 
+    @BeforeEach
+    void setUp() {
+        givenUsersVersion(new CollectionVersion(UPDATED_AT, 2, VERSION));
+    }
+
     @DisplayName("register users should return 201 if required fields is valid")
     @Test
     @SneakyThrows
@@ -108,6 +157,47 @@ class UserControllerTest {
         assertEquals(registerForm.getBirthDate(), createdUser.getBirthDate());
     }
 
+    @DisplayName("register user should read and write binary formats")
+    @ParameterizedTest(name = "{index}: register user as {0}")
+    @MethodSource("binaryFormats")
+    @SneakyThrows
+    void registerUser_inBinaryFormat(String mediaType, JsonFactory factory) {
+        // Given:
+        var mapper = objectMapper.copyWith(factory);
+        var registerForm = getValidUserRegistrationForm();
+
+        var savedUser = userMapper.toUser(registerForm);
+        savedUser.setId(1L);
+        savedUser.setCreatedAt(LocalDateTime.now());
+
+        when(userService.save(any(User.class))).thenReturn(savedUser);
+
+        // Execute:
+        var response = mvc.perform(post(USERS_URL)
+                .contentType(mediaType)
+                .accept(mediaType)
+                .content(mapper.writeValueAsBytes(registerForm)))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(201, response.getStatus());
+        assertEquals(mediaType, response.getContentType());
+
+        var createdUser = mapper.readValue(response.getContentAsByteArray(), UserInfo.class);
+        assertEquals(1L, createdUser.getId());
+        assertEquals(registerForm.getEmail(), createdUser.getEmail());
+        assertEquals(registerForm.getBirthDate(), createdUser.getBirthDate());
+        assertEquals(objectMapper.valueToTree(registerForm.getAddress()),
+                objectMapper.valueToTree(createdUser.getAddress()));
+    }
+
+    private static Stream<Arguments> binaryFormats() {
+        return Stream.of(
+                Arguments.of("application/cbor", new CBORFactory()),
+                Arguments.of("application/x-jackson-smile", new SmileFactory()));
+    }
+
     @DisplayName("register users should return 400 if form is invalid")
     @ParameterizedTest(name = "{index}: register user with email: {0}, firstName: {1}, lastName: {2}")
     @MethodSource
@@ -152,17 +242,175 @@ class UserControllerTest {
                 Arguments.of("valid@email.com", "John", "", LocalDate.now().minusYears(20)));
     }
 
+    @DisplayName("register users batch should return 200 and result of each user")
+    @Test
+    @SneakyThrows
+    void registerUsersBatch() {
+        // Given:
+        var forms = List.of(getValidUserRegistrationForm(), getValidUserRegistrationForm());
+
+        var savedUser = userMapper.toUser(forms.getFirst());
+        savedUser.setId(1L);
+        var results = List.of(
+                RegistrationResult.created(0, savedUser),
+                RegistrationResult.rejected(1, "User with this email already registered"));
+
+        when(userService.saveAll(anyList())).thenReturn(results);
+
+        // Execute:
+        var response = mvc.perform(post(USERS_URL + ":batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(forms)))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+
+        var batchResult = objectMapper.readTree(response.getContentAsString());
+        assertEquals(1, batchResult.get("created").asInt());
+        assertEquals(1, batchResult.get("rejected").asInt());
+        assertEquals("created", batchResult.at("/results/0/status").asText());
+        assertEquals(forms.getFirst().getEmail(), batchResult.at("/results/0/user/email").asText());
+        assertEquals(1, batchResult.at("/results/1/index").asInt());
+        assertEquals("rejected", batchResult.at("/results/1/status").asText());
+        assertEquals("User with this email already registered", batchResult.at("/results/1/error").asText());
+    }
+
+    @DisplayName("register users batch should return 400 if batch is empty, oversized or has invalid form")
+    @ParameterizedTest(name = "{index}: register batch of {0} users")
+    @ValueSource(ints = { 0, 1001, -1 })
+    @SneakyThrows
+    void registerUsersBatchBadRequest(int size) {
+        // Given:
+        var forms = Stream.generate(FakeData::getValidUserRegistrationForm)
+                .limit(Math.abs(size))
+                .toList();
+        if (size < 0) forms.getFirst().setEmail("invalid.email.com");
+
+        // Execute:
+        var response = mvc.perform(post(USERS_URL + ":batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(forms)))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(400, response.getStatus());
+        verify(userService, never()).saveAll(anyList());
+    }
+
+    @DisplayName("import users should return 200 with accepted and rejected lines")
+    @ParameterizedTest(name = "{index}: import {0}")
+    @ValueSource(strings = { "application/x-ndjson", "text/csv" })
+    @SneakyThrows
+    void importUsers(String contentType) {
+        // Given:
+        var result = new ImportResult(1, 1, List.of(new ImportRejection(2, "User with this email already registered")));
+
+        when(userImportService.importUsers(any(), eq(StreamFormat.fromContentType(contentType)))).thenReturn(result);
+
+        // Execute:
+        var response = mvc.perform(post(USERS_URL + ":import")
+                .contentType(contentType)
+                .content("{}\n{}\n"))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+
+        var importResult = objectMapper.readTree(response.getContentAsString());
+        assertEquals(1, importResult.get("accepted").asLong());
+        assertEquals(1, importResult.get("rejected").asLong());
+        assertEquals(2, importResult.at("/rejections/0/line").asLong());
+        assertEquals("User with this email already registered", importResult.at("/rejections/0/error").asText());
+    }
+
+    @DisplayName("import users should return 415 if content type is not supported")
+    @Test
+    @SneakyThrows
+    void importUsersUnsupportedMediaType() {
+        // Execute:
+        var response = mvc.perform(post(USERS_URL + ":import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(415, response.getStatus());
+        verify(userImportService, never()).importUsers(any(), any());
+    }
+
+    @DisplayName("export users should stream users in the accepted format")
+    @ParameterizedTest(name = "{index}: export {0}")
+    @ValueSource(strings = { "application/x-ndjson", "text/csv" })
+    @SneakyThrows
+    void exportUsers(String accept) {
+        // Given:
+        doAnswer(invocation -> {
+            invocation.getArgument(2, OutputStream.class).write("user\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(userExportService).exportUsers(any(), any(), any());
+
+        // Execute:
+        var result = mvc.perform(get(USERS_URL + "/export?from=1990-01-01")
+                .accept(accept))
+                .andReturn();
+        assertTrue(result.getRequest().isAsyncStarted());
+        var response = mvc.perform(asyncDispatch(result))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+        assertEquals(accept, response.getContentType());
+        assertEquals("user\n", response.getContentAsString());
+        verify(userExportService).exportUsers(eq(new DateRange(LocalDate.of(1990, 1, 1), null)),
+                eq(StreamFormat.fromAccept(accept)), any());
+    }
+
+    @DisplayName("export users should time out after the export timeout")
+    @Test
+    @SneakyThrows
+    void exportUsers_Timeout() {
+        // Execute:
+        var result = mvc.perform(get(USERS_URL + "/export"))
+                .andReturn();
+
+        // Verify:
+        assertTrue(result.getRequest().isAsyncStarted());
+        assertEquals(Duration.ofHours(1).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+    }
+
+    @DisplayName("export users should return 400 if date range is invalid")
+    @ParameterizedTest(name = "{index}: export users in date range: {0}")
+    @ValueSource(strings = { "?from=2020-01-01&to=1990-10-10", "?from=2100-01-01", "?from=INVALID&to=INVALID" })
+    @SneakyThrows
+    void exportUsers_BadRequest(String dateRange) {
+        // Execute:
+        var response = mvc.perform(get(USERS_URL + "/export" + dateRange))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(400, response.getStatus());
+        verify(userExportService, never()).exportUsers(any(), any(), any());
+    }
+
     @DisplayName("get all users should return 200 and list of users")
     @Test
     @SneakyThrows
     void getAllUsers() {
         // Given:
-        var user1 = getValidUser();
-        var user2 = getValidUser();
+        var user1 = getValidUserInfo();
+        var user2 = getValidUserInfo();
 
         var userPage = new PageImpl<>(List.of(user1, user2));
 
-        when(userService.getAll(any(Pageable.class), any(DateRange.class))).thenReturn(userPage);
+        when(userService.getUserInfos(any(Pageable.class), any(DateRange.class), eq(TotalsMode.EXACT), anyLong()))
+                .thenReturn(CountedSlice.exact(userPage));
 
         // Execute:
         var response = mvc.perform(get(USERS_URL)
@@ -178,6 +426,90 @@ class UserControllerTest {
 
         // Verify:
         assertNotNull(responseBody);
+
+        var page = objectMapper.readTree(responseBody);
+        assertEquals(2, page.get("content").size());
+        assertEquals(user1.getEmail(), page.get("content").get(0).get("email").asText());
+        assertEquals(0, page.get("page").asInt());
+        assertEquals(2, page.get("size").asInt());
+        assertEquals("exact", page.get("totals").asText());
+        assertEquals(2, page.get("totalElements").asLong());
+        assertFalse(page.has("nextPage"));
+        assertFalse(page.has("next"));
+        assertFalse(page.has("pageable"));
+        verify(userService).getUserInfos(any(Pageable.class), any(DateRange.class), eq(TotalsMode.EXACT), eq(2L));
+    }
+
+    @DisplayName("get all users should write pages in binary formats")
+    @ParameterizedTest(name = "{index}: get page as {0}")
+    @MethodSource("binaryFormats")
+    @SneakyThrows
+    void getAllUsers_inBinaryFormat(String mediaType, JsonFactory factory) {
+        // Given:
+        var mapper = objectMapper.copyWith(factory);
+        var user1 = getValidUserInfo();
+        var user2 = getValidUserInfo();
+
+        when(userService.getUserInfos(any(Pageable.class), any(DateRange.class), eq(TotalsMode.EXACT), anyLong()))
+                .thenReturn(CountedSlice.exact(new PageImpl<>(List.of(user1, user2))));
+
+        // Execute:
+        var response = mvc.perform(get(USERS_URL)
+                .accept(mediaType))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+        assertEquals(mediaType, response.getContentType());
+
+        var page = mapper.readValue(response.getContentAsByteArray(), UsersPage.class);
+        assertEquals(objectMapper.valueToTree(List.of(user1, user2)), objectMapper.valueToTree(page.getContent()));
+        assertEquals(0, page.getPage());
+        assertEquals(2, page.getSize());
+        assertEquals(UsersPage.TotalsEnum.EXACT, page.getTotals());
+        assertEquals(2, page.getTotalElements());
+        assertNull(page.getNextPage());
+    }
+
+    @DisplayName("get all users without totals should return 200 and omit totals")
+    @Test
+    @SneakyThrows
+    void getAllUsers_withoutTotals_omitsTotals() {
+        // Given:
+        var slice = CountedSlice.uncounted(List.of(getValidUserInfo(), getValidUserInfo()), PageRequest.of(0, 2),
+                true);
+
+        when(userService.getUserInfos(any(Pageable.class), any(DateRange.class), eq(TotalsMode.NONE), anyLong()))
+                .thenReturn(slice);
+
+        // Execute:
+        var response = mvc.perform(get(USERS_URL + "?totals=none&size=2")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+
+        var page = objectMapper.readTree(response.getContentAsString());
+        assertEquals("none", page.get("totals").asText());
+        assertFalse(page.has("totalElements"));
+        assertEquals(1, page.get("nextPage").asInt());
+    }
+
+    @DisplayName("get all users with unknown totals mode should return 400")
+    @Test
+    @SneakyThrows
+    void getAllUsers_withUnknownTotals_BadRequest() {
+        // Execute:
+        var response = mvc.perform(get(USERS_URL + "?totals=INVALID")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(400, response.getStatus());
     }
 
     @DisplayName("get all users should return 400 if date range is invalid")
@@ -203,14 +535,15 @@ class UserControllerTest {
     @SneakyThrows
     void getAllUsers_withInvalidPagination_useDefaultPagination(String pagination) {
         // Prepare:
-        var user1 = getValidUser();
-        var user2 = getValidUser();
+        var user1 = getValidUserInfo();
+        var user2 = getValidUserInfo();
 
         var userPage = new PageImpl<>(List.of(user1, user2));
 
         var defaultPageable = PageRequest.of(0, 20);
 
-        when(userService.getAll(eq(defaultPageable), any(DateRange.class))).thenReturn(userPage);
+        when(userService.getUserInfos(eq(defaultPageable), any(DateRange.class), eq(TotalsMode.EXACT), anyLong()))
+                .thenReturn(CountedSlice.exact(userPage));
 
         // Execute:
         var response = mvc.perform(get(USERS_URL + pagination)
@@ -220,21 +553,121 @@ class UserControllerTest {
 
         assertEquals(200, response.getStatus());
 
-        verify(userService).getAll(pageableCaptor.capture(), any());
+        verify(userService).getUserInfos(pageableCaptor.capture(), any(), eq(TotalsMode.EXACT), anyLong());
         var pageable = pageableCaptor.getValue();
 
         assertEquals(20, pageable.getPageSize());
         assertEquals(0, pageable.getPageNumber());
     }
 
+    @DisplayName("get all users with cursor should return 200 and link to the next slice")
+    @Test
+    @SneakyThrows
+    void getAllUsers_withCursor_returnsNextLink() {
+        // Given:
+        var next = new PageCursor(List.of(new PageCursor.Key("id", Sort.Direction.ASC, "2")));
+        var slice = new KeysetSlice<>(List.of(getValidUserInfo(), getValidUserInfo()),
+                PageRequest.of(0, 2, Sort.by("id")), next);
+
+        when(userService.getUserInfos(isNull(), any(Pageable.class), any(DateRange.class))).thenReturn(slice);
+
+        // Execute:
+        var response = mvc.perform(get(USERS_URL + "?after=&size=2")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+
+        var link = response.getHeader(HttpHeaders.LINK);
+        assertNotNull(link);
+        assertTrue(link.endsWith("; rel=\"next\""));
+
+        var token = link.substring(link.indexOf("after=") + "after=".length(), link.indexOf('>')).split("&")[0];
+        var cursor = PageCursor.decode(token);
+        assertEquals("2", cursor.keys().getLast().value());
+
+        var page = objectMapper.readTree(response.getContentAsString());
+        assertEquals(token, page.get("next").asText());
+        assertFalse(page.has("page"));
+        assertFalse(page.has("nextPage"));
+        assertEquals("none", page.get("totals").asText());
+    }
+
+    @DisplayName("get all users with malformed cursor should return 400")
+    @Test
+    @SneakyThrows
+    void getAllUsers_withMalformedCursor_BadRequest() {
+        // Execute:
+        var response = mvc.perform(get(USERS_URL + "?after=INVALID")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(400, response.getStatus());
+    }
+
+    @DisplayName("check email should return 200 if registered and 404 if available")
+    @ParameterizedTest(name = "{index}: registered {0}")
+    @ValueSource(booleans = { true, false })
+    @SneakyThrows
+    void checkEmail(boolean registered) {
+        // Given:
+        when(userService.isEmailRegistered("john@email.com")).thenReturn(registered);
+
+        // Execute:
+        var response = mvc.perform(head(USERS_URL + "/emails/{email}", "john@email.com"))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(registered ? 200 : 404, response.getStatus());
+        assertEquals(0, response.getContentLength());
+    }
+
+    @DisplayName("check email should return 400 if email is invalid")
+    @Test
+    @SneakyThrows
+    void checkEmail_withInvalidEmail_BadRequest() {
+        // Execute:
+        var response = mvc.perform(head(USERS_URL + "/emails/{email}", "not-an-email"))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(400, response.getStatus());
+        verify(userService, never()).isEmailRegistered(any());
+    }
+
+    @DisplayName("head of all users should be served as the page, not as an email check")
+    @Test
+    @SneakyThrows
+    void headAllUsers() {
+        // Given:
+        when(userService.getUserInfos(any(Pageable.class), any(DateRange.class), eq(TotalsMode.EXACT), anyLong()))
+                .thenReturn(CountedSlice.exact(new PageImpl<>(List.of(getValidUserInfo()))));
+
+        // Execute:
+        var response = mvc.perform(head(USERS_URL))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        verify(userService, never()).isEmailRegistered(any());
+    }
+
     @DisplayName("get user by id should return 200 and user info")
     @Test
     @SneakyThrows
     void getUserById() {
         // Given:
-        var user = getValidUser();
+        var user = getStoredUser();
 
-        when(userService.getById(1L)).thenReturn(user);
+        when(userService.getInfoById(1L)).thenReturn(versioned(user));
 
         // Execute:
         var response = mvc.perform(get(USERS_URL + "/1")
@@ -258,6 +691,176 @@ class UserControllerTest {
         assertEquals(user.getBirthDate(), userInfo.getBirthDate());
     }
 
+    @DisplayName("get user by id should return its entity tag and last modification time")
+    @Test
+    @SneakyThrows
+    void getUserById_returnsVersionHeaders() {
+        // Given:
+        when(userService.getInfoById(1L)).thenReturn(versioned(getStoredUser()));
+
+        // Execute:
+        var response = mvc.perform(get(USERS_URL + "/1"))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+        assertEquals(EntityTags.ofUser(1L, VERSION, MediaType.APPLICATION_JSON), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(1, response.getHeaders(HttpHeaders.ETAG).size());
+        assertEquals(EntityTags.toEpochMilli(UPDATED_AT) / 1000 * 1000,
+                response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+        verify(userService, never()).getVersionById(any());
+    }
+
+    @DisplayName("get user by id should return 304 from the version of the user without loading it if it has not changed")
+    @ParameterizedTest(name = "{index}: {0}")
+    @ValueSource(strings = { HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE })
+    @SneakyThrows
+    void getUserById_whenNotModified_NotModified(String header) {
+        // Given:
+        when(userService.getInfoById(1L)).thenReturn(versioned(getStoredUser()));
+        when(userService.getVersionById(1L)).thenReturn(new EntityVersion(VERSION, UPDATED_AT));
+        var request = get(USERS_URL + "/1");
+        if (HttpHeaders.IF_NONE_MATCH.equals(header)) {
+            request.header(header, EntityTags.ofUser(1L, VERSION, MediaType.APPLICATION_JSON));
+        } else {
+            request.header(header, mvc.perform(get(USERS_URL + "/1")).andReturn().getResponse()
+                    .getHeader(HttpHeaders.LAST_MODIFIED));
+        }
+        clearInvocations(userService);
+
+        // Execute:
+        var response = mvc.perform(request)
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(304, response.getStatus());
+        assertEquals("", response.getContentAsString());
+        assertEquals(EntityTags.ofUser(1L, VERSION, MediaType.APPLICATION_JSON), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(1, response.getHeaders(HttpHeaders.ETAG).size());
+        verify(userService, never()).getInfoById(any());
+    }
+
+    @DisplayName("get user by id should return 200 if the user has changed since the entity tag")
+    @Test
+    @SneakyThrows
+    void getUserById_whenModified_returnsUser() {
+        // Given:
+        when(userService.getInfoById(1L)).thenReturn(versioned(getStoredUser()));
+        when(userService.getVersionById(1L)).thenReturn(new EntityVersion(VERSION, UPDATED_AT));
+        var staleTag = EntityTags.ofUser(1L, VERSION - 1, MediaType.APPLICATION_JSON);
+
+        // Execute:
+        var response = mvc.perform(get(USERS_URL + "/1").header(HttpHeaders.IF_NONE_MATCH, staleTag))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+        assertEquals(EntityTags.ofUser(1L, VERSION, MediaType.APPLICATION_JSON), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(1, response.getHeaders(HttpHeaders.ETAG).size());
+        verify(userService).getVersionById(1L);
+    }
+
+    @DisplayName("get user by id should tag the media type the user is written in and vary by Accept")
+    @ParameterizedTest(name = "{index}: {0}")
+    @ValueSource(strings = { "application/json", "application/cbor", "application/x-jackson-smile" })
+    @SneakyThrows
+    void getUserById_tagsMediaType(String mediaType) {
+        // Given:
+        when(userService.getInfoById(1L)).thenReturn(versioned(getStoredUser()));
+        when(userService.getVersionById(1L)).thenReturn(new EntityVersion(VERSION, UPDATED_AT));
+        var jsonTag = EntityTags.ofUser(1L, VERSION, MediaType.APPLICATION_JSON);
+
+        // Execute:
+        var response = mvc.perform(get(USERS_URL + "/1").accept(mediaType).header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(MediaType.APPLICATION_JSON_VALUE.equals(mediaType) ? 304 : 200, response.getStatus());
+        assertEquals(EntityTags.ofUser(1L, VERSION, MediaType.parseMediaType(mediaType)),
+                response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+    }
+
+    @DisplayName("get all users should return 304 with a weak entity tag without loading the page if the users have not changed")
+    @Test
+    @SneakyThrows
+    void getAllUsers_whenNotModified_NotModified() {
+        // Given:
+        var page = CountedSlice.exact(new PageImpl<>(List.of(getValidUserInfo(), getValidUserInfo())));
+        when(userService.getUserInfos(any(Pageable.class), any(DateRange.class), eq(TotalsMode.EXACT), anyLong()))
+                .thenReturn(page);
+        var eTag = mvc.perform(get(USERS_URL)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Execute:
+        var response = mvc.perform(get(USERS_URL).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertNotNull(eTag);
+        assertTrue(eTag.startsWith("W/\""));
+        assertEquals(304, response.getStatus());
+        assertEquals("", response.getContentAsString());
+        assertEquals(eTag, response.getHeader(HttpHeaders.ETAG));
+        assertTrue(response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+        verify(userService, times(1)).getUserInfos(any(Pageable.class), any(DateRange.class), any(TotalsMode.class), anyLong());
+    }
+
+    @DisplayName("get all users in cursor mode should return 200 without an entity tag or a version check")
+    @Test
+    @SneakyThrows
+    void getAllUsers_withCursor_isNotTagged() {
+        // Given:
+        var eTag = EntityTags.ofUsers(new CollectionVersion(UPDATED_AT, 2, VERSION));
+        var slice = new KeysetSlice<>(List.of(getValidUserInfo()), PageRequest.of(0, 2, Sort.by("id")), null);
+        when(userService.getUserInfos(isNull(), any(Pageable.class), any(DateRange.class))).thenReturn(slice);
+
+        // Execute:
+        var response = mvc.perform(get(USERS_URL).param("after", "").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+        assertNull(response.getHeader(HttpHeaders.LINK));
+        verify(userService, never()).readIfModified(any(), any(), any());
+    }
+
+    @DisplayName("get all users should return 200 if the users have changed since the entity tag")
+    @ParameterizedTest
+    @MethodSource("changedVersions")
+    @SneakyThrows
+    void getAllUsers_whenUsersChanged_returnsPage(CollectionVersion changed) {
+        // Given:
+        var user = getValidUserInfo();
+        when(userService.getUserInfos(any(Pageable.class), any(DateRange.class), eq(TotalsMode.EXACT), anyLong()))
+                .thenReturn(CountedSlice.exact(new PageImpl<>(List.of(user, getValidUserInfo()))));
+        var staleTag = mvc.perform(get(USERS_URL)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        givenUsersVersion(changed);
+
+        // Execute:
+        var response = mvc.perform(get(USERS_URL).header(HttpHeaders.IF_NONE_MATCH, staleTag))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+        assertEquals(EntityTags.ofUsers(changed), response.getHeader(HttpHeaders.ETAG));
+        assertNotEquals(staleTag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    static Stream<CollectionVersion> changedVersions() {
+        return Stream.of(
+                new CollectionVersion(UPDATED_AT.plusNanos(1_000), 2, VERSION + 1),
+                new CollectionVersion(UPDATED_AT, 1, VERSION),
+                new CollectionVersion(UPDATED_AT, 2, VERSION + 1));
+    }
+
     @DisplayName("update user by id should return 200 and updated user info")
     @Test
     @SneakyThrows
@@ -267,8 +870,9 @@ class UserControllerTest {
 
         var updatedUser = userMapper.toUser(updateForm);
         updatedUser.setId(1L);
+        updatedUser.setVersion(VERSION);
 
-        when(userService.updateById(anyLong(), any(User.class))).thenReturn(updatedUser);
+        when(userService.updateById(anyLong(), any(User.class), isNull())).thenReturn(updatedUser);
 
         // Execute:
         var response = mvc.perform(put(USERS_URL + "/1")
@@ -291,6 +895,74 @@ class UserControllerTest {
         assertEquals(updatedUser.getBirthDate(), userInfo.getBirthDate());
     }
 
+    @DisplayName("update user by id should pass the version in If-Match and return the new entity tag")
+    @ParameterizedTest(name = "{index}: {0}")
+    @ValueSource(strings = { "application/json", "application/cbor", "application/x-jackson-smile" })
+    @SneakyThrows
+    void updateUserById_withIfMatch_passesVersion(String mediaType) {
+        // Given:
+        var updateForm = getValidUserUpdateForm();
+        var updatedUser = userMapper.toUser(updateForm);
+        updatedUser.setId(1L);
+        updatedUser.setVersion(VERSION + 1);
+
+        when(userService.updateById(eq(1L), any(User.class), eq(VERSION))).thenReturn(updatedUser);
+
+        // Execute:
+        var response = mvc.perform(put(USERS_URL + "/1")
+                .header(HttpHeaders.IF_MATCH, EntityTags.ofUser(1L, VERSION, MediaType.parseMediaType(mediaType)))
+                .accept(mediaType)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateForm)))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+        assertEquals(EntityTags.ofUser(1L, VERSION + 1, MediaType.parseMediaType(mediaType)),
+                response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @DisplayName("update user email should return 412 if If-Match names no version of the user")
+    @ParameterizedTest(name = "{index}: If-Match: {0}")
+    @ValueSource(strings = { "\"2-3\"", "W/\"1-3\"", "\"1-x\"", "\"1-\"", "\"1--json\"" })
+    @SneakyThrows
+    void updateUserEmail_withForeignIfMatch_PreconditionFailed(String ifMatch) {
+        // Execute:
+        var response = mvc.perform(patch(USERS_URL + "/{id}/email", 1L)
+                .header(HttpHeaders.IF_MATCH, ifMatch)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UpdateEmailForm().email(getValidEmail()))))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(412, response.getStatus());
+        verify(userService, never()).updateEmail(anyLong(), any(), any());
+    }
+
+    @DisplayName("update user email should return 412 if the user was changed since the version in If-Match")
+    @Test
+    @SneakyThrows
+    void updateUserEmail_whenVersionIsOutdated_PreconditionFailed() {
+        // Given:
+        when(userService.updateEmail(eq(1L), any(), eq(VERSION - 1)))
+                .thenThrow(new PreconditionFailedException("User with id 1 was modified, its current version is 3"));
+
+        // Execute:
+        var response = mvc.perform(patch(USERS_URL + "/{id}/email", 1L)
+                .header(HttpHeaders.IF_MATCH, EntityTags.ofUser(1L, VERSION - 1, MediaType.APPLICATION_JSON))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UpdateEmailForm().email(getValidEmail()))))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(412, response.getStatus());
+        var errorResponse = objectMapper.readValue(response.getContentAsString(), ErrorResponse.class);
+        assertEquals("User with id 1 was modified, its current version is 3", errorResponse.message());
+    }
+
     @DisplayName("delete user by id should return 204")
     @Test
     @SneakyThrows
@@ -304,6 +976,68 @@ class UserControllerTest {
         assertEquals(204, response.getStatus());
     }
 
+    @DisplayName("delete users by ids should return 200 and the number of deleted users")
+    @Test
+    @SneakyThrows
+    void deleteUsersByIds() {
+        // Given:
+        when(userService.deleteAllById(List.of(1L, 2L))).thenReturn(2L);
+
+        // Execute:
+        var response = mvc.perform(post(USERS_URL + ":delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\": [1, 2]}"))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+        assertEquals(2, objectMapper.readTree(response.getContentAsString()).get("deleted").asLong());
+    }
+
+    @DisplayName("delete users by filter should pass the creation time in the local time zone")
+    @Test
+    @SneakyThrows
+    void deleteUsersByFilter() {
+        // Given:
+        var dateRange = new DateRange(LocalDate.of(1990, 1, 1), null);
+        var createdBefore = OffsetDateTime.parse("2020-01-01T00:00:00Z");
+        var localCreatedBefore = createdBefore.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        when(userService.deleteAll(dateRange, localCreatedBefore)).thenReturn(5L);
+
+        // Execute:
+        var response = mvc.perform(post(USERS_URL + ":delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"dateRange\": {\"from\": \"1990-01-01\"}, \"createdBefore\": \"2020-01-01T00:00:00Z\"}"))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(200, response.getStatus());
+        assertEquals(5, objectMapper.readTree(response.getContentAsString()).get("deleted").asLong());
+    }
+
+    @DisplayName("delete users by ids and filter or by empty ids should return 400")
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"ids\": [1], \"createdBefore\": \"2020-01-01T00:00:00Z\"}",
+            "{\"ids\": []}"
+    })
+    @SneakyThrows
+    void deleteUsersBadRequest(String body) {
+        // Execute:
+        var response = mvc.perform(post(USERS_URL + ":delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andReturn()
+                .getResponse();
+
+        // Verify:
+        assertEquals(400, response.getStatus());
+        verify(userService, never()).deleteAllById(any());
+        verify(userService, never()).deleteAll(any(), any());
+    }
+
     @DisplayName("update user email should return 200 and updated user info")
     @Test
     @SneakyThrows
@@ -315,8 +1049,9 @@ class UserControllerTest {
 
         var updatedUser = getValidUser();
         updatedUser.setEmail(email);
+        updatedUser.setVersion(VERSION);
 
-        when(userService.updateEmail(id, email)).thenReturn(updatedUser);
+        when(userService.updateEmail(id, email, null)).thenReturn(updatedUser);
 
         // Execute:
         var response = mvc.perform(patch(USERS_URL + "/{id}/email", id)
@@ -382,9 +1117,10 @@ class UserControllerTest {
         // Given:
         var id = 1L;
         var updatedUser = getValidUser();
+        updatedUser.setVersion(VERSION);
         var address = updatedUser.getAddress();
 
-        when(userService.updateAddress(anyLong(), any(Address.class))).thenReturn(updatedUser);
+        when(userService.updateAddress(anyLong(), any(Address.class), isNull())).thenReturn(updatedUser);
 
         // Execute:
         var response = mvc.perform(patch(USERS_URL + "/{id}/address", id)
@@ -410,7 +1146,7 @@ class UserControllerTest {
         assertEquals(address.getCountry(), userInfo.getAddress().getCountry());
         assertEquals(address.getNumber(), userInfo.getAddress().getNumber());
 
-        verify(userService).updateAddress(anyLong(), addressCaptor.capture());
+        verify(userService).updateAddress(anyLong(), addressCaptor.capture(), isNull());
         var capturedAddress = addressCaptor.getValue();
 
         assertEquals(address.getCity(), capturedAddress.getCity());
@@ -445,8 +1181,9 @@ class UserControllerTest {
         var phone = "123456789";
         var updatePhoneForm = new Phone().phone(phone);
         var updatedUser = getValidUser();
+        updatedUser.setVersion(VERSION);
 
-        when(userService.updatePhone(id, updatePhoneForm)).thenReturn(updatedUser);
+        when(userService.updatePhone(id, updatePhoneForm, null)).thenReturn(updatedUser);
 
         // Execute:
         var response = mvc.perform(patch(USERS_URL + "/{id}/phone", id)
@@ -468,7 +1205,7 @@ class UserControllerTest {
         assertEquals(updatedUser.getLastName(), userInfo.getLastName());
         assertEquals(updatedUser.getBirthDate(), userInfo.getBirthDate());
 
-        verify(userService).updatePhone(anyLong(), phoneArgumentCaptor.capture());
+        verify(userService).updatePhone(anyLong(), phoneArgumentCaptor.capture(), isNull());
         var capturedUpdatePhone = phoneArgumentCaptor.getValue();
 
         assertEquals(phone, capturedUpdatePhone.getPhone());
@@ -491,4 +1228,36 @@ class UserControllerTest {
         assertEquals(400, response.getStatus());
     }
 
-}
\ No newline at end of file
+
+    /**
+     * Returns a user as it is stored, with the version and update time
+     * served in its entity tag and last modification time.
+     */
+    private static User getStoredUser() {
+        var user = getValidUser();
+        user.setId(1L);
+        user.setVersion(VERSION);
+        user.setUpdatedAt(UPDATED_AT);
+        return user;
+    }
+
+    /**
+     * Returns the information of the user with its version, as cached.
+     */
+    private VersionedUser versioned(User user) {
+        return new VersionedUser(userMapper.toUserInfo(user), new EntityVersion(user.getVersion(), user.getUpdatedAt()));
+    }
+
+    /**
+     * Answers the conditional reads of users as the service does, with the
+     * given version of the users.
+     */
+    @SuppressWarnings("unchecked")
+    private void givenUsersVersion(CollectionVersion version) {
+        doAnswer(invocation -> {
+            var notModified = (Predicate<CollectionVersion>) invocation.getArgument(1);
+            var read = (Function<CollectionVersion, Object>) invocation.getArgument(2);
+            return notModified.test(version) ? Optional.empty() : Optional.of(read.apply(version));
+        }).when(userService).readIfModified(any(), any(), any());
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.malyshevhen.controllers;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Benchmarks requests served by a virtual thread each.
+ */
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsBenchmark extends ThreadModelBenchmark {
+}
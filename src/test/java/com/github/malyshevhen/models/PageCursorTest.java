@@ -0,0 +1,34 @@
+package com.github.malyshevhen.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.Sort;
+
+import com.github.malyshevhen.domain.dto.PageCursor;
+
+class PageCursorTest {
+
+    @Test
+    void shouldDecodeEncodedCursor() {
+        var cursor = new PageCursor(List.of(
+                new PageCursor.Key("birthDate", Sort.Direction.DESC, "1990-01-01"),
+                new PageCursor.Key("id", Sort.Direction.DESC, "42")));
+
+        var decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        assertEquals(Sort.by(Sort.Order.desc("birthDate"), Sort.Order.desc("id")), decoded.toSort());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "not base64!", "aWQ9NDI", "K2lk" })
+    void shouldRejectMalformedCursor(String token) {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(token));
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.malyshevhen.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.github.malyshevhen.domain.dto.StreamFormat;
+
+class StreamFormatTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "application/x-ndjson; charset=UTF-8 | NDJSON",
+            "text/csv | CSV",
+            "TEXT/CSV;charset=ISO-8859-1 | CSV" })
+    void shouldResolveFormatByContentType(String contentType, StreamFormat format) {
+        assertEquals(format, StreamFormat.fromContentType(contentType));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "application/json", "text/plain" })
+    void shouldRejectUnsupportedContentType(String contentType) {
+        assertThrows(IllegalArgumentException.class, () -> StreamFormat.fromContentType(contentType));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+            "null | NDJSON",
+            "*/* | NDJSON",
+            "text/* | CSV",
+            "application/json | NDJSON",
+            "application/x-ndjson;q=0.5, text/csv | CSV",
+            "application/x-ndjson, text/csv;q=0.5 | NDJSON" })
+    void shouldResolveFormatByAccept(String accept, StreamFormat format) {
+        assertEquals(format, StreamFormat.fromAccept(accept));
+    }
+}
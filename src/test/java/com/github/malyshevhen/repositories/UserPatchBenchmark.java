@@ -0,0 +1,82 @@
+package com.github.malyshevhen.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.malyshevhen.services.UserService;
+import com.github.malyshevhen.testutils.Benchmarks;
+import com.github.malyshevhen.testutils.DatabaseBenchmark;
+import com.github.malyshevhen.testutils.SeededUsers;
+
+/**
+ * Compares updating a field of a user by loading the entity and letting
+ * Hibernate flush the dirty field with the single {@code UPDATE ... RETURNING}
+ * statements of {@link UserPatchRepository}.
+ * </p>
+ * Every update runs in its own transaction, as a PATCH request does. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@DatabaseBenchmark
+public class UserPatchBenchmark {
+
+    private static final int WARMUPS = 500;
+    private static final int ITERATIONS = 5_000;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicLong phones = new AtomicLong();
+
+    private SeededUsers users;
+
+    private Long id;
+
+    @BeforeEach
+    void setUp() {
+        users = SeededUsers.save(userService, 1);
+        id = users.ids().getFirst();
+    }
+
+    @AfterEach
+    void tearDown() {
+        users.delete();
+    }
+
+    @DisplayName("Benchmark phone updates by dirty checking and by UPDATE ... RETURNING")
+    @Test
+    void benchmarkUpdatePhone() {
+        // Execute:
+        var dirtyChecking = Benchmarks.measure("phone: find + dirty checking", WARMUPS, ITERATIONS,
+                () -> transactionTemplate.executeWithoutResult(status -> {
+                    var user = userRepository.findById(id).orElseThrow();
+                    user.setPhone(nextPhone());
+                }));
+        var updateReturning = Benchmarks.measure("phone: UPDATE ... RETURNING", WARMUPS, ITERATIONS,
+                () -> transactionTemplate.executeWithoutResult(status -> userRepository
+                        .updatePhone(id, nextPhone(), null).orElseThrow()));
+
+        // Verify:
+        var user = userRepository.findById(id).orElseThrow();
+        assertEquals(2L * (WARMUPS + ITERATIONS), user.getVersion());
+        System.out.printf("UPDATE ... RETURNING speedup: %.2fx%n",
+                updateReturning.throughput() / dirtyChecking.throughput());
+    }
+
+    private String nextPhone() {
+        return "+38050" + phones.incrementAndGet();
+    }
+}
@@ -0,0 +1,253 @@
+package com.github.malyshevhen.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.malyshevhen.configs.StatementScope;
+import com.github.malyshevhen.configs.TestApplicationConfig;
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.PageCursor;
+import com.github.malyshevhen.domain.dto.TotalsMode;
+import com.github.malyshevhen.exceptions.EntityNotFoundException;
+import com.github.malyshevhen.services.UserService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
+/**
+ * Query plan regression tests for the user read queries.
+ * </p>
+ * The SQL of the queries is recorded by a {@link StatementScope}, prepared and
+ * explained as a generic plan, i.e. independently of the parameter values and
+ * the table contents, with sequential and bitmap scans disabled. If an index
+ * can serve the filter and the order of a query, the plan is a plain index
+ * scan. A sequential scan,
+ * a sort or a de-duplication node in the plan means that the query is no longer
+ * backed by an index.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@Transactional
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class UserQueryPlanTest {
+
+    private static final Set<String> FORBIDDEN_NODES = Set.of("Seq Scan", "Sort", "Incremental Sort", "Unique");
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+    private static final DateRange DATE_RANGE = new DateRange(LocalDate.of(1980, 1, 1), LocalDate.of(1990, 1, 1));
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DisplayName("Offset listing filtered by birth date should be served by an index")
+    @ParameterizedTest(name = "{index}: totals {0}, {1}")
+    @MethodSource
+    public void testOffsetListingInRange_shouldUseIndex(TotalsMode totals, Sort.Direction direction) {
+        // Execute:
+        var statements = recordStatements(() -> userService.getUserInfos(PageRequest.of(3, 20,
+                Sort.by(direction, "birthDate")), DATE_RANGE, totals));
+
+        // Verify:
+        assertIndexBackedPlans(statements);
+    }
+
+    private static Stream<Arguments> testOffsetListingInRange_shouldUseIndex() {
+        return Stream.of(
+            Arguments.of(TotalsMode.EXACT, Sort.Direction.ASC),
+            Arguments.of(TotalsMode.ESTIMATED, Sort.Direction.ASC),
+            Arguments.of(TotalsMode.NONE, Sort.Direction.DESC)
+        );
+    }
+
+    @DisplayName("Version of the users should be read from an index")
+    @ParameterizedTest(name = "{index}: range {0}")
+    @MethodSource
+    public void testVersion_shouldUseIndex(DateRange dateRange) {
+        // Execute:
+        var statements = recordStatements(() -> userService.readIfModified(dateRange, version -> true,
+                version -> fail("Users were read")));
+
+        // Verify:
+        assertIndexBackedPlans(statements);
+    }
+
+    private static Stream<Arguments> testVersion_shouldUseIndex() {
+        return Stream.of(Arguments.of((Object) null), Arguments.of(DATE_RANGE));
+    }
+
+    @DisplayName("User information by id should be read by the primary key on a cache miss")
+    @Test
+    public void testInfoById_shouldUseIndex() {
+        // Execute:
+        var statements = recordStatements(
+                () -> assertThrows(EntityNotFoundException.class, () -> userService.getInfoById(-1L)));
+
+        // Verify:
+        assertIndexBackedPlans(statements);
+    }
+
+    @DisplayName("Keyset listing by birth date should be served by an index")
+    @Test
+    public void testKeysetListingByBirthDate_shouldUseIndex() {
+        // Prepare:
+        var sort = Sort.by("birthDate");
+        var cursor = new PageCursor(List.of(new PageCursor.Key("birthDate", Sort.Direction.ASC, "1985-06-01"),
+                new PageCursor.Key("id", Sort.Direction.ASC, "42")));
+
+        // Execute:
+        var statements = recordStatements(() -> {
+            userService.getUserInfos(null, PageRequest.of(0, 20, sort), DATE_RANGE);
+            userService.getUserInfos(cursor, PageRequest.of(0, 20), DATE_RANGE);
+        });
+
+        // Verify:
+        assertIndexBackedPlans(statements);
+    }
+
+    @DisplayName("Keyset listing by birth date descending should be served by an index")
+    @Test
+    public void testKeysetListingByBirthDateDescending_shouldUseIndex() {
+        // Prepare:
+        var sort = Sort.by(Sort.Direction.DESC, "birthDate");
+        var cursor = new PageCursor(List.of(new PageCursor.Key("birthDate", Sort.Direction.DESC, "1985-06-01"),
+                new PageCursor.Key("id", Sort.Direction.DESC, "42")));
+
+        // Execute:
+        var statements = recordStatements(() -> {
+            userService.getUserInfos(null, PageRequest.of(0, 20, sort), DATE_RANGE);
+            userService.getUserInfos(cursor, PageRequest.of(0, 20), DATE_RANGE);
+        });
+
+        // Verify:
+        assertIndexBackedPlans(statements);
+    }
+
+    @DisplayName("Keyset listing by creation time should be served by an index")
+    @Test
+    public void testKeysetListingByCreatedAt_shouldUseIndex() {
+        // Prepare:
+        var sort = Sort.by(Sort.Direction.DESC, "createdAt");
+        var cursor = new PageCursor(List.of(new PageCursor.Key("createdAt", Sort.Direction.DESC, "2024-01-01T12:00"),
+                new PageCursor.Key("id", Sort.Direction.DESC, "42")));
+
+        // Execute:
+        var statements = recordStatements(() -> userService.getUserInfos(cursor, PageRequest.of(0, 20, sort), null));
+
+        // Verify:
+        assertIndexBackedPlans(statements);
+    }
+
+    @DisplayName("Keyset listing by id should be served by the primary key")
+    @Test
+    public void testKeysetListingById_shouldUseIndex() {
+        // Prepare:
+        var cursor = new PageCursor(List.of(new PageCursor.Key("id", Sort.Direction.ASC, "42")));
+
+        // Execute:
+        var statements = recordStatements(() -> userService.getUserInfos(cursor, PageRequest.of(0, 20), null));
+
+        // Verify:
+        assertIndexBackedPlans(statements);
+    }
+
+    /**
+     * Records the statements of the calls, including those executed with plain
+     * JDBC that Hibernate does not see.
+     */
+    private static List<String> recordStatements(Runnable calls) {
+        try (var scope = StatementScope.recording("plan")) {
+            calls.run();
+            return scope.statements();
+        }
+    }
+
+    /**
+     * Asserts the plans of the queries. The statements reading estimates from
+     * the planner are plans themselves and are skipped.
+     */
+    private void assertIndexBackedPlans(List<String> statements) {
+        assertFalse(statements.isEmpty());
+        for (var sql : statements) {
+            if (sql.startsWith("EXPLAIN")) continue;
+
+            var nodes = new ArrayList<String>();
+            collectNodeTypes(explain(sql).path(0).path("Plan"), nodes);
+
+            assertTrue(nodes.stream().noneMatch(FORBIDDEN_NODES::contains),
+                    () -> String.format("Unexpected plan %s for query: %s", nodes, sql));
+        }
+    }
+
+    private JsonNode explain(String sql) {
+        var matcher = PARAMETER.matcher(sql);
+        var numbered = new StringBuilder();
+        var parameters = new ArrayList<String>();
+        while (matcher.find()) {
+            parameters.add("NULL");
+            matcher.appendReplacement(numbered, Matcher.quoteReplacement("$" + parameters.size()));
+        }
+        matcher.appendTail(numbered);
+
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (var statement = connection.createStatement()) {
+                statement.execute("SET LOCAL enable_seqscan = off");
+                statement.execute("SET LOCAL enable_bitmapscan = off");
+                statement.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+                statement.execute("PREPARE plan_check AS " + numbered);
+                try (var resultSet = statement.executeQuery("EXPLAIN (FORMAT JSON) EXECUTE plan_check"
+                        + (parameters.isEmpty() ? "" : "(" + String.join(", ", parameters) + ")"))) {
+                    resultSet.next();
+                    return objectMapper.readTree(resultSet.getString(1));
+                } catch (JsonProcessingException ex) {
+                    throw new IllegalStateException("Unable to read the plan of query: " + sql, ex);
+                } finally {
+                    statement.execute("DEALLOCATE plan_check");
+                }
+            }
+        });
+    }
+
+    private static void collectNodeTypes(JsonNode plan, List<String> nodes) {
+        nodes.add(plan.path("Node Type").asText());
+        for (var child : plan.path("Plans")) {
+            collectNodeTypes(child, nodes);
+        }
+    }
+}
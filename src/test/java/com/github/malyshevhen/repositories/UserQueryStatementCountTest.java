@@ -0,0 +1,212 @@
+package com.github.malyshevhen.repositories;
+
+import static com.github.malyshevhen.testutils.FakeData.getValidUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.github.malyshevhen.configs.StatementScope;
+import com.github.malyshevhen.configs.TestApplicationConfig;
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.TotalsMode;
+import com.github.malyshevhen.dto.UserInfo;
+import com.github.malyshevhen.services.UserService;
+import com.github.malyshevhen.testutils.FakeData;
+import com.github.malyshevhen.testutils.SqlStatementCaptor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+
+/**
+ * Statement count tests for the user read paths.
+ * </p>
+ * Users are returned together with their addresses, so the number of
+ * statements executed to load a page and read the addresses of its users must
+ * not depend on the page size. Pages are read with plain JDBC, so statements
+ * are counted by a {@link StatementScope}; the SQL prepared by Hibernate is
+ * captured for the writes. Batch registrations are inserted in JDBC
+ * batches, so a single insert statement per table is prepared and reused for
+ * all users of the batch. A registration is a single insert, the uniqueness
+ * of the email is left to the database. Versions of users are read without
+ * loading them.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.github.malyshevhen.testutils.SqlStatementCaptor" })
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@Transactional
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class UserQueryStatementCountTest {
+
+    private static final int USERS_COUNT = 20;
+    private static final DateRange DATE_RANGE = new DateRange(LocalDate.of(1900, 1, 1), LocalDate.now());
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        ids = Stream.generate(FakeData::getValidUser)
+                .limit(USERS_COUNT)
+                .map(user -> userService.save(user).getId())
+                .toList();
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.createNativeQuery("ANALYZE users").executeUpdate();
+    }
+
+    @DisplayName("Page of user information should be loaded with a constant number of statements")
+    @ParameterizedTest(name = "{index}: totals {0}, page size {1}")
+    @MethodSource
+    public void testGetUserInfos_shouldExecuteConstantStatements(TotalsMode totals, int size, int expected) {
+        // Execute:
+        var statements = countStatements(() -> userService.getUserInfos(PageRequest.of(1, size,
+                Sort.by("birthDate")), null, totals));
+
+        // Verify:
+        assertEquals(expected, statements);
+    }
+
+    private static Stream<Arguments> testGetUserInfos_shouldExecuteConstantStatements() {
+        return Stream.of(2, 5, 10).flatMap(size -> Stream.of(
+            Arguments.of(TotalsMode.NONE, size, 1),
+            Arguments.of(TotalsMode.ESTIMATED, size, 2),
+            Arguments.of(TotalsMode.EXACT, size, 2)
+        ));
+    }
+
+    @DisplayName("Keyset slice should be loaded with a single query")
+    @ParameterizedTest(name = "{index}: page size {0}")
+    @ValueSource(ints = { 2, 5, 10 })
+    public void testGetUserInfosAfterCursor_shouldExecuteConstantStatements(int size) {
+        // Execute:
+        var statements = countStatements(() -> userService.getUserInfos(null, PageRequest.of(0, size), null));
+
+        // Verify:
+        assertEquals(1, statements);
+    }
+
+    @DisplayName("Version of the users should be read with a single query without reading them")
+    @ParameterizedTest(name = "{index}: range {0}")
+    @MethodSource
+    public void testReadIfModified_whenNotModified_shouldExecuteSingleStatement(DateRange dateRange) {
+        try (var scope = StatementScope.open("readIfModified")) {
+            // Execute:
+            var users = userService.readIfModified(dateRange, version -> true, version -> fail("Users were read"));
+
+            // Verify:
+            assertTrue(users.isEmpty());
+            assertEquals(1, scope.count());
+        }
+    }
+
+    private static Stream<Arguments> testReadIfModified_whenNotModified_shouldExecuteSingleStatement() {
+        return Stream.of(Arguments.of((Object) null), Arguments.of(DATE_RANGE));
+    }
+
+    @DisplayName("User information by id should be loaded with a single query on a cache miss")
+    @ParameterizedTest(name = "{index}: user {0}")
+    @ValueSource(ints = { 0, 5, 11 })
+    public void testGetInfoById_whenNotCached_shouldExecuteSingleStatement(int index) {
+        try (var scope = StatementScope.open("getInfoById")) {
+            // Execute:
+            var user = userService.getInfoById(ids.get(index));
+            assertNotNull(user.user().getAddress().getCity());
+
+            // Verify:
+            assertEquals(1, scope.count());
+        }
+    }
+
+    @DisplayName("Version of a user should be read with a single query without loading the user")
+    @Test
+    public void testVersion_shouldExecuteSingleStatement() {
+        // Prepare:
+        SqlStatementCaptor.clear();
+
+        // Execute:
+        assertNotNull(userService.getVersionById(ids.getFirst()));
+
+        // Verify:
+        var statements = SqlStatementCaptor.statements();
+        assertEquals(1, statements.size());
+        assertTrue(statements.stream().noneMatch(sql -> sql.contains("addresses")));
+    }
+
+    @DisplayName("Batch registration should prepare one batched insert per table")
+    @ParameterizedTest(name = "{index}: batch of {0} users")
+    @ValueSource(ints = { 10, 120 })
+    public void testSaveAll_shouldBatchInserts(int size) {
+        // Prepare:
+        var users = Stream.generate(FakeData::getValidUser).limit(size).toList();
+        SqlStatementCaptor.clear();
+
+        // Execute:
+        userService.saveAll(users);
+
+        // Verify:
+        var inserts = SqlStatementCaptor.statements().stream()
+                .filter(sql -> sql.startsWith("insert"))
+                .count();
+        assertEquals(2, inserts);
+    }
+
+    @DisplayName("Registration should insert without checking the email first")
+    @Test
+    public void testSave_shouldNotQueryUsers() {
+        // Prepare:
+        var user = getValidUser();
+        SqlStatementCaptor.clear();
+
+        // Execute:
+        userService.save(user);
+
+        // Verify:
+        var statements = SqlStatementCaptor.statements();
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("insert into users")).count());
+        assertTrue(statements.stream().noneMatch(sql -> sql.startsWith("select") && sql.contains(" from users")),
+                () -> "Unexpected query: " + statements);
+    }
+
+    private static int countStatements(Supplier<? extends Slice<UserInfo>> query) {
+        try (var scope = StatementScope.open("read")) {
+            var users = query.get();
+            assertEquals(users.getSize(), users.getNumberOfElements());
+            users.forEach(user -> assertNotNull(user.getAddress().getCity()));
+
+            return scope.count();
+        }
+    }
+}
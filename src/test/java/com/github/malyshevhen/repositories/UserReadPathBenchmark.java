@@ -0,0 +1,112 @@
+package com.github.malyshevhen.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.malyshevhen.domain.dto.TotalsMode;
+import com.github.malyshevhen.domain.mapper.UserMapper;
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.dto.UserInfo;
+import com.github.malyshevhen.services.UserService;
+import com.github.malyshevhen.testutils.Benchmarks;
+import com.github.malyshevhen.testutils.DatabaseBenchmark;
+import com.github.malyshevhen.testutils.SeededUsers;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Compares reading pages of users as entities mapped to {@code UserInfo} with
+ * reading them straight into {@code UserInfo} by {@link UserInfoRepository}.
+ * </p>
+ * The entities are read with their addresses by a query of the benchmark, one
+ * row more than the page as {@link UserInfoRepository} does, since the
+ * service no longer reads pages as entities.
+ * <p>
+ * Both reads run in a read-only transaction, as a {@code GET /users} request
+ * does, and return the same users. The summaries include the bytes allocated
+ * per page. Run with {@code mvn test -Pbenchmark}.
+ */
+@DatabaseBenchmark
+public class UserReadPathBenchmark {
+
+    private static final int USERS = 500;
+    private static final int WARMUPS = 500;
+    private static final int ITERATIONS = 3_000;
+    private static final String ENTITY_PAGE =
+            "select u from User u left join fetch u.address order by u.birthDate, u.id";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private TransactionTemplate readOnly;
+
+    private SeededUsers users;
+
+    @BeforeEach
+    void setUp() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        users = SeededUsers.save(userService, USERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        users.delete();
+    }
+
+    @DisplayName("Benchmark pages of users read as entities and read with JdbcClient")
+    @Test
+    void benchmarkReadPage() {
+        for (var size : new int[] { 20, 100 }) {
+            var pageable = PageRequest.of(2, size, Sort.by("birthDate", "id"));
+            var warmups = WARMUPS * 20 / size;
+            var iterations = ITERATIONS * 20 / size;
+
+            // Execute:
+            var entities = Benchmarks.measure("read: page of " + size + " entities + mapping", warmups, iterations,
+                    () -> readOnly.execute(status -> readEntities(pageable)));
+            var userInfos = Benchmarks.measure("read: page of " + size + " UserInfo with JdbcClient", warmups,
+                    iterations, () -> readOnly.execute(status -> userService
+                            .getUserInfos(pageable, null, TotalsMode.NONE)));
+
+            // Verify:
+            List<UserInfo> expected = readOnly.execute(status -> readEntities(pageable));
+            List<UserInfo> actual = readOnly.execute(status -> userService
+                    .getUserInfos(pageable, null, TotalsMode.NONE).getContent());
+            assertEquals(expected, actual);
+            System.out.printf("page of %d users: %.0f B instead of %.0f B allocated, p50 %d us instead of %d us, "
+                    + "speedup %.2fx%n", size, userInfos.bytesPerOp(), entities.bytesPerOp(),
+                    userInfos.p50Nanos() / 1_000, entities.p50Nanos() / 1_000,
+                    userInfos.throughput() / entities.throughput());
+        }
+    }
+
+    private List<UserInfo> readEntities(Pageable pageable) {
+        var page = entityManager.createQuery(ENTITY_PAGE, User.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        return page.stream().limit(pageable.getPageSize()).map(userMapper::toUserInfo).toList();
+    }
+}
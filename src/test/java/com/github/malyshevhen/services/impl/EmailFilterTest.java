@@ -0,0 +1,133 @@
+package com.github.malyshevhen.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.github.malyshevhen.repositories.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailFilterTest {
+
+    private static final String EMAIL = "john@email.com";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailFilter emailFilter;
+
+    @BeforeEach
+    void setUp() {
+        emailFilter = new EmailFilter(userRepository, transactionManager, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            completeTransaction();
+        }
+    }
+
+    @DisplayName("Load should wait for the transactions writing emails before reading the users table")
+    @Test
+    public void testLoad_whenEmailWrittenBeforeLoad_thenReadUsersAfterTransactionCompletes() throws Exception {
+        // Given:
+        when(userRepository.streamEmails()).thenAnswer(invocation -> Stream.of(EMAIL));
+        TransactionSynchronizationManager.initSynchronization();
+        emailFilter.add(EMAIL);
+
+        // Execute:
+        var load = CompletableFuture.runAsync(emailFilter::load);
+
+        // Verify:
+        verify(userRepository, after(200).never()).streamEmails();
+        assertFalse(load.isDone());
+
+        completeTransaction();
+        load.get(5, TimeUnit.SECONDS);
+        verify(userRepository).streamEmails();
+        assertTrue(emailFilter.isRegistered(EMAIL, email -> true));
+    }
+
+    @DisplayName("Emails added while the users table is read should be in the loaded filter")
+    @Test
+    public void testLoad_whenEmailAddedWhileReading_thenContainEmail() {
+        // Given:
+        when(userRepository.streamEmails()).thenAnswer(invocation -> {
+            emailFilter.add(EMAIL);
+            return Stream.empty();
+        });
+
+        // Execute:
+        emailFilter.load();
+
+        // Verify:
+        assertTrue(emailFilter.isRegistered(EMAIL, email -> true));
+        assertFalse(emailFilter.isRegistered("other@email.com", email -> true));
+    }
+
+    @DisplayName("Load should not wait for transactions that wrote no emails")
+    @Test
+    public void testLoad_whenTransactionWroteNoEmails_thenReadUsers() {
+        // Given:
+        when(userRepository.streamEmails()).thenAnswer(invocation -> Stream.of(EMAIL));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Execute:
+        emailFilter.load();
+
+        // Verify:
+        verify(userRepository).streamEmails();
+    }
+
+    @DisplayName("Removals should be counted towards a reload only once their transaction commits")
+    @Test
+    public void testRemove_whenInTransaction_thenCountAfterCommit() {
+        // Given:
+        when(userRepository.streamEmails()).thenAnswer(invocation -> Stream.of(EMAIL));
+        emailFilter.load();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Execute:
+        emailFilter.remove(EMAIL);
+
+        // Verify:
+        verify(userRepository, after(100).times(1)).streamEmails();
+
+        completeTransaction();
+        verify(userRepository, timeout(5_000).times(2)).streamEmails();
+    }
+
+    private static void completeTransaction() {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                TransactionSynchronization.STATUS_COMMITTED);
+    }
+}
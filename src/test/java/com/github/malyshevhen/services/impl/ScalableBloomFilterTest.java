@@ -0,0 +1,58 @@
+package com.github.malyshevhen.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ScalableBloomFilterTest {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    @DisplayName("Empty filter should contain nothing")
+    @Test
+    public void testMightContain_whenEmpty_thenReturnFalse() {
+        // Given:
+        var filter = new ScalableBloomFilter(100, FALSE_POSITIVE_PROBABILITY);
+
+        // Verify:
+        assertFalse(filter.mightContain("john@email.com"));
+        assertEquals(0, filter.size());
+    }
+
+    @DisplayName("Added values should be contained after the filter grows beyond its initial capacity")
+    @Test
+    public void testMightContain_whenGrown_thenContainAllAddedValues() {
+        // Given:
+        var filter = new ScalableBloomFilter(100, FALSE_POSITIVE_PROBABILITY);
+
+        // Execute:
+        IntStream.range(0, 10_000).forEach(i -> filter.add("user" + i + "@email.com"));
+
+        // Verify:
+        assertTrue(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("user" + i + "@email.com")));
+        assertTrue(filter.size() > 9_900);
+    }
+
+    @DisplayName("False positive rate should stay within the configured bound after growth")
+    @Test
+    public void testMightContain_whenGrown_thenKeepFalsePositiveRate() {
+        // Given:
+        var filter = new ScalableBloomFilter(1_000, FALSE_POSITIVE_PROBABILITY);
+        IntStream.range(0, 50_000).forEach(i -> filter.add("user" + i + "@email.com"));
+
+        // Execute:
+        var falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("other" + i + "@email.com"))
+                .count();
+
+        // Verify:
+        assertTrue(falsePositives / 100_000.0 <= 2 * FALSE_POSITIVE_PROBABILITY,
+                () -> "False positives: " + falsePositives);
+        assertTrue(filter.expectedFalsePositiveProbability() <= 2 * FALSE_POSITIVE_PROBABILITY);
+    }
+}
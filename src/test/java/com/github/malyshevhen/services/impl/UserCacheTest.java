@@ -0,0 +1,175 @@
+package com.github.malyshevhen.services.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.malyshevhen.domain.dto.EntityVersion;
+import com.github.malyshevhen.domain.dto.VersionedUser;
+import com.github.malyshevhen.dto.UserInfo;
+
+import lombok.SneakyThrows;
+
+public class UserCacheTest {
+
+    private static final Long ID = 1L;
+
+    /**
+     * Committed state of the user, as loaded from the database.
+     */
+    private final AtomicReference<VersionedUser> stored = new AtomicReference<>(user("old@email.com", 1));
+
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new UserCache(Caffeine.newBuilder().build(), TransactionOperations.withoutTransaction());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @DisplayName("A read loading the user before an update should not cache it after the update")
+    @Test
+    @SneakyThrows
+    void testGet_whenUpdatedWhileLoading_thenStaleUserIsNotCached() {
+        // Given:
+        var loaded = new CountDownLatch(1);
+        var updated = new CountDownLatch(1);
+        var read = CompletableFuture.supplyAsync(() -> userCache.get(ID, id -> {
+            var user = Optional.of(stored.get());
+            loaded.countDown();
+            await(updated);
+            return user;
+        }));
+
+        // Execute:
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        update("new@email.com", 2);
+        updated.countDown();
+        var staleRead = read.get(5, TimeUnit.SECONDS).orElseThrow();
+
+        // Verify:
+        assertEquals("old@email.com", staleRead.user().getEmail());
+        assertEquals("new@email.com", userCache.get(ID, id -> Optional.of(stored.get())).orElseThrow()
+                .user().getEmail());
+        assertEquals("new@email.com", userCache.get(ID, this::failToLoad).orElseThrow().user().getEmail());
+    }
+
+    @DisplayName("A cached user should be replaced by the first read after an update")
+    @Test
+    void testGet_whenCachedUserIsUpdated_thenLoadUpdatedUser() {
+        // Given:
+        userCache.get(ID, id -> Optional.of(stored.get()));
+
+        // Execute:
+        update("new@email.com", 2);
+
+        // Verify:
+        assertEquals(2, userCache.get(ID, id -> Optional.of(stored.get())).orElseThrow().version().version());
+        assertEquals(2, userCache.get(ID, this::failToLoad).orElseThrow().version().version());
+    }
+
+    @DisplayName("A deleted user should not be cached by a read that loaded it before the deletion")
+    @Test
+    void testGet_whenDeletedWhileLoading_thenUserIsNotCached() {
+        // Given:
+        var staleUser = stored.get();
+
+        // Execute:
+        userCache.remove(ID);
+        userCache.get(ID, id -> Optional.of(staleUser));
+
+        // Verify:
+        assertTrue(userCache.get(ID, id -> Optional.empty()).isEmpty());
+    }
+
+    @DisplayName("A user written by a rolled back transaction should be loaded again")
+    @Test
+    void testInvalidate_whenTransactionRollsBack_thenUserIsLoadedAgain() {
+        // Given:
+        TransactionSynchronizationManager.initSynchronization();
+        userCache.invalidate(ID, 2);
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Execute:
+        synchronizations.forEach(synchronization -> synchronization
+                .afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        userCache.get(ID, id -> Optional.of(stored.get()));
+
+        // Verify:
+        assertEquals(1, userCache.get(ID, this::failToLoad).orElseThrow().version().version());
+    }
+
+    @DisplayName("The version of a cached user should be read from the cache, and of other users without caching them")
+    @Test
+    void testGetVersion_thenReadCachedVersionOnly() {
+        // Given:
+        var missingVersion = userCache.getVersion(ID, id -> Optional.of(stored.get().version()));
+        userCache.get(ID, id -> Optional.of(stored.get()));
+
+        // Execute:
+        var cachedVersion = userCache.getVersion(ID, id -> {
+            throw new AssertionError("Version of user " + id + " was read instead of taken from the cache");
+        });
+
+        // Verify:
+        assertEquals(1, missingVersion.orElseThrow().version());
+        assertEquals(stored.get().version(), cachedVersion.orElseThrow());
+    }
+
+    @DisplayName("The version of a user written since it was cached should be read again")
+    @Test
+    void testGetVersion_whenUpdated_thenReadVersion() {
+        // Given:
+        userCache.get(ID, id -> Optional.of(stored.get()));
+
+        // Execute:
+        update("new@email.com", 2);
+
+        // Verify:
+        assertEquals(2, userCache.getVersion(ID, id -> Optional.of(stored.get().version())).orElseThrow().version());
+    }
+
+    /**
+     * Commits an update of the user, invalidating it as the service does.
+     */
+    private void update(String email, long version) {
+        stored.set(user(email, version));
+        userCache.invalidate(ID, version);
+    }
+
+    private Optional<VersionedUser> failToLoad(Long id) {
+        throw new AssertionError("User " + id + " was loaded instead of read from the cache");
+    }
+
+    @SneakyThrows
+    private static void await(CountDownLatch latch) {
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private static VersionedUser user(String email, long version) {
+        return new VersionedUser(new UserInfo().id(ID).email(email),
+                new EntityVersion(version, LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(version)));
+    }
+}
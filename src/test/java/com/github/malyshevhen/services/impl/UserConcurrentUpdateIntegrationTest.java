@@ -0,0 +1,177 @@
+package com.github.malyshevhen.services.impl;
+
+import static com.github.malyshevhen.testutils.FakeData.getValidEmail;
+import static com.github.malyshevhen.testutils.FakeData.getValidUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.github.malyshevhen.configs.TestApplicationConfig;
+import com.github.malyshevhen.exceptions.PreconditionFailedException;
+import com.github.malyshevhen.services.UserService;
+
+import lombok.SneakyThrows;
+
+/**
+ * Stress tests of the optimistic locking of users and of the cache of users.
+ * </p>
+ * Many updaters update the same user in parallel, each in its own
+ * transaction, so the tests are not transactional and remove the user they
+ * create.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class UserConcurrentUpdateIntegrationTest {
+
+    private static final int UPDATERS = 16;
+    private static final int UPDATES_PER_UPDATER = 5;
+
+    @Autowired
+    private UserService userService;
+
+    private Long id;
+
+    @BeforeEach
+    void setUp() {
+        id = userService.save(getValidUser()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.deleteById(id);
+    }
+
+    @DisplayName("Of the parallel updates based on the same version only one should succeed")
+    @Test
+    public void testUpdateEmail_whenUpdatedInParallelFromSameVersion_thenOnlyOneSucceeds() {
+        // Prepare:
+        var version = userService.getVersionById(id).version();
+
+        // Execute:
+        var outcomes = runInParallel(() -> {
+            var email = getValidEmail();
+            try {
+                userService.updateEmail(id, email, version);
+                return email;
+            } catch (PreconditionFailedException | OptimisticLockingFailureException ex) {
+                return null;
+            }
+        });
+
+        // Verify:
+        var applied = outcomes.stream().filter(email -> email != null).toList();
+        assertEquals(1, applied.size());
+        assertEquals(version + 1, userService.getVersionById(id).version());
+        assertEquals(applied.getFirst(), userService.getById(id).getEmail());
+    }
+
+    @DisplayName("Parallel updaters retrying on conflicts should each apply all of their updates")
+    @Test
+    public void testUpdateEmail_whenUpdatedInParallelWithRetries_thenNoUpdateIsLost() {
+        // Prepare:
+        var version = userService.getVersionById(id).version();
+
+        // Execute:
+        var conflicts = runInParallel(() -> {
+            var updaterConflicts = 0;
+            for (int i = 0; i < UPDATES_PER_UPDATER; i++) {
+                while (true) {
+                    try {
+                        var current = userService.getVersionById(id).version();
+                        userService.updateEmail(id, getValidEmail(), current);
+                        break;
+                    } catch (PreconditionFailedException | OptimisticLockingFailureException ex) {
+                        updaterConflicts++;
+                    }
+                }
+            }
+            return updaterConflicts;
+        });
+
+        // Verify:
+        assertEquals(version + UPDATERS * UPDATES_PER_UPDATER, userService.getVersionById(id).version());
+        assertTrue(conflicts.stream().mapToInt(Integer::intValue).sum() > 0);
+    }
+
+    @DisplayName("Reads of a user interleaved with its updates should leave no stale user in the cache")
+    @Test
+    public void testGetInfoById_whenReadWhileUpdated_thenNoStaleUserIsCached() {
+        // Prepare:
+        var roles = new AtomicInteger();
+
+        // Execute:
+        runInParallel(() -> {
+            var reader = roles.getAndIncrement() % 2 == 0;
+            for (int i = 0; i < UPDATES_PER_UPDATER * 4; i++) {
+                if (reader) {
+                    userService.getInfoById(id);
+                } else {
+                    userService.updateEmail(id, getValidEmail(), null);
+                }
+            }
+            return null;
+        });
+
+        // Verify:
+        var stored = userService.getById(id);
+        var cached = userService.getInfoById(id);
+        assertEquals(stored.getVersion(), cached.version().version());
+        assertEquals(stored.getEmail(), cached.user().getEmail());
+    }
+
+    /**
+     * Runs the task in {@value #UPDATERS} threads released at the same time.
+     *
+     * @param task the task
+     * @return the results of the task in all threads
+     */
+    @SneakyThrows
+    private static <T> List<T> runInParallel(Callable<T> task) {
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newFixedThreadPool(UPDATERS)) {
+            var futures = new ArrayList<Future<T>>();
+            for (int i = 0; i < UPDATERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            var results = new ArrayList<T>();
+            for (var future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    throw ex.getCause();
+                }
+            }
+            return results;
+        }
+    }
+}
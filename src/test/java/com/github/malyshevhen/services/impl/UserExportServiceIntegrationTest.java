@@ -0,0 +1,162 @@
+package com.github.malyshevhen.services.impl;
+
+import static com.github.malyshevhen.testutils.FakeData.getValidUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.github.malyshevhen.configs.TestApplicationConfig;
+import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.StreamFormat;
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.dto.UserInfo;
+import com.github.malyshevhen.services.UserExportService;
+import com.github.malyshevhen.services.UserService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.SneakyThrows;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@Transactional
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class UserExportServiceIntegrationTest {
+
+    private static final int USERS_COUNT = 30;
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DisplayName("Export of NDJSON should write all users ordered by id")
+    @Test
+    @SneakyThrows
+    public void testExportNdjson_whenUsersExist_thenWriteAllUsers() {
+        // Prepare:
+        var users = saveUsers();
+        users.getFirst().setAddress(null);
+        entityManager.flush();
+
+        // Execute:
+        var lines = export(null, StreamFormat.NDJSON);
+
+        // Verify:
+        assertEquals(USERS_COUNT, lines.size());
+        for (int i = 0; i < USERS_COUNT; i++) {
+            var exported = objectMapper.readValue(lines.get(i), UserInfo.class);
+            var user = users.get(i);
+            assertEquals(user.getId(), exported.getId());
+            assertEquals(user.getEmail(), exported.getEmail());
+            assertEquals(user.getBirthDate(), exported.getBirthDate());
+            if (i == 0) {
+                assertNull(exported.getAddress());
+            } else {
+                assertEquals(user.getAddress().getCity(), exported.getAddress().getCity());
+            }
+        }
+    }
+
+    @DisplayName("Export of CSV should write a header and the users in the date range")
+    @Test
+    public void testExportCsv_whenDateRangeIsSet_thenWriteUsersInRange() {
+        // Prepare:
+        var users = saveUsers();
+        var dateRange = new DateRange(LocalDate.of(1980, 1, 1), LocalDate.of(1995, 12, 31));
+        var expected = users.stream()
+                .filter(user -> !user.getBirthDate().isBefore(dateRange.from())
+                        && !user.getBirthDate().isAfter(dateRange.to()))
+                .toList();
+
+        // Execute:
+        var lines = export(dateRange, StreamFormat.CSV);
+
+        // Verify:
+        assertEquals("id,email,firstName,lastName,birthDate,phone,country,city,street,number", lines.getFirst());
+        assertEquals(expected.size(), lines.size() - 1);
+        var rows = readCsv(String.join("\n", lines));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(String.valueOf(expected.get(i).getId()), rows.get(i).get("id"));
+            assertEquals(expected.get(i).getEmail(), rows.get(i).get("email"));
+            assertEquals(expected.get(i).getBirthDate().toString(), rows.get(i).get("birthDate"));
+            assertEquals(expected.get(i).getAddress().getStreet(), rows.get(i).get("street"));
+        }
+    }
+
+    @DisplayName("Export should stop when the output can not be written")
+    @Test
+    public void testExport_whenOutputFails_thenThrowException() {
+        // Prepare:
+        saveUsers();
+        var output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        // Execute and verify:
+        assertThrows(UncheckedIOException.class,
+                () -> userExportService.exportUsers(null, StreamFormat.NDJSON, output));
+    }
+
+    private List<User> saveUsers() {
+        var users = Stream.generate(() -> {
+            var user = getValidUser();
+            user.setBirthDate(LocalDate.of(1970, 1, 1).plusDays((long) (Math.random() * 365 * 35)));
+            return userService.save(user);
+        }).limit(USERS_COUNT).toList();
+        entityManager.flush();
+        return users.stream().sorted(Comparator.comparing(User::getId)).toList();
+    }
+
+    @SneakyThrows
+    private static List<Map<String, String>> readCsv(String csv) {
+        try (var rows = new CsvMapper().readerForMapOf(String.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .<Map<String, String>>readValues(csv)) {
+            return rows.readAll();
+        }
+    }
+
+    private List<String> export(DateRange dateRange, StreamFormat format) {
+        var output = new ByteArrayOutputStream();
+        userExportService.exportUsers(dateRange, format, output);
+        return output.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.malyshevhen.services.impl;
+
+import static com.github.malyshevhen.testutils.FakeData.getValidUserRegistrationForm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.malyshevhen.configs.TestApplicationConfig;
+import com.github.malyshevhen.domain.dto.ImportRejection;
+import com.github.malyshevhen.domain.dto.StreamFormat;
+import com.github.malyshevhen.domain.mapper.UserMapper;
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.dto.UserRegistrationForm;
+import com.github.malyshevhen.repositories.UserRepository;
+import com.github.malyshevhen.services.UserImportService;
+import com.github.malyshevhen.services.UserService;
+import com.github.malyshevhen.testutils.FakeData;
+
+import jakarta.persistence.EntityManager;
+import lombok.SneakyThrows;
+
+/**
+ * Tests of an import racing a registration of the same email.
+ * </p>
+ * The registration and the import commit in their own transactions, so the
+ * tests are not transactional and remove the users they create.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class UserImportConcurrentRegistrationIntegrationTest {
+
+    /**
+     * Counts the statements of the import waiting for a lock held by another
+     * transaction.
+     */
+    private static final String COUNT_WAITING_IMPORTS = """
+            SELECT count(*) FROM pg_stat_activity
+            WHERE wait_event_type = 'Lock' AND query LIKE '%users_inserted%'""";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private List<String> emails = List.of();
+
+    @AfterEach
+    void tearDown() {
+        var ids = userRepository.findAll().stream()
+                .filter(user -> emails.contains(user.getEmail()))
+                .map(User::getId)
+                .toList();
+        userService.deleteAllById(ids);
+    }
+
+    @DisplayName("A user registered while the import is merging its email should be rejected by the import only")
+    @Test
+    @SneakyThrows
+    public void testImport_whenEmailIsRegisteredWhileMerging_thenRejectOnlyThatUser() {
+        // Prepare:
+        var raced = getValidUserRegistrationForm();
+        var others = Stream.generate(FakeData::getValidUserRegistrationForm).limit(10).toList();
+        var forms = Stream.concat(Stream.of(raced), others.stream()).toList();
+        emails = forms.stream().map(UserRegistrationForm::getEmail).toList();
+
+        var registered = new CountDownLatch(1);
+        var committing = new CountDownLatch(1);
+
+        try (var executor = Executors.newFixedThreadPool(2)) {
+            // Execute:
+            var registration = executor.submit(() -> transactionTemplate.execute(status -> {
+                var user = userService.save(userMapper.toUser(raced));
+                entityManager.flush();
+                registered.countDown();
+                await(committing);
+                return user;
+            }));
+            assertTrue(registered.await(10, TimeUnit.SECONDS));
+
+            var lines = forms.stream().map(this::json).toList();
+            var importing = executor.submit(() -> userImportService.importUsers(stream(lines), StreamFormat.NDJSON));
+            awaitWaitingImport();
+            committing.countDown();
+
+            var user = registration.get(10, TimeUnit.SECONDS);
+            var result = importing.get(10, TimeUnit.SECONDS);
+
+            // Verify:
+            assertNotNull(user.getId());
+            assertEquals(others.size(), result.accepted());
+            assertEquals(1, result.rejected());
+            assertEquals(List.of(new ImportRejection(1, "User with this email already registered")),
+                    result.rejections());
+            assertEquals(forms.size(), userRepository.findAll().stream()
+                    .filter(stored -> emails.contains(stored.getEmail()))
+                    .count());
+        }
+    }
+
+    /**
+     * Waits until the import waits for the registering transaction to insert
+     * the raced email.
+     */
+    @SneakyThrows
+    private void awaitWaitingImport() {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jdbcTemplate.queryForObject(COUNT_WAITING_IMPORTS, Long.class) == 0) {
+            assertTrue(System.nanoTime() < deadline, "The import did not wait for the registration");
+            Thread.sleep(20);
+        }
+    }
+
+    @SneakyThrows
+    private static void await(CountDownLatch latch) {
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @SneakyThrows
+    private String json(UserRegistrationForm form) {
+        return objectMapper.writeValueAsString(form);
+    }
+
+    private static ByteArrayInputStream stream(List<String> lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,231 @@
+package com.github.malyshevhen.services.impl;
+
+import static com.github.malyshevhen.testutils.FakeData.getValidUser;
+import static com.github.malyshevhen.testutils.FakeData.getValidUserRegistrationForm;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.malyshevhen.configs.TestApplicationConfig;
+import com.github.malyshevhen.domain.dto.ImportRejection;
+import com.github.malyshevhen.domain.dto.ImportResult;
+import com.github.malyshevhen.domain.dto.StreamFormat;
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.dto.UserRegistrationForm;
+import com.github.malyshevhen.repositories.UserRepository;
+import com.github.malyshevhen.services.UserImportService;
+import com.github.malyshevhen.services.UserService;
+import com.github.malyshevhen.testutils.FakeData;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.SneakyThrows;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@Transactional
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class UserImportServiceIntegrationTest {
+
+    private static final String CSV_HEADER = "email,firstName,lastName,birthDate,phone,country,city,street,number";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DisplayName("Import of NDJSON should import valid users and report rejected lines")
+    @Test
+    public void testImportNdjson_whenStreamHasInvalidLines_thenImportOnlyValidOnes() {
+        // Prepare:
+        var registered = userService.save(getValidUser());
+        entityManager.flush();
+
+        var withAddress = getValidUserRegistrationForm();
+        var withoutAddress = getValidUserRegistrationForm().address(null);
+        var lines = List.of(
+                json(withAddress),
+                "",
+                "{\"email\": ",
+                json(getValidUserRegistrationForm().email("invalid.email.com")),
+                json(getValidUserRegistrationForm().birthDate(LocalDate.now().minusYears(10))),
+                json(getValidUserRegistrationForm().email(registered.getEmail())),
+                json(getValidUserRegistrationForm().email(withAddress.getEmail())),
+                json(withoutAddress));
+
+        // Execute:
+        var result = userImportService.importUsers(stream(lines), StreamFormat.NDJSON);
+
+        // Verify:
+        assertEquals(2, result.accepted());
+        assertEquals(5, result.rejected());
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L), result.rejections().stream().map(ImportRejection::line).toList());
+        assertTrue(result.rejections().get(0).error().startsWith("Malformed JSON"));
+        assertTrue(result.rejections().get(1).error().startsWith("email: "));
+        assertEquals("Users age must be greater than or equal to 18", result.rejections().get(2).error());
+        assertEquals("User with this email already registered", result.rejections().get(3).error());
+        assertEquals("User with this email is repeated in the import", result.rejections().get(4).error());
+
+        var imported = importedUsers(withAddress, withoutAddress);
+        assertEquals(withAddress.getAddress().getCity(), imported.get(0).getAddress().getCity());
+        assertEquals(withAddress.getBirthDate(), imported.get(0).getBirthDate());
+        assertNotNull(imported.get(0).getCreatedAt());
+        assertNull(imported.get(1).getAddress());
+    }
+
+    @DisplayName("Import of CSV should read the columns named by the header")
+    @Test
+    public void testImportCsv_whenStreamHasInvalidLines_thenImportOnlyValidOnes() {
+        // Prepare:
+        var withAddress = getValidUserRegistrationForm();
+        var withoutAddress = getValidUserRegistrationForm().address(null);
+        var lines = List.of(
+                CSV_HEADER,
+                csv(withAddress),
+                csv(getValidUserRegistrationForm()).replaceFirst("\\d{4}-\\d{2}-\\d{2}", "yesterday"),
+                csv(getValidUserRegistrationForm()) + ",extra",
+                "",
+                csv(withoutAddress),
+                csv(getValidUserRegistrationForm().firstName(null)));
+
+        // Execute:
+        var result = userImportService.importUsers(stream(lines), StreamFormat.CSV);
+
+        // Verify:
+        assertEquals(2, result.accepted());
+        assertEquals(3, result.rejected());
+        assertEquals(List.of(3L, 4L, 7L), result.rejections().stream().map(ImportRejection::line).toList());
+        assertTrue(result.rejections().get(0).error().startsWith("birthDate: "));
+        assertTrue(result.rejections().get(1).error().startsWith("Malformed CSV"));
+        assertTrue(result.rejections().get(2).error().startsWith("firstName: "));
+
+        var imported = importedUsers(withAddress, withoutAddress);
+        assertEquals(withAddress.getAddress().getStreet(), imported.get(0).getAddress().getStreet());
+        assertEquals(withAddress.getPhone(), imported.get(0).getPhone());
+        assertNull(imported.get(1).getAddress());
+    }
+
+    @DisplayName("Imported users should get identifiers not used by registered users")
+    @Test
+    public void testImport_whenUsersAreRegisteredAfterwards_thenIdentifiersDoNotCollide() {
+        // Prepare:
+        userService.save(getValidUser());
+        entityManager.flush();
+        var forms = Stream.generate(FakeData::getValidUserRegistrationForm).limit(120).toList();
+
+        // Execute:
+        var result = userImportService.importUsers(stream(forms.stream().map(this::json).toList()),
+                StreamFormat.NDJSON);
+        var users = Stream.generate(FakeData::getValidUser).limit(60).toList();
+        userService.saveAll(users);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Verify:
+        assertEquals(forms.size(), result.accepted());
+        assertEquals(1 + forms.size() + users.size(), userRepository.count());
+        assertEquals(1 + forms.size() + users.size(),
+                userRepository.findAll().stream().filter(user -> user.getAddress() != null).count());
+    }
+
+    @DisplayName("Import should reject a user repeating the email of a user of an earlier chunk")
+    @Test
+    public void testImport_whenEmailIsRepeatedInLaterChunk_thenRejectRepeatedUser() {
+        // Prepare:
+        var forms = Stream.generate(FakeData::getValidUserRegistrationForm)
+                .limit(UserImportServiceImpl.IMPORT_CHUNK_SIZE)
+                .toList();
+        var repeated = getValidUserRegistrationForm().email(forms.getFirst().getEmail());
+        var lines = Stream.concat(forms.stream(), Stream.of(repeated, getValidUserRegistrationForm()))
+                .map(this::json)
+                .toList();
+
+        // Execute:
+        var result = userImportService.importUsers(stream(lines), StreamFormat.NDJSON);
+
+        // Verify:
+        assertEquals(forms.size() + 1, result.accepted());
+        assertEquals(1, result.rejected());
+        assertEquals(List.of(new ImportRejection(forms.size() + 1, "User with this email already registered")),
+                result.rejections());
+        assertEquals(forms.size() + 1, userRepository.count());
+    }
+
+    @DisplayName("Import should report only the first rejected lines")
+    @Test
+    public void testImport_whenManyLinesAreRejected_thenReportFirstRejections() {
+        // Prepare:
+        var lines = Stream.generate(() -> "{}").limit(ImportResult.REJECTIONS_LIMIT + 100).toList();
+
+        // Execute:
+        var result = userImportService.importUsers(stream(lines), StreamFormat.NDJSON);
+
+        // Verify:
+        assertEquals(0, result.accepted());
+        assertEquals(lines.size(), result.rejected());
+        assertEquals(ImportResult.REJECTIONS_LIMIT, result.rejections().size());
+        assertEquals(ImportResult.REJECTIONS_LIMIT, result.rejections().getLast().line());
+    }
+
+    private List<User> importedUsers(UserRegistrationForm... forms) {
+        return Stream.of(forms)
+                .map(form -> userRepository.findAll().stream()
+                        .filter(user -> user.getEmail().equals(form.getEmail()))
+                        .findFirst()
+                        .orElseThrow())
+                .toList();
+    }
+
+    @SneakyThrows
+    private String json(UserRegistrationForm form) {
+        return objectMapper.writeValueAsString(form);
+    }
+
+    private static String csv(UserRegistrationForm form) {
+        var address = form.getAddress();
+        return Stream.of(form.getEmail(), form.getFirstName(), form.getLastName(), form.getBirthDate(),
+                        form.getPhone(),
+                        address == null ? null : address.getCountry(),
+                        address == null ? null : address.getCity(),
+                        address == null ? null : address.getStreet(),
+                        address == null ? null : address.getNumber())
+                .map(value -> value == null ? "" : "\"" + value + "\"")
+                .collect(Collectors.joining(","));
+    }
+
+    private static ByteArrayInputStream stream(List<String> lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -2,20 +2,36 @@ package com.github.malyshevhen.services.impl;
 
 import static com.github.malyshevhen.testutils.FakeData.getValidAddress;
 import static com.github.malyshevhen.testutils.FakeData.getValidUser;
+import static com.github.malyshevhen.testutils.FakeData.getValidUserInfo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.LongStream;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -23,16 +39,29 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.github.malyshevhen.exceptions.EntityAlreadyExistsException;
 import com.github.malyshevhen.exceptions.EntityNotFoundException;
+import com.github.malyshevhen.exceptions.PreconditionFailedException;
 import com.github.malyshevhen.exceptions.UserValidationException;
 import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.EntityVersion;
+import com.github.malyshevhen.domain.dto.KeysetSlice;
+import com.github.malyshevhen.domain.dto.PageCursor;
+import com.github.malyshevhen.domain.dto.RegistrationResult;
+import com.github.malyshevhen.domain.dto.TotalsMode;
 import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.dto.Phone;
+import com.github.malyshevhen.repositories.UserDeleteRepository.DeletedUser;
 import com.github.malyshevhen.repositories.UserRepository;
+import com.github.malyshevhen.repositories.UserPatchRepository.EmailChange;
 
 import com.github.malyshevhen.configs.UserConstraints;
 
@@ -45,6 +74,15 @@ public class UserServiceImplTest {
     @Mock
     private UserConstraints userConfig;
 
+    @Mock
+    private EmailFilter emailFilter;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private UserCache userCache;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -53,12 +91,12 @@ public class UserServiceImplTest {
     @BeforeEach
     void setUp() {
         user = getValidUser();
+        user.setVersion(1L);
     }
 
     @DisplayName("Test create user with valid data")
     @Test
     void testSave_ValidUser_ShouldSaveUser() {
-        when(userRepository.existsByEmail(user.getEmail())).thenReturn(false);
         when(userConfig.getRequiredAge()).thenReturn(18);
         when(userRepository.save(user)).thenReturn(user);
 
@@ -66,15 +104,30 @@ public class UserServiceImplTest {
 
         assertNotNull(savedUser);
         verify(userRepository, times(1)).save(user);
+        verify(userRepository, times(1)).flush();
+        verify(emailFilter).add(user.getEmail());
     }
 
     @DisplayName("Test create user with existing email")
     @Test
     void testSave_ExistingEmail_ShouldThrowException() {
-        when(userRepository.existsByEmail(user.getEmail())).thenReturn(true);
+        when(userConfig.getRequiredAge()).thenReturn(18);
+        when(userRepository.save(user)).thenReturn(user);
+        doThrow(uniqueViolation("users_email_key")).when(userRepository).flush();
 
-        assertThrows(EntityAlreadyExistsException.class, () -> userService.save(user));
-        verify(userRepository, never()).save(any());
+        var exception = assertThrows(EntityAlreadyExistsException.class, () -> userService.save(user));
+        assertEquals("User with this email already registered", exception.getMessage());
+        assertEquals("email", exception.getField());
+    }
+
+    @DisplayName("Test create user violating another constraint rethrows the violation")
+    @Test
+    void testSave_OtherConstraintViolation_ShouldRethrowException() {
+        when(userConfig.getRequiredAge()).thenReturn(18);
+        when(userRepository.save(user)).thenReturn(user);
+        doThrow(uniqueViolation("users_address_id_fkey")).when(userRepository).flush();
+
+        assertThrows(DataIntegrityViolationException.class, () -> userService.save(user));
     }
 
     @DisplayName("Test create user with invalid age throws exception")
@@ -86,20 +139,178 @@ public class UserServiceImplTest {
         verify(userRepository, never()).save(any());
     }
 
-    @DisplayName("Test get all users returns page of users")
+    @DisplayName("Test register batch rejects taken, repeated emails and illegal age")
+    @Test
+    void testSaveAll_ShouldRejectInvalidUsersAndSaveOthers() {
+        var taken = getValidUser();
+        var repeated = getValidUser();
+        repeated.setEmail(user.getEmail());
+        var underAge = getValidUser();
+        underAge.setBirthDate(LocalDate.now().minusYears(10));
+        var batch = List.of(user, taken, repeated, underAge);
+
+        when(userConfig.getRequiredAge()).thenReturn(18);
+        when(emailFilter.findRegistered(anyList(), any()))
+                .thenAnswer(invocation -> invocation.<Function<List<String>, Set<String>>>getArgument(1)
+                        .apply(invocation.getArgument(0)));
+        when(userRepository.findRegisteredEmails(anyList())).thenReturn(Set.of(taken.getEmail()));
+
+        var results = userService.saveAll(batch);
+
+        assertEquals(4, results.size());
+        assertEquals(RegistrationResult.created(0, user), results.get(0));
+        assertEquals(RegistrationResult.rejected(1, "User with this email already registered"), results.get(1));
+        assertEquals(RegistrationResult.rejected(2, "User with this email is repeated in the batch"), results.get(2));
+        assertEquals(RegistrationResult.rejected(3, "Users age must be greater than or equal to 18"), results.get(3));
+        verify(userRepository, times(1)).findRegisteredEmails(anyList());
+        verify(userRepository).saveAll(List.of(user));
+        verify(emailFilter).add(user.getEmail());
+    }
+
+    @DisplayName("Test register batch with an email registered after the check throws exception")
+    @Test
+    void testSaveAll_EmailRegisteredConcurrently_ShouldThrowException() {
+        when(userConfig.getRequiredAge()).thenReturn(18);
+        when(emailFilter.findRegistered(anyList(), any())).thenReturn(Set.of());
+        doThrow(uniqueViolation("users_email_key")).when(userRepository).flush();
+
+        var exception = assertThrows(EntityAlreadyExistsException.class, () -> userService.saveAll(List.of(user)));
+        assertEquals("User with this email already registered", exception.getMessage());
+        assertEquals("email", exception.getField());
+        verify(emailFilter, never()).add(any());
+    }
+
+    @DisplayName("Test get user infos with exact totals counts the users in range")
     @Test
     @SuppressWarnings("unchecked")
-    void testGetAll_ShouldReturnPageOfUsers() {
-        var pageable = PageRequest.of(0, 10);
-        var userPage = new PageImpl<>(List.of(user));
+    void testGetUserInfosWithExactTotals_ShouldCount() {
+        var pageable = PageRequest.of(0, 1);
+        var userInfo = getValidUserInfo();
         var dateRange = new DateRange(LocalDate.of(1990, 1, 1), LocalDate.of(2000, 1, 1));
-        when(userRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(userPage);
+        when(userRepository.findInfoSlice(dateRange, pageable))
+                .thenReturn(new SliceImpl<>(List.of(userInfo), pageable, true));
+        when(userRepository.count(any(Specification.class))).thenReturn(3L);
 
-        var result = userService.getAll(pageable, dateRange);
+        var result = userService.getUserInfos(pageable, dateRange, TotalsMode.EXACT);
 
-        assertNotNull(result);
-        assertEquals(1, result.getTotalElements());
-        assertEquals(user, result.getContent().getFirst());
+        assertEquals(TotalsMode.EXACT, result.getTotals());
+        assertEquals(3, result.getTotalElements());
+        assertEquals(userInfo, result.getContent().getFirst());
+    }
+
+    @DisplayName("Test get user infos with a known count takes exact totals from it")
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetUserInfosWithKnownCount_ShouldNotCount() {
+        var pageable = PageRequest.of(0, 1);
+        when(userRepository.findInfoSlice(null, pageable))
+                .thenReturn(new SliceImpl<>(List.of(getValidUserInfo()), pageable, true));
+
+        var result = userService.getUserInfos(pageable, null, TotalsMode.EXACT, 3L);
+
+        assertEquals(TotalsMode.EXACT, result.getTotals());
+        assertEquals(3, result.getTotalElements());
+        verify(userRepository, never()).count(any(Specification.class));
+    }
+
+    @DisplayName("Test get user infos without totals does not count")
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetUserInfosWithoutTotals_ShouldReturnSliceWithoutCount() {
+        var pageable = PageRequest.of(2, 10);
+        when(userRepository.findInfoSlice(null, pageable))
+                .thenReturn(new SliceImpl<>(List.of(getValidUserInfo()), pageable, true));
+
+        var result = userService.getUserInfos(pageable, null, TotalsMode.NONE);
+
+        assertEquals(TotalsMode.NONE, result.getTotals());
+        assertNull(result.getTotalElements());
+        assertTrue(result.hasNext());
+        assertEquals(pageable, result.getPageable());
+        verify(userRepository, never()).count(any(Specification.class));
+    }
+
+    @DisplayName("Test get user infos with estimated totals uses the estimate")
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetUserInfosWithEstimatedTotals_ShouldReturnEstimate() {
+        var pageable = PageRequest.of(0, 1);
+        when(userRepository.findInfoSlice(null, pageable))
+                .thenReturn(new SliceImpl<>(List.of(getValidUserInfo()), pageable, true));
+        when(userRepository.estimateCount(null)).thenReturn(OptionalLong.of(1000));
+
+        var result = userService.getUserInfos(pageable, null, TotalsMode.ESTIMATED);
+
+        assertEquals(TotalsMode.ESTIMATED, result.getTotals());
+        assertEquals(1000, result.getTotalElements());
+        assertEquals(1000, result.getTotalPages());
+        verify(userRepository, never()).count(any(Specification.class));
+    }
+
+    @DisplayName("Test get user infos with estimated totals falls back to count without statistics")
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetUserInfosWithEstimatedTotals_NoStatistics_ShouldCount() {
+        var pageable = PageRequest.of(0, 1);
+        when(userRepository.findInfoSlice(null, pageable))
+                .thenReturn(new SliceImpl<>(List.of(getValidUserInfo()), pageable, true));
+        when(userRepository.estimateCount(null)).thenReturn(OptionalLong.empty());
+        when(userRepository.count(any(Specification.class))).thenReturn(3L);
+
+        var result = userService.getUserInfos(pageable, null, TotalsMode.ESTIMATED);
+
+        assertEquals(TotalsMode.EXACT, result.getTotals());
+        assertEquals(3, result.getTotalElements());
+    }
+
+    @DisplayName("Test get user infos after cursor reads the slice in the keyset order without count")
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetUserInfosAfterCursor_ShouldReadKeysetSlice() {
+        var pageable = PageRequest.of(3, 1, Sort.by("birthDate"));
+        var keysetSort = Sort.by("birthDate", "id");
+        var slice = new KeysetSlice<>(List.of(getValidUserInfo()), PageRequest.of(0, 1, keysetSort), null);
+        when(userRepository.findInfoSliceAfter(null, null, keysetSort, 1)).thenReturn(slice);
+
+        var result = userService.getUserInfos(null, pageable, null);
+
+        assertSame(slice, result);
+        verify(userRepository, never()).count(any(Specification.class));
+    }
+
+    @DisplayName("Test get user infos after cursor with another sort than the cursor throws exception")
+    @Test
+    void testGetUserInfosAfterCursor_SortMismatch_ShouldThrowException() {
+        var cursor = new PageCursor(List.of(new PageCursor.Key("id", Sort.Direction.ASC, "42")));
+        var pageable = PageRequest.of(0, 10, Sort.by("birthDate"));
+
+        assertThrows(IllegalArgumentException.class, () -> userService.getUserInfos(cursor, pageable, null));
+        verifyNoInteractions(userRepository);
+    }
+
+    @DisplayName("Test get user infos after cursor with unsupported sort throws exception")
+    @Test
+    void testGetUserInfosAfterCursor_UnsupportedSort_ShouldThrowException() {
+        var pageable = PageRequest.of(0, 10, Sort.by("firstName"));
+
+        assertThrows(IllegalArgumentException.class, () -> userService.getUserInfos(null, pageable, null));
+    }
+
+    @DisplayName("Test get user infos after cursor with mixed directions throws exception")
+    @Test
+    void testGetUserInfosAfterCursor_MixedDirections_ShouldThrowException() {
+        var sort = Sort.by(Sort.Order.asc("birthDate"), Sort.Order.desc("id"));
+        var pageable = PageRequest.of(0, 10, sort);
+
+        assertThrows(IllegalArgumentException.class, () -> userService.getUserInfos(null, pageable, null));
+    }
+
+    @DisplayName("Test get user infos after cursor with several sort properties throws exception")
+    @Test
+    void testGetUserInfosAfterCursor_SeveralProperties_ShouldThrowException() {
+        var pageable = PageRequest.of(0, 10, Sort.by("birthDate", "createdAt"));
+
+        assertThrows(IllegalArgumentException.class, () -> userService.getUserInfos(null, pageable, null));
     }
 
     @DisplayName("Test get user by id returns user")
@@ -128,9 +339,8 @@ public class UserServiceImplTest {
         var updatedUser = getValidUser();
 
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.existsByEmail(updatedUser.getEmail())).thenReturn(false);
 
-        var result = userService.updateById(user.getId(), updatedUser);
+        var result = userService.updateById(user.getId(), updatedUser, null);
 
         assertNotNull(result);
         assertEquals(updatedUser.getFirstName(), result.getFirstName());
@@ -138,6 +348,7 @@ public class UserServiceImplTest {
         assertEquals(updatedUser.getEmail(), result.getEmail());
         assertEquals(updatedUser.getAddress(), result.getAddress());
         assertEquals(updatedUser.getPhone(), result.getPhone());
+        verify(userCache).invalidate(user.getId(), 1L);
     }
 
     @DisplayName("Test update user with existing email throws exception")
@@ -146,53 +357,152 @@ public class UserServiceImplTest {
         var updatedUser = getValidUser();
 
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.existsByEmail(updatedUser.getEmail())).thenReturn(true);
+        doThrow(uniqueViolation("users_email_key")).when(userRepository).flush();
 
-        assertThrows(EntityAlreadyExistsException.class,
-                () -> userService.updateById(user.getId(), updatedUser));
+        var exception = assertThrows(EntityAlreadyExistsException.class,
+                () -> userService.updateById(user.getId(), updatedUser, null));
+        assertEquals("email", exception.getField());
     }
 
     @DisplayName("Test update email if no exception is thrown should pass")
     @Test
     void testUpdateEmail_ExistingUser_ShouldUpdateEmail() {
         var newEmail = "newemail@example.com";
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        var previousEmail = user.getEmail();
+        var updatedUser = getValidUser();
+        updatedUser.setEmail(newEmail);
+        updatedUser.setVersion(2L);
+        when(userRepository.updateEmail(user.getId(), newEmail, null))
+                .thenReturn(Optional.of(new EmailChange(updatedUser, previousEmail)));
 
-        var result = userService.updateEmail(user.getId(), newEmail);
+        var result = userService.updateEmail(user.getId(), newEmail, null);
 
         assertNotNull(result);
         assertEquals(newEmail, result.getEmail());
+        verify(userRepository, never()).findById(any());
+        verify(emailFilter).add(newEmail);
+        verify(emailFilter).remove(previousEmail);
+        verify(userCache).invalidate(user.getId(), 2L);
+    }
+
+    @DisplayName("Test update email based on an outdated version throws exception")
+    @Test
+    void testUpdateEmail_OutdatedVersion_ShouldThrowException() {
+        when(userRepository.updateEmail(user.getId(), "newemail@example.com", 1L)).thenReturn(Optional.empty());
+        when(userRepository.findVersionById(user.getId()))
+                .thenReturn(Optional.of(new EntityVersion(2L, LocalDateTime.now())));
+
+        var exception = assertThrows(PreconditionFailedException.class,
+                () -> userService.updateEmail(user.getId(), "newemail@example.com", 1L));
+        assertTrue(exception.getMessage().endsWith("its current version is 2"));
+        verify(emailFilter, never()).add(any());
+    }
+
+    @DisplayName("Test update email of a missing user throws exception")
+    @Test
+    void testUpdateEmail_MissingUser_ShouldThrowException() {
+        when(userRepository.updateEmail(user.getId(), "newemail@example.com", null)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> userService.updateEmail(user.getId(), "newemail@example.com", null));
+        verify(userRepository, never()).findVersionById(any());
+        verify(emailFilter, never()).add(any());
     }
 
     @DisplayName("Test update address if no exception is thrown should pass")
     @Test
     void testUpdateAddress_ExistingUser_ShouldUpdateAddress() {
         var newAddress = getValidAddress();
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        user.setAddress(newAddress);
+        when(userRepository.updateAddress(user.getId(), newAddress, null)).thenReturn(Optional.of(user));
 
-        var result = userService.updateAddress(user.getId(), newAddress);
+        var result = userService.updateAddress(user.getId(), newAddress, null);
 
         assertNotNull(result);
         assertEquals(newAddress, result.getAddress());
+        verify(userCache).invalidate(user.getId(), 1L);
+    }
+
+    @DisplayName("Test update phone passes the new phone to the repository")
+    @Test
+    void testUpdatePhone_ExistingUser_ShouldUpdatePhone() {
+        user.setPhone("911");
+        when(userRepository.updatePhone(user.getId(), "911", null)).thenReturn(Optional.of(user));
+
+        var result = userService.updatePhone(user.getId(), new Phone().phone("911"), null);
+
+        assertEquals("911", result.getPhone());
+        verify(userCache).invalidate(user.getId(), 1L);
     }
 
     @DisplayName("Test delete user by id")
     @Test
     void testDeleteById_ExistingUser_ShouldDeleteUser() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.deleteUser(user.getId()))
+                .thenReturn(Optional.of(new DeletedUser(user.getId(), user.getEmail())));
 
         userService.deleteById(user.getId());
 
-        verify(userRepository, times(1)).delete(user);
+        verify(userRepository, never()).findById(any());
+        verify(emailFilter).remove(user.getEmail());
+        verify(userCache).remove(user.getId());
+    }
+
+    @DisplayName("Test delete users without a filter throws exception")
+    @Test
+    void testDeleteAll_NoFilter_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.deleteAll(new DateRange(null, null), null));
+        verify(userRepository, never()).deleteUsers(any(), any(), any(), anyInt());
+    }
+
+    @DisplayName("Test delete users by filter resumes each chunk after the last deleted ID")
+    @Test
+    void testDeleteAll_FullChunk_ShouldResumeAfterLastDeletedId() {
+        var dateRange = new DateRange(LocalDate.of(1905, 5, 5), null);
+        var fullChunk = LongStream.rangeClosed(1, UserServiceImpl.DELETE_CHUNK_SIZE)
+                .map(id -> UserServiceImpl.DELETE_CHUNK_SIZE + 1 - id)
+                .mapToObj(id -> new DeletedUser(id, "user" + id + "@email.com"))
+                .toList();
+        var lastChunk = List.of(new DeletedUser(5000L, "last@email.com"));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation
+                .<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(userRepository.deleteUsers(dateRange, null, null, UserServiceImpl.DELETE_CHUNK_SIZE))
+                .thenReturn(fullChunk);
+        when(userRepository.deleteUsers(dateRange, null, (long) UserServiceImpl.DELETE_CHUNK_SIZE,
+                UserServiceImpl.DELETE_CHUNK_SIZE)).thenReturn(lastChunk);
+
+        var deleted = userService.deleteAll(dateRange, null);
+
+        assertEquals(UserServiceImpl.DELETE_CHUNK_SIZE + 1, deleted);
+        verify(userRepository, times(2)).deleteUsers(eq(dateRange), any(), any(), anyInt());
+        verify(emailFilter).remove("last@email.com");
+    }
+
+    @DisplayName("Test check email queries the database only if the filter may contain it")
+    @Test
+    void testIsEmailRegistered_ShouldCheckFilterFirst() {
+        when(emailFilter.isRegistered(eq(user.getEmail()), any())).thenAnswer(invocation -> invocation
+                .<Predicate<String>>getArgument(1).test(invocation.getArgument(0)));
+        when(userRepository.existsByEmail(user.getEmail())).thenReturn(true);
+
+        assertTrue(userService.isEmailRegistered(user.getEmail()));
+        verify(userRepository).existsByEmail(user.getEmail());
     }
 
     @DisplayName("Test delete user by id not found")
     @Test
     void testDeleteById_NonExistingUser_ShouldThrowException() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+        when(userRepository.deleteUser(user.getId())).thenReturn(Optional.empty());
 
         assertThrows(EntityNotFoundException.class,
                 () -> userService.deleteById(user.getId()));
-        verify(userRepository, never()).delete(any(User.class));
+        verify(emailFilter, never()).remove(any());
+    }
+
+    private static DataIntegrityViolationException uniqueViolation(String constraintName) {
+        var violation = new ConstraintViolationException("duplicate key value violates unique constraint",
+                new SQLException("duplicate key value violates unique constraint", "23505"), constraintName);
+        return new DataIntegrityViolationException(violation.getMessage(), violation);
     }
 }
@@ -6,10 +6,18 @@ import static com.github.malyshevhen.testutils.FakeData.getValidUser;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -22,22 +30,41 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import com.github.malyshevhen.configs.CacheConfig;
+import com.github.malyshevhen.configs.StatementScope;
 import com.github.malyshevhen.configs.TestApplicationConfig;
 import com.github.malyshevhen.exceptions.EntityAlreadyExistsException;
 import com.github.malyshevhen.exceptions.EntityNotFoundException;
+import com.github.malyshevhen.exceptions.PreconditionFailedException;
 import com.github.malyshevhen.exceptions.UserValidationException;
 import com.github.malyshevhen.domain.models.Address;
+import com.github.malyshevhen.domain.dto.CollectionVersion;
 import com.github.malyshevhen.domain.dto.DateRange;
+import com.github.malyshevhen.domain.dto.EntityVersion;
+import com.github.malyshevhen.domain.dto.KeysetSlice;
+import com.github.malyshevhen.domain.dto.PageCursor;
+import com.github.malyshevhen.domain.dto.RegistrationResult;
+import com.github.malyshevhen.domain.dto.TotalsMode;
+import com.github.malyshevhen.domain.mapper.UserMapper;
 import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.dto.Phone;
+import com.github.malyshevhen.dto.UserInfo;
+import com.github.malyshevhen.repositories.UserDeleteRepository.DeletedUser;
 import com.github.malyshevhen.repositories.UserRepository;
+import com.github.malyshevhen.repositories.UserSpecifications;
 import com.github.malyshevhen.services.UserService;
+import com.github.malyshevhen.testutils.FakeData;
 
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 
 @ActiveProfiles("test")
@@ -55,6 +82,15 @@ public class UserServiceIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserMapper userMapper;
+
     @DisplayName("UserService should save new user")
     @Test
     public void testSaveUser_whenNewUserIsSaved_thenReturnUser() {
@@ -79,13 +115,31 @@ public class UserServiceIntegrationTest {
         // Prepare:
         var validUser = getValidUser();
         userService.save(validUser);
+        var duplicate = getValidUser();
+        duplicate.setEmail(validUser.getEmail());
 
         // Execute:
         var exception = assertThrows(EntityAlreadyExistsException.class,
-                () -> userService.save(validUser));
+                () -> userService.save(duplicate));
 
         // Verify:
         assertEquals("User with this email already registered", exception.getMessage());
+        assertEquals("email", exception.getField());
+    }
+
+    @DisplayName("Email check should tell registered emails from available ones")
+    @Test
+    public void testIsEmailRegistered_whenUserIsSaved_thenEmailIsRegistered() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+
+        // Execute:
+        var registered = userService.isEmailRegistered(savedUser.getEmail());
+        var available = userService.isEmailRegistered("available." + savedUser.getEmail());
+
+        // Verify:
+        assertTrue(registered);
+        assertFalse(available);
     }
 
     @DisplayName("Save user under 18 should throw exception")
@@ -109,7 +163,7 @@ public class UserServiceIntegrationTest {
         // Execute:
         var pageable = PageRequest.of(0, 10);
         var dateRange = new DateRange(LocalDate.of(1990, 1, 1), LocalDate.of(2001, 1, 1));
-        var users = userService.getAll(pageable, dateRange);
+        var users = userService.getUserInfos(pageable, dateRange, TotalsMode.EXACT);
 
         // Verify:
         assertEquals(0, users.getTotalElements());
@@ -125,14 +179,14 @@ public class UserServiceIntegrationTest {
         var pageable = PageRequest.of(0, 10);
 
         // Execute:
-        var users = userService.getAll(pageable, null);
+        var users = userService.getUserInfos(pageable, null, TotalsMode.EXACT);
 
         // Verify:
         assertEquals(1, users.getTotalElements());
         assertNotNull(users.getContent());
         assertFalse(users.isEmpty());
         assertTrue(users.getSize() > 0);
-        assertEquals(savedUser, users.getContent().getFirst());
+        assertEquals(savedUser.getId(), users.getContent().getFirst().getId());
     }
 
     @DisplayName("Get all with unsetted date range should return all users")
@@ -145,12 +199,12 @@ public class UserServiceIntegrationTest {
         var pageable = PageRequest.of(0, 10);
 
         // Execute:
-        var page = userService.getAll(pageable, dateRange);
+        var page = userService.getUserInfos(pageable, dateRange, TotalsMode.EXACT);
 
         // Verify:
         assertEquals(1, page.getTotalElements());
         assertFalse(page.getContent().isEmpty());
-        assertEquals(savedUser, page.getContent().getFirst());
+        assertEquals(savedUser.getId(), page.getContent().getFirst().getId());
     }
 
     private static Stream<Arguments> testFindAll_whenRangeIsNotSet_shouldReturnAll() {
@@ -181,16 +235,17 @@ public class UserServiceIntegrationTest {
         var pageable = PageRequest.of(0, 10);
 
         // Execute:
-        var users = userService.getAll(pageable,
-                new DateRange(LocalDate.parse(dateRange.split(",")[0]), LocalDate.parse(dateRange.split(",")[1])));
-        System.out.println("USERS: " + users.getContent());
+        var users = userService.getUserInfos(pageable,
+                new DateRange(LocalDate.parse(dateRange.split(",")[0]), LocalDate.parse(dateRange.split(",")[1])),
+                TotalsMode.EXACT);
 
         // Verify:
+        var ids = users.map(UserInfo::getId).getContent();
         assertEquals(2, users.getTotalElements());
         assertTrue(users.hasContent());
-        assertTrue(users.getContent().stream().anyMatch(user -> user.equals(savedUser1)));
-        assertTrue(users.getContent().stream().anyMatch(user -> user.equals(savedUser2)));
-        assertFalse(users.getContent().stream().anyMatch(user -> user.equals(savedUser3)));
+        assertTrue(ids.contains(savedUser1.getId()));
+        assertTrue(ids.contains(savedUser2.getId()));
+        assertFalse(ids.contains(savedUser3.getId()));
     }
 
     @DisplayName("Get all with invalid range should throw an exception and do not call the repository method")
@@ -207,12 +262,208 @@ public class UserServiceIntegrationTest {
 
         // Execute:
         var exception = assertThrows(IllegalArgumentException.class,
-                () -> userService.getAll(pageable, new DateRange(from, to)));
+                () -> userService.getUserInfos(pageable, new DateRange(from, to), TotalsMode.EXACT));
 
         // Verify:
         assertEquals("From date must be before to date", exception.getMessage());
         assertFalse(userRepository.findAll().isEmpty());
-        assertFalse(userService.getAll(PageRequest.of(0, 10), null).isEmpty());
+        assertFalse(userService.getUserInfos(PageRequest.of(0, 10), null, TotalsMode.EXACT).isEmpty());
+    }
+
+    @DisplayName("Save all should register accepted users and reject the others")
+    @Test
+    public void testSaveAll_whenBatchHasInvalidUsers_thenRegisterOnlyValidOnes() {
+        // Prepare:
+        var existingUser = userService.save(getValidUser());
+        var newUsers = Stream.generate(FakeData::getValidUser).limit(120).toList();
+        var taken = getValidUser();
+        taken.setEmail(existingUser.getEmail());
+        var batch = new ArrayList<>(newUsers);
+        batch.add(taken);
+
+        // Execute:
+        var results = userService.saveAll(batch);
+
+        // Verify:
+        assertEquals(batch.size(), results.size());
+        assertEquals(newUsers.size(), results.stream().filter(RegistrationResult::isCreated).count());
+        assertEquals(RegistrationResult.Status.REJECTED, results.getLast().status());
+        assertEquals(newUsers.size() + 1, userRepository.count());
+        var created = results.stream().filter(RegistrationResult::isCreated).toList();
+        assertEquals(newUsers.size(), created.stream().map(result -> result.user().getId()).distinct().count());
+        for (var result : created) {
+            var savedUser = userRepository.findById(result.user().getId()).orElseThrow();
+            assertEquals(newUsers.get(result.index()).getEmail(), savedUser.getEmail());
+            assertNotNull(savedUser.getAddress().getId());
+        }
+    }
+
+    @DisplayName("Get all without totals should return the requested page without totals")
+    @Test
+    public void testFindAll_whenTotalsAreNotRequested_thenReturnPageWithoutTotals() {
+        // Prepare:
+        for (var year : List.of(1990, 1970, 1985, 1960, 1980)) {
+            var user = getValidUser();
+            user.setBirthDate(LocalDate.of(year, 1, 1));
+            userService.save(user);
+        }
+        var sort = Sort.by("birthDate");
+
+        // Execute:
+        var second = userService.getUserInfos(PageRequest.of(1, 2, sort), null, TotalsMode.NONE);
+        var third = userService.getUserInfos(PageRequest.of(2, 2, sort), null, TotalsMode.NONE);
+
+        // Verify:
+        assertEquals(TotalsMode.NONE, second.getTotals());
+        assertNull(second.getTotalElements());
+        assertTrue(second.hasNext());
+        assertEquals(List.of(1980, 1985), second.map(user -> user.getBirthDate().getYear()).getContent());
+        assertFalse(third.hasNext());
+        assertEquals(List.of(1990), third.map(user -> user.getBirthDate().getYear()).getContent());
+    }
+
+    @DisplayName("Get all with estimated totals should use planner statistics")
+    @Test
+    public void testFindAll_whenTotalsAreEstimated_thenReturnEstimatedTotals() {
+        // Prepare:
+        for (var year : List.of(1990, 1970, 1985, 1960, 1980)) {
+            var user = getValidUser();
+            user.setBirthDate(LocalDate.of(year, 1, 1));
+            userService.save(user);
+        }
+        entityManager.createNativeQuery("ANALYZE users").executeUpdate();
+        var dateRange = new DateRange(LocalDate.of(1965, 1, 1), LocalDate.of(1995, 1, 1));
+
+        // Execute:
+        var all = userService.getUserInfos(PageRequest.of(0, 2), null, TotalsMode.ESTIMATED);
+        var inRange = userService.getUserInfos(PageRequest.of(0, 2), dateRange, TotalsMode.ESTIMATED);
+        var lastInRange = userService.getUserInfos(PageRequest.of(1, 3), dateRange, TotalsMode.ESTIMATED);
+
+        // Verify:
+        assertEquals(TotalsMode.ESTIMATED, all.getTotals());
+        assertTrue(all.getTotalElements() >= 3);
+        assertEquals(TotalsMode.ESTIMATED, inRange.getTotals());
+        assertTrue(inRange.getTotalElements() >= 3);
+        assertFalse(lastInRange.hasNext());
+        assertEquals(4, lastInRange.getTotalElements());
+    }
+
+    @DisplayName("Get user infos should return the pages of entities, read without entities")
+    @ParameterizedTest(name = "{index}: sort {0}, range {1}, totals {2}")
+    @MethodSource
+    public void testGetUserInfos_whenPagingThroughUsers_thenReturnSamePagesAsEntities(Sort sort, DateRange dateRange,
+            TotalsMode totals) {
+        // Prepare:
+        for (var year : List.of(1990, 1970, 1985, 1960, 1980, 1985, 1975)) {
+            var user = getValidUser();
+            user.setBirthDate(LocalDate.of(year, 1, 1));
+            userService.save(user);
+        }
+        var userWithoutAddress = getValidUser();
+        userWithoutAddress.setAddress(null);
+        userService.save(userWithoutAddress);
+        entityManager.flush();
+        entityManager.clear();
+
+        for (var number = 0; number < 4; number++) {
+            var pageable = PageRequest.of(number, 3, sort);
+
+            // Execute:
+            var expected = userRepository.findAll(UserSpecifications.inRange(dateRange), pageable)
+                    .map(userMapper::toUserInfo);
+            var userInfos = userService.getUserInfos(pageable, dateRange, totals);
+
+            // Verify:
+            assertEquals(expected.getContent(), userInfos.getContent());
+            assertEquals(expected.getContent().stream().map(UserInfo::getAddress).map(UserServiceIntegrationTest::city)
+                    .toList(), userInfos.getContent().stream().map(UserInfo::getAddress)
+                    .map(UserServiceIntegrationTest::city).toList());
+            assertEquals(expected.hasNext(), userInfos.hasNext());
+            if (userInfos.getTotals() == TotalsMode.EXACT) {
+                assertEquals(expected.getTotalElements(), userInfos.getTotalElements());
+            }
+        }
+    }
+
+    private static Stream<Arguments> testGetUserInfos_whenPagingThroughUsers_thenReturnSamePagesAsEntities() {
+        var dateRange = new DateRange(LocalDate.of(1970, 1, 1), LocalDate.of(1985, 1, 1));
+        return Stream.of(
+            Arguments.of(Sort.by("id"), null, TotalsMode.EXACT),
+            Arguments.of(Sort.by(Sort.Order.desc("birthDate"), Sort.Order.asc("id")), null, TotalsMode.NONE),
+            Arguments.of(Sort.by(Sort.Order.asc("birthDate"), Sort.Order.desc("id")), dateRange, TotalsMode.EXACT),
+            Arguments.of(Sort.by(Sort.Order.asc("address.city").ignoreCase(), Sort.Order.asc("id")),
+                    null, TotalsMode.ESTIMATED),
+            Arguments.of(Sort.by(Sort.Order.desc("lastName").ignoreCase(), Sort.Order.asc("id")), dateRange,
+                    TotalsMode.NONE),
+            Arguments.of(Sort.by(Sort.Order.asc("birthDate").ignoreCase(), Sort.Order.asc("id").ignoreCase()), null,
+                    TotalsMode.NONE)
+        );
+    }
+
+    @DisplayName("Get user infos should reject a sort by an unknown property")
+    @Test
+    public void testGetUserInfos_whenSortPropertyIsUnknown_thenThrowException() {
+        // Prepare:
+        var pageable = PageRequest.of(0, 10, Sort.by("password"));
+
+        // Execute & Verify:
+        assertThrows(PropertyReferenceException.class,
+                () -> userService.getUserInfos(pageable, null, TotalsMode.NONE));
+    }
+
+    @DisplayName("Get all with cursor should page through all users in keyset order")
+    @Test
+    public void testFindAll_whenPagingWithCursor_thenReturnAllUsersOnce() {
+        // Prepare:
+        var birthDates = List.of(LocalDate.of(1985, 1, 1), LocalDate.of(1990, 1, 1), LocalDate.of(1985, 1, 1),
+                LocalDate.of(1970, 6, 15), LocalDate.of(1990, 1, 1));
+        for (var birthDate : birthDates) {
+            var user = getValidUser();
+            user.setBirthDate(birthDate);
+            userService.save(user);
+        }
+        entityManager.flush();
+        var pageable = PageRequest.of(0, 2, Sort.by("birthDate"));
+
+        // Execute:
+        var seen = new ArrayList<UserInfo>();
+        PageCursor cursor = null;
+        KeysetSlice<UserInfo> slice;
+        do {
+            slice = userService.getUserInfos(cursor, pageable, null);
+            seen.addAll(slice.getContent());
+            cursor = slice.getNext();
+        } while (slice.hasNext());
+
+        // Verify:
+        assertEquals(birthDates.size(), seen.size());
+        assertEquals(birthDates.size(), seen.stream().map(UserInfo::getId).distinct().count());
+        var comparator = Comparator.comparing(UserInfo::getBirthDate).thenComparing(UserInfo::getId);
+        assertEquals(seen.stream().sorted(comparator).toList(), seen);
+    }
+
+    @DisplayName("Get all with cursor should compose with date range filter")
+    @Test
+    public void testFindAll_whenPagingWithCursorInRange_thenReturnOnlyUsersInRange() {
+        // Prepare:
+        for (var year : List.of(1960, 1984, 1985, 1986, 2000)) {
+            var user = getValidUser();
+            user.setBirthDate(LocalDate.of(year, 1, 1));
+            userService.save(user);
+        }
+        entityManager.flush();
+        var dateRange = new DateRange(LocalDate.of(1984, 1, 1), LocalDate.of(1986, 1, 1));
+        var pageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "birthDate"));
+
+        // Execute:
+        var first = userService.getUserInfos(null, pageable, dateRange);
+        var second = userService.getUserInfos(first.getNext(), pageable, dateRange);
+
+        // Verify:
+        assertTrue(first.hasNext());
+        assertEquals(List.of(1986, 1985), first.map(user -> user.getBirthDate().getYear()).getContent());
+        assertFalse(second.hasNext());
+        assertEquals(List.of(1984), second.map(user -> user.getBirthDate().getYear()).getContent());
     }
 
     @DisplayName("Get user by id should return existing user")
@@ -251,7 +502,7 @@ public class UserServiceIntegrationTest {
         var savedUser = userService.save(validUser);
 
         // Update:
-        userService.updateById(savedUser.getId(), userForUpdate);
+        userService.updateById(savedUser.getId(), userForUpdate, null);
         var foundUser = userService.getById(savedUser.getId());
 
         // Verify:
@@ -288,7 +539,7 @@ public class UserServiceIntegrationTest {
 
         // Update:
         Exception exception = assertThrows(RuntimeException.class,
-                () -> userService.updateById(savedUserToUpdate.getId(), userForUpdate));
+                () -> userService.updateById(savedUserToUpdate.getId(), userForUpdate, null));
 
         // Verify:
         assertEquals("User with this email already registered", exception.getMessage());
@@ -322,6 +573,84 @@ public class UserServiceIntegrationTest {
         assertEquals(message, exception.getMessage());
     }
 
+    @DisplayName("Delete by id should delete the address of the user")
+    @Test
+    public void testDeleteById_whenUserHasAddress_thenDeleteAddress() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        var addressId = savedUser.getAddress().getId();
+
+        // Execute:
+        userService.deleteById(savedUser.getId());
+
+        // Verify:
+        assertNull(entityManager.find(Address.class, addressId));
+    }
+
+    @DisplayName("Delete all by ids should delete the existing users and their addresses")
+    @Test
+    public void testDeleteAllById_whenSomeIdsAreMissing_thenDeleteExistingUsers() {
+        // Prepare:
+        var savedUsers = Stream.generate(FakeData::getValidUser).limit(3).map(userService::save).toList();
+        var cachedUser = userService.getInfoById(savedUsers.getFirst().getId()).user();
+        var ids = new ArrayList<>(savedUsers.stream().map(User::getId).toList());
+        ids.add(Long.MAX_VALUE);
+
+        // Execute:
+        var deleted = userService.deleteAllById(ids);
+
+        // Verify:
+        assertEquals(3, deleted);
+        savedUsers.forEach(user -> {
+            assertTrue(userRepository.findById(user.getId()).isEmpty());
+            assertNull(entityManager.find(Address.class, user.getAddress().getId()));
+        });
+        assertThrows(EntityNotFoundException.class, () -> userService.getInfoById(cachedUser.getId()));
+    }
+
+    @DisplayName("Delete all by filter should delete only the matching users")
+    @Test
+    public void testDeleteAll_whenFilterIsGiven_thenDeleteMatchingUsers() {
+        // Prepare:
+        var birthDate = LocalDate.of(1905, 5, 5);
+        var matchingUsers = Stream.generate(FakeData::getValidUser).limit(3)
+                .peek(user -> user.setBirthDate(birthDate))
+                .map(userService::save)
+                .toList();
+        var otherUser = userService.save(getValidUser());
+        var createdBefore = LocalDateTime.now().plusMinutes(1);
+
+        // Execute:
+        var deleted = userService.deleteAll(new DateRange(birthDate, birthDate), createdBefore);
+
+        // Verify:
+        assertEquals(3, deleted);
+        matchingUsers.forEach(user -> assertTrue(userRepository.findById(user.getId()).isEmpty()));
+        assertTrue(userRepository.findById(otherUser.getId()).isPresent());
+        assertEquals(0, userService.deleteAll(null, LocalDateTime.of(1900, 1, 1, 0, 0)));
+    }
+
+    @DisplayName("Delete users by filter should delete the matching users after the given ID in ID order")
+    @Test
+    public void testDeleteUsers_whenAfterIdIsGiven_thenDeleteNextMatchingUsers() {
+        // Prepare:
+        var birthDate = LocalDate.of(1905, 5, 5);
+        var ids = Stream.generate(FakeData::getValidUser).limit(4)
+                .peek(user -> user.setBirthDate(birthDate))
+                .map(userService::save)
+                .map(User::getId)
+                .sorted()
+                .toList();
+
+        // Execute:
+        var deleted = userRepository.deleteUsers(new DateRange(birthDate, birthDate), null, ids.get(0), 2);
+
+        // Verify:
+        assertEquals(List.of(ids.get(1), ids.get(2)), deleted.stream().map(DeletedUser::id).sorted().toList());
+        assertTrue(userRepository.findById(ids.get(0)).isPresent());
+        assertTrue(userRepository.findById(ids.get(3)).isPresent());
+    }
+
     @DisplayName("Update email should update email in DB")
     @Test
     public void testUpdateEmail_whenIdIsValid_thenUpdateEmail() {
@@ -332,7 +661,7 @@ public class UserServiceIntegrationTest {
         var newEmail = "emai.for.update@domain.com";
 
         // Update:
-        userService.updateEmail(savedUser.getId(), newEmail);
+        userService.updateEmail(savedUser.getId(), newEmail, null);
 
         // Verify:
         var updatedUserOptional = userRepository.findById(savedUser.getId());
@@ -346,7 +675,7 @@ public class UserServiceIntegrationTest {
     public void testUpdateEmail_whenIdIsInvalid_thenThrowException(Long id) {
         // Execute:
         var exception = assertThrows(EntityNotFoundException.class,
-                () -> userService.updateEmail(id, getValidEmail()));
+                () -> userService.updateEmail(id, getValidEmail(), null));
 
         // Verify:
         assertEquals("User with id " + id + " was not found", exception.getMessage());
@@ -361,7 +690,7 @@ public class UserServiceIntegrationTest {
 
         // Update:
         Exception exception = assertThrows(EntityAlreadyExistsException.class,
-                () -> userService.updateEmail(savedUser1.getId(), savedUser2.getEmail()));
+                () -> userService.updateEmail(savedUser1.getId(), savedUser2.getEmail(), null));
 
         // Verify:
         assertEquals("User with this email already registered", exception.getMessage());
@@ -377,12 +706,63 @@ public class UserServiceIntegrationTest {
         var newAddress = getValidAddress();
 
         // Update:
-        userService.updateAddress(savedUser.getId(), newAddress);
+        var returnedUser = userService.updateAddress(savedUser.getId(), newAddress, null);
 
         // Verify:
         var updatedUserOptional = userRepository.findById(savedUser.getId());
         var updatedUser = updatedUserOptional.get();
-        assertEquals(newAddress, updatedUser.getAddress());
+        assertEquals(returnedUser.getAddress(), updatedUser.getAddress());
+        assertEquals(newAddress.getCity(), updatedUser.getAddress().getCity());
+        assertEquals(newAddress.getStreet(), updatedUser.getAddress().getStreet());
+    }
+
+    @DisplayName("Update address based on an outdated version should not insert the address")
+    @Test
+    public void testUpdateAddress_whenVersionIsOutdated_thenKeepAddresses() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+        var addresses = entityManager.createQuery("select count(a) from Address a", Long.class)
+                .getSingleResult();
+
+        // Execute:
+        assertThrows(PreconditionFailedException.class,
+                () -> userService.updateAddress(savedUser.getId(), getValidAddress(), savedUser.getVersion() + 1));
+
+        // Verify:
+        assertEquals(addresses, entityManager.createQuery("select count(a) from Address a", Long.class)
+                .getSingleResult());
+    }
+
+    @DisplayName("Update phone should update phone, version and update time in DB")
+    @Test
+    public void testUpdatePhone_whenIdIsValid_thenUpdatePhone() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+        var version = userService.getVersionById(savedUser.getId());
+
+        // Execute:
+        var returnedUser = userService.updatePhone(savedUser.getId(), new Phone().phone("+380501234567"), null);
+
+        // Verify:
+        var updatedUser = userRepository.findById(savedUser.getId()).orElseThrow();
+        assertEquals("+380501234567", updatedUser.getPhone());
+        assertEquals(version.version() + 1, updatedUser.getVersion());
+        assertTrue(updatedUser.getUpdatedAt().isAfter(version.lastModified()));
+        assertEquals(updatedUser.getUpdatedAt(), returnedUser.getUpdatedAt());
+        assertEquals(savedUser.getEmail(), returnedUser.getEmail());
+    }
+
+    @DisplayName("Update phone should throw exception when id is invalid")
+    @Test
+    public void testUpdatePhone_whenIdIsInvalid_thenThrowException() {
+        // Execute:
+        var exception = assertThrows(EntityNotFoundException.class,
+                () -> userService.updatePhone(Long.MAX_VALUE, new Phone().phone("911"), 1L));
+
+        // Verify:
+        assertEquals("User with id " + Long.MAX_VALUE + " was not found", exception.getMessage());
     }
 
     @DisplayName("Delete an address of existing user should delete address from DB")
@@ -409,4 +789,232 @@ public class UserServiceIntegrationTest {
         assertEquals("User with id " + Long.MAX_VALUE + " was not found", exception.getMessage());
     }
 
+    @DisplayName("Get user info by ID should return the cached user on subsequent calls")
+    @Test
+    public void testGetInfoById_whenCalledTwice_thenReturnCachedUser() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+
+        // Execute:
+        var firstUser = userService.getInfoById(savedUser.getId());
+        var secondUser = userService.getInfoById(savedUser.getId());
+
+        // Verify:
+        assertSame(firstUser, secondUser);
+        assertEquals(savedUser.getVersion(), firstUser.version().version());
+        assertNotNull(cacheManager.getCache(CacheConfig.USERS_CACHE).get(savedUser.getId()));
+    }
+
+    @DisplayName("Get by ID should load the user and its address with one statement")
+    @Test
+    public void testGetById_whenUserIsNotCached_thenExecuteOneStatement() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Execute:
+        try (var scope = StatementScope.open("getById")) {
+            var user = userService.getById(savedUser.getId());
+            assertNotNull(user.getAddress().getCity());
+
+            // Verify:
+            assertEquals(1, scope.count());
+        }
+    }
+
+    @DisplayName("Get user info by ID should load the user and its address with one statement")
+    @Test
+    public void testGetInfoById_whenUserIsNotCached_thenExecuteOneStatement() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+
+        // Execute:
+        try (var scope = StatementScope.open("getInfoById")) {
+            var user = userService.getInfoById(savedUser.getId());
+            assertNotNull(user.user().getAddress().getCity());
+
+            // Verify:
+            assertEquals(1, scope.count());
+        }
+    }
+
+    @DisplayName("Get user info by ID of a cached user should execute no statement")
+    @Test
+    public void testGetInfoById_whenUserIsCached_thenExecuteNoStatement() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+        userService.getInfoById(savedUser.getId());
+
+        // Execute:
+        try (var scope = StatementScope.open("getInfoById")) {
+            userService.getInfoById(savedUser.getId());
+
+            // Verify:
+            assertEquals(0, scope.count());
+        }
+    }
+
+    @DisplayName("Update of a cached user should invalidate it in the cache")
+    @Test
+    public void testUpdateEmail_whenUserIsCached_thenInvalidateUser() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+        var cachedUser = userService.getInfoById(savedUser.getId());
+        var newEmail = getValidEmail();
+
+        // Execute:
+        userService.updateEmail(savedUser.getId(), newEmail, null);
+
+        // Verify:
+        var user = userService.getInfoById(savedUser.getId());
+        assertEquals(newEmail, user.user().getEmail());
+        assertEquals(cachedUser.version().version() + 1, user.version().version());
+        assertSame(user, userService.getInfoById(savedUser.getId()));
+    }
+
+    @DisplayName("Deletion of a cached user should invalidate it in the cache")
+    @Test
+    public void testDeleteById_whenUserIsCached_thenInvalidateUser() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+        userService.getInfoById(savedUser.getId());
+
+        // Execute:
+        userService.deleteById(savedUser.getId());
+
+        // Verify:
+        assertThrows(EntityNotFoundException.class, () -> userService.getInfoById(savedUser.getId()));
+    }
+
+    @DisplayName("Version of a user should be its stored version and update time")
+    @Test
+    public void testGetVersionById_whenUserIsSaved_thenReturnVersion() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Execute:
+        var version = userService.getVersionById(savedUser.getId());
+
+        // Verify:
+        var storedUser = userRepository.findById(savedUser.getId()).orElseThrow();
+        assertEquals(new EntityVersion(storedUser.getVersion(), storedUser.getUpdatedAt()), version);
+        assertThrows(EntityNotFoundException.class, () -> userService.getVersionById(Long.MAX_VALUE));
+    }
+
+    @DisplayName("Update based on the current version should increment the version")
+    @Test
+    public void testUpdateEmail_whenVersionIsCurrent_thenIncrementVersion() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+        var version = userService.getVersionById(savedUser.getId()).version();
+
+        // Execute:
+        var updatedUser = userService.updateEmail(savedUser.getId(), getValidEmail(), version);
+
+        // Verify:
+        assertEquals(version + 1, updatedUser.getVersion());
+    }
+
+    @DisplayName("Update based on an outdated version should be rejected")
+    @Test
+    public void testUpdateEmail_whenVersionIsOutdated_thenThrowException() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+        var version = userService.getVersionById(savedUser.getId()).version();
+        userService.updateAddress(savedUser.getId(), getValidAddress(), version);
+        entityManager.flush();
+        var newEmail = getValidEmail();
+
+        // Execute:
+        var exception = assertThrows(PreconditionFailedException.class,
+                () -> userService.updateEmail(savedUser.getId(), newEmail, version));
+
+        // Verify:
+        assertEquals(String.format("User with id %d was modified, its current version is %d",
+                savedUser.getId(), version + 1), exception.getMessage());
+        assertNotEquals(newEmail, userRepository.findById(savedUser.getId()).orElseThrow().getEmail());
+    }
+
+    @DisplayName("Version of users should change when a user is added, updated or removed")
+    @Test
+    public void testReadIfModified_whenUsersChange_thenVersionChanges() {
+        // Prepare:
+        var savedUser = userService.save(getValidUser());
+        entityManager.flush();
+        var versions = new ArrayList<CollectionVersion>();
+        versions.add(version(null));
+
+        // Execute:
+        userService.save(getValidUser());
+        entityManager.flush();
+        versions.add(version(null));
+        userService.updateEmail(savedUser.getId(), getValidEmail(), null);
+        versions.add(version(null));
+        userService.deleteById(savedUser.getId());
+        entityManager.flush();
+        versions.add(version(null));
+
+        // Verify:
+        assertEquals(versions.size(), versions.stream().distinct().count());
+    }
+
+    @DisplayName("Users should not be read if the client has their version")
+    @Test
+    public void testReadIfModified_whenNotModified_thenUsersAreNotRead() {
+        // Prepare:
+        userService.save(getValidUser());
+        entityManager.flush();
+        var version = version(null);
+
+        // Execute:
+        try (var scope = StatementScope.open("readIfModified")) {
+            var page = userService.readIfModified(null, version::equals, v -> fail("Users were read"));
+
+            // Verify:
+            assertTrue(page.isEmpty());
+            assertEquals(1, scope.count());
+        }
+    }
+
+    @DisplayName("Users should be read after their version if the client does not have it")
+    @Test
+    public void testReadIfModified_whenModified_thenUsersAreRead() {
+        // Prepare:
+        userService.save(getValidUser());
+        entityManager.flush();
+        var version = version(null);
+
+        // Execute:
+        try (var scope = StatementScope.open("readIfModified")) {
+            var page = userService.readIfModified(null, v -> false,
+                    v -> userService.getUserInfos(PageRequest.of(0, 10), null, TotalsMode.EXACT, v.count()));
+
+            // Verify:
+            assertEquals(version.count(), page.orElseThrow().getTotalElements());
+            assertEquals(2, scope.count());
+        }
+    }
+
+    /**
+     * Reads the version of the users with a conditional read that reads no
+     * users.
+     */
+    private CollectionVersion version(DateRange dateRange) {
+        var versions = new ArrayList<CollectionVersion>(1);
+        userService.readIfModified(dateRange, versions::add, v -> null);
+        return versions.getFirst();
+    }
+
+    private static String city(Address address) {
+        return address == null ? null : address.getCity();
+    }
 }
@@ -0,0 +1,150 @@
+package com.github.malyshevhen.services.impl;
+
+import static com.github.malyshevhen.testutils.FakeData.getValidEmail;
+import static com.github.malyshevhen.testutils.FakeData.getValidUser;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.github.malyshevhen.configs.TestApplicationConfig;
+import com.github.malyshevhen.domain.dto.TotalsMode;
+import com.github.malyshevhen.services.UserService;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.SneakyThrows;
+
+/**
+ * Checks that the JDBC and Hibernate path of the user service does not pin
+ * virtual threads.
+ * </p>
+ * A virtual thread blocking inside a {@code synchronized} block or a native
+ * frame stays mounted on its carrier thread, so a few of them waiting on the
+ * database would stall all other virtual threads. More virtual threads than
+ * pooled connections run the service operations, so they also wait for
+ * connections, and the {@code jdk.VirtualThreadPinned} events are recorded with
+ * JFR. The connection timeout is raised, so the check does not depend on the
+ * speed of the machine. The tests are not transactional and remove the users
+ * they create.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.pools.interactive.connection-timeout=30s" })
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class UserVirtualThreadPinningIntegrationTest {
+
+    private static final int THREADS = 32;
+
+    /**
+     * Packages of the database path; pinning elsewhere, e.g. in class loading,
+     * is not caused by the application.
+     */
+    private static final List<String> DATABASE_PATH = List.of("com.github.malyshevhen.", "org.hibernate.",
+            "org.postgresql.", "com.zaxxer.hikari.", "org.springframework.orm.", "org.springframework.jdbc.",
+            "org.springframework.transaction.");
+
+    @Autowired
+    private UserService userService;
+
+    @DisplayName("Service operations run on virtual threads should not pin them")
+    @Test
+    public void testServiceOperations_whenRunOnVirtualThreads_thenThreadsAreNotPinned() {
+        // Prepare:
+        var pinned = new ConcurrentLinkedQueue<RecordedEvent>();
+        var ids = new ConcurrentLinkedQueue<Long>();
+
+        // Execute:
+        try (var recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            runOnVirtualThreads(() -> {
+                var id = userService.save(getValidUser()).getId();
+                ids.add(id);
+                userService.getById(id);
+                userService.getUserInfos(PageRequest.of(0, 20), null, TotalsMode.ESTIMATED);
+                userService.updateEmail(id, getValidEmail(), null);
+                userService.getVersionById(id);
+            });
+
+            recording.stop();
+        } finally {
+            if (!ids.isEmpty()) userService.deleteAllById(ids);
+        }
+
+        // Verify:
+        var pinnedOnDatabasePath = pinned.stream()
+                .filter(UserVirtualThreadPinningIntegrationTest::isOnDatabasePath)
+                .toList();
+        assertTrue(pinnedOnDatabasePath.isEmpty(), () -> "Pinned virtual threads:\n" + pinnedOnDatabasePath
+                .stream()
+                .map(event -> event.getStackTrace().getFrames().stream()
+                        .limit(15)
+                        .map(frame -> "    at " + frame.getMethod().getType().getName() + "."
+                                + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                        .collect(Collectors.joining("\n")))
+                .collect(Collectors.joining("\n\n")));
+    }
+
+    private static boolean isOnDatabasePath(RecordedEvent event) {
+        return event.getStackTrace() != null && event.getStackTrace().getFrames().stream()
+                .map(RecordedFrame::getMethod)
+                .map(method -> method.getType().getName())
+                .anyMatch(type -> DATABASE_PATH.stream().anyMatch(type::startsWith));
+    }
+
+    /**
+     * Runs the task in {@value #THREADS} virtual threads released at the same
+     * time, and waits for all of them.
+     *
+     * @param task the task
+     */
+    @SneakyThrows
+    private static void runOnVirtualThreads(Runnable task) {
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            for (var future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    throw ex.getCause();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.malyshevhen.testutils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Minimal harness for the benchmark tests, which compare alternative
+ * implementations against a real database. Microbenchmarks of code without
+ * I/O are JMH benchmarks instead, run with the {@code jmh} Maven profile.
+ * </p>
+ * An operation is run a number of times to warm up, then every call is timed,
+ * either one call at a time or by concurrent workers. The summary reports the
+ * throughput and latency percentiles, and for calls on a single thread the
+ * bytes allocated per call and the garbage collections during the calls, like
+ * the GC profiler of JMH. Summaries are printed, and appended to the CSV file
+ * named by the {@value #REPORT_PROPERTY} system property, if set, so results
+ * can be compared between runs and releases. Benchmark tests are tagged
+ * {@value #TAG} and only run with the {@code benchmark} Maven profile; those
+ * against the database are declared with {@link DatabaseBenchmark} and seed
+ * their users with {@link SeededUsers}. JMH benchmarks extend
+ * {@link JmhBenchmark}.
+ */
+public final class Benchmarks {
+
+    /**
+     * Tag of the benchmark tests.
+     */
+    public static final String TAG = "benchmark";
+
+    /**
+     * System property naming the CSV file the summaries are appended to.
+     */
+    public static final String REPORT_PROPERTY = "benchmark.report";
+
+    /**
+     * System property with the version of the benchmarked application, written
+     * to the report.
+     */
+    public static final String VERSION_PROPERTY = "benchmark.version";
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Warms up and times an operation.
+     *
+     * @param name       the name of the operation in the summary
+     * @param warmups    the number of untimed calls
+     * @param iterations the number of timed calls
+     * @param operation  the operation
+     * @return the summary of the timed calls
+     */
+    public static Summary measure(String name, int warmups, int iterations, Runnable operation) {
+        for (int i = 0; i < warmups; i++) {
+            operation.run();
+        }
+
+        var latencies = new long[iterations];
+        var collections = collectionCount();
+        var allocated = THREADS.getCurrentThreadAllocatedBytes();
+        var start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            var callStart = System.nanoTime();
+            operation.run();
+            latencies[i] = System.nanoTime() - callStart;
+        }
+        var elapsed = System.nanoTime() - start;
+        allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+        collections = collectionCount() - collections;
+
+        Arrays.sort(latencies);
+        var summary = new Summary(name, iterations, elapsed, percentile(latencies, 0.5),
+                percentile(latencies, 0.99), (double) allocated / iterations, collections);
+        report(summary);
+        return summary;
+    }
+
+    /**
+     * Warms up and times an operation called by concurrent workers, each
+     * running on its own virtual thread and calling the operation in a loop.
+     * The throughput is the total number of calls over the time until the last
+     * worker completes.
+     *
+     * @param name        the name of the operation in the summary
+     * @param concurrency the number of workers
+     * @param warmups     the number of untimed calls of each worker
+     * @param iterations  the number of timed calls of each worker
+     * @param operation   the operation
+     * @return the summary of the timed calls
+     */
+    public static Summary measureConcurrently(String name, int concurrency, int warmups, int iterations,
+            Runnable operation) {
+        runConcurrently(concurrency, worker -> {
+            for (int i = 0; i < warmups; i++) {
+                operation.run();
+            }
+        });
+
+        var latencies = new long[concurrency * iterations];
+        var start = System.nanoTime();
+        runConcurrently(concurrency, worker -> {
+            for (int i = 0; i < iterations; i++) {
+                var callStart = System.nanoTime();
+                operation.run();
+                latencies[worker * iterations + i] = System.nanoTime() - callStart;
+            }
+        });
+        var elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        var summary = new Summary(name, latencies.length, elapsed, percentile(latencies, 0.5),
+                percentile(latencies, 0.99), Double.NaN, -1);
+        report(summary);
+        return summary;
+    }
+
+    private static long collectionCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .filter(count -> count >= 0)
+                .sum();
+    }
+
+    private static synchronized void report(Summary summary) {
+        System.out.println(summary);
+        var report = System.getProperty(REPORT_PROPERTY);
+        if (report == null || report.isBlank()) {
+            return;
+        }
+        var path = Path.of(report);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.notExists(path)) {
+                Files.writeString(path, "version,name,iterations,ops_per_s,p50_ms,p99_ms,bytes_per_op,gc_count\n");
+            }
+            var line = String.format(Locale.ROOT, "%s,\"%s\",%d,%.1f,%.3f,%.3f,%.1f,%d%n",
+                    System.getProperty(VERSION_PROPERTY, ""), summary.name().replace("\"", "\"\""),
+                    summary.iterations(), summary.throughput(), summary.p50Nanos() / 1e6,
+                    summary.p99Nanos() / 1e6, summary.bytesPerOp(), summary.gcCount());
+            Files.writeString(path, line, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write the benchmark report " + path, ex);
+        }
+    }
+
+    private static void runConcurrently(int concurrency, IntConsumer worker) {
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<?>>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                var index = i;
+                futures.add(executor.submit(() -> worker.accept(index)));
+            }
+            for (var future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the workers", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("A worker failed", ex.getCause());
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+    }
+
+    /**
+     * Timings of an operation.
+     *
+     * @param name         the name of the operation
+     * @param iterations   the number of timed calls
+     * @param elapsedNanos the total time of the timed calls
+     * @param p50Nanos     the median latency
+     * @param p99Nanos     the 99th percentile latency
+     * @param bytesPerOp   the bytes allocated per call, {@code NaN} if not
+     *                     measured
+     * @param gcCount      the number of garbage collections during the calls,
+     *                     {@code -1} if not measured
+     */
+    public record Summary(String name, int iterations, long elapsedNanos, long p50Nanos, long p99Nanos,
+            double bytesPerOp, long gcCount) {
+
+        /**
+         * Returns the number of calls per second.
+         *
+         * @return the throughput
+         */
+        public double throughput() {
+            return iterations * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            var timings = String.format("%-40s %8.1f ops/s  p50 %8.3f ms  p99 %8.3f ms", name, throughput(),
+                    p50Nanos / 1e6, p99Nanos / 1e6);
+            return Double.isNaN(bytesPerOp) ? timings
+                    : timings + String.format("  alloc %10.1f B/op  gc %4d", bytesPerOp, gcCount);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.malyshevhen.testutils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.github.malyshevhen.configs.TestApplicationConfig;
+
+/**
+ * Declares a benchmark test of the application against a PostgreSQL
+ * container, tagged {@value Benchmarks#TAG} so it only runs with the
+ * {@code benchmark} Maven profile.
+ * </p>
+ * The application context is configured as in the integration tests, and
+ * discarded after the benchmark, so settings tuned for a benchmark do not leak
+ * into other tests.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@Tag(Benchmarks.TAG)
+@ActiveProfiles("test")
+@SpringBootTest
+@Import({ TestApplicationConfig.class })
+@Testcontainers
+@DirtiesContext
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public @interface DatabaseBenchmark {
+
+    /**
+     * The web environment of the application, without a server by default.
+     */
+    @AliasFor(annotation = SpringBootTest.class)
+    SpringBootTest.WebEnvironment webEnvironment() default SpringBootTest.WebEnvironment.NONE;
+
+    /**
+     * Properties of the application tuned for the benchmark.
+     */
+    @AliasFor(annotation = SpringBootTest.class)
+    String[] properties() default {};
+}
@@ -2,6 +2,7 @@ package com.github.malyshevhen.testutils;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import com.github.malyshevhen.dto.UserInfo;
@@ -12,6 +13,8 @@ import com.github.malyshevhen.domain.models.User;
 
 public class FakeData {
 
+    private static final AtomicInteger EMAIL_SEQUENCE = new AtomicInteger();
+
     public static User getValidUser() {
         return User.builder()
                 .email(getValidEmail())
@@ -65,7 +68,8 @@ public class FakeData {
     }
 
     public static String getValidEmail() {
-        var username = (getRandomFirstName() + "." + getRandomLastName()).toLowerCase();
+        var username = (getRandomFirstName() + "." + getRandomLastName()).toLowerCase()
+                + EMAIL_SEQUENCE.incrementAndGet();
         var subdomains = List.of("gmail", "ukr", "yahoo", "outlook", "meta");
         var domains = List.of(".com", ".ua", ".net", ".org");
 
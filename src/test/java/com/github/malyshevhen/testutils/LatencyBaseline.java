@@ -0,0 +1,124 @@
+package com.github.malyshevhen.testutils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Saved latency percentiles of the load test scenarios, for failing a load
+ * test whose latencies regressed.
+ * </p>
+ * The baseline is a properties file with the 50th and 99th percentile latency
+ * of every scenario in milliseconds, e.g. {@code getById.p99=12.5}. A
+ * percentile regresses when it exceeds the saved one by more than the relative
+ * tolerance plus an absolute slack, which keeps short pauses of a busy machine
+ * from failing scenarios with low latencies. Scenarios missing from the
+ * baseline are not checked.
+ */
+public final class LatencyBaseline {
+
+    private static final double[] PERCENTILES = { 50, 99 };
+
+    private final Properties latencies;
+
+    private LatencyBaseline(Properties latencies) {
+        this.latencies = latencies;
+    }
+
+    /**
+     * Reads a baseline.
+     *
+     * @param file the baseline file
+     * @return the baseline, empty if the file does not exist
+     */
+    public static LatencyBaseline read(Path file) {
+        var latencies = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                latencies.load(reader);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not read the latency baseline " + file, ex);
+            }
+        }
+        return new LatencyBaseline(latencies);
+    }
+
+    /**
+     * Saves the latencies of a load test as the baseline.
+     *
+     * @param file    the baseline file
+     * @param results the results of the load test
+     */
+    public static void save(Path file, Collection<LoadGenerator.Result> results) {
+        var latencies = new Properties();
+        for (var result : results) {
+            for (var percentile : PERCENTILES) {
+                latencies.setProperty(key(result.name(), percentile),
+                        String.format(Locale.ROOT, "%.3f", result.percentileMillis(percentile)));
+            }
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                latencies.store(writer, "Latencies of the load test scenarios in milliseconds");
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not save the latency baseline " + file, ex);
+        }
+    }
+
+    /**
+     * Returns whether the baseline has no latencies, e.g. it was never saved.
+     *
+     * @return {@code true} if the baseline is empty
+     */
+    public boolean isEmpty() {
+        return latencies.isEmpty();
+    }
+
+    /**
+     * Compares the latencies of a load test with the baseline.
+     *
+     * @param results     the results of the load test
+     * @param tolerance   the allowed relative increase, e.g. {@code 0.5} for 50%
+     * @param slackMillis the allowed absolute increase on top of the relative
+     *                    one, in milliseconds
+     * @return descriptions of the regressed percentiles, empty if none
+     *         regressed
+     */
+    public List<String> regressions(Collection<LoadGenerator.Result> results, double tolerance,
+            double slackMillis) {
+        var regressions = new ArrayList<String>();
+        for (var result : results) {
+            for (var percentile : PERCENTILES) {
+                var saved = latencies.getProperty(key(result.name(), percentile));
+                if (saved == null) {
+                    continue;
+                }
+                var limit = Double.parseDouble(saved) * (1 + tolerance) + slackMillis;
+                var measured = result.percentileMillis(percentile);
+                if (measured > limit) {
+                    regressions.add(String.format(Locale.ROOT, "%s p%s: %.3f ms, baseline %s ms, limit %.3f ms",
+                            result.name(), formatPercentile(percentile), measured, saved, limit));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    private static String key(String scenario, double percentile) {
+        return scenario + ".p" + formatPercentile(percentile);
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
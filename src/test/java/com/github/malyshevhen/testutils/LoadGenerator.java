@@ -0,0 +1,203 @@
+package com.github.malyshevhen.testutils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Open-model load generator for the load tests, recording the latencies of
+ * weighted scenarios in HdrHistograms.
+ * </p>
+ * Calls are started at a fixed rate regardless of how long earlier calls take,
+ * each on its own virtual thread, and the scenario of each call is chosen at
+ * random by weight. The latency of a call is measured from the time it was
+ * scheduled to start, not from the time it actually started, so a stalled
+ * server is not hidden by the generator waiting for it (coordinated
+ * omission). A scenario fails a call by throwing; failed calls are counted and
+ * not recorded.
+ */
+public final class LoadGenerator {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final List<Scenario> scenarios = new ArrayList<>();
+    private int totalWeight;
+
+    /**
+     * Adds a scenario.
+     *
+     * @param name      the name of the scenario in the reports
+     * @param weight    the relative number of calls of the scenario
+     * @param operation the call
+     * @return this generator
+     */
+    public LoadGenerator scenario(String name, int weight, Runnable operation) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("The weight of a scenario must be positive");
+        }
+        scenarios.add(new Scenario(name, weight, operation));
+        totalWeight += weight;
+        return this;
+    }
+
+    /**
+     * Calls the scenarios at a fixed rate for a while and waits for the calls
+     * to complete.
+     *
+     * @param ratePerSecond the number of calls started per second
+     * @param duration      how long calls are started
+     * @return the results by scenario name, in the order of the scenarios
+     */
+    public Map<String, Result> run(int ratePerSecond, Duration duration) {
+        var results = new LinkedHashMap<String, Result>();
+        scenarios.forEach(scenario -> results.put(scenario.name(), new Result(scenario.name())));
+
+        var interval = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        var calls = duration.toNanos() / interval;
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var start = System.nanoTime();
+            for (long i = 0; i < calls; i++) {
+                var scheduled = start + i * interval;
+                var delay = scheduled - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                var scenario = next();
+                var result = results.get(scenario.name());
+                executor.submit(() -> {
+                    try {
+                        scenario.operation().run();
+                        result.record(System.nanoTime() - scheduled);
+                    } catch (RuntimeException ex) {
+                        result.fail(ex);
+                    }
+                });
+            }
+        }
+        return results;
+    }
+
+    private Scenario next() {
+        var choice = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (var scenario : scenarios) {
+            choice -= scenario.weight();
+            if (choice < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("No scenario was added");
+    }
+
+    private record Scenario(String name, int weight, Runnable operation) {
+    }
+
+    /**
+     * Latencies and failures of the calls of a scenario.
+     */
+    public static final class Result {
+
+        private final String name;
+        private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final LongAdder failures = new LongAdder();
+        private volatile RuntimeException lastFailure;
+
+        private Result(String name) {
+            this.name = name;
+        }
+
+        private void record(long latencyNanos) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        }
+
+        private void fail(RuntimeException ex) {
+            failures.increment();
+            lastFailure = ex;
+        }
+
+        /**
+         * Returns the name of the scenario.
+         *
+         * @return the name
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns the latencies of the successful calls, in microseconds.
+         *
+         * @return the histogram of the latencies
+         */
+        public Histogram latencies() {
+            return latencies;
+        }
+
+        /**
+         * Returns the number of failed calls.
+         *
+         * @return the number of failures
+         */
+        public long failures() {
+            return failures.sum();
+        }
+
+        /**
+         * Returns the failure of the last failed call.
+         *
+         * @return the failure, or {@code null} if no call failed
+         */
+        public RuntimeException lastFailure() {
+            return lastFailure;
+        }
+
+        /**
+         * Returns the latency at a percentile, in milliseconds.
+         *
+         * @param percentile the percentile, from 0 to 100
+         * @return the latency
+         */
+        public double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        /**
+         * Writes the percentile distribution of the latencies, in milliseconds,
+         * in the HdrHistogram format, which can be plotted with the
+         * HdrHistogram plotter.
+         *
+         * @param file the file to write
+         */
+        public void writeDistribution(Path file) {
+            try {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                try (var out = new PrintStream(Files.newOutputStream(file))) {
+                    latencies.outputPercentileDistribution(out, 1000.0);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not write the latency distribution " + file, ex);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-20s %7d calls %5d failed  p50 %9.3f ms  p99 %9.3f ms  p99.9 %9.3f ms  max %9.3f ms",
+                    name, latencies.getTotalCount(), failures(), percentileMillis(50), percentileMillis(99),
+                    percentileMillis(99.9), latencies.getMaxValue() / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.malyshevhen.testutils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import com.github.malyshevhen.domain.models.User;
+import com.github.malyshevhen.services.UserService;
+
+/**
+ * Users saved before a benchmark and deleted after it, together with the
+ * users registered while it runs.
+ */
+public final class SeededUsers {
+
+    private final UserService userService;
+    private final List<Long> ids;
+    private final Queue<Long> registered = new ConcurrentLinkedQueue<>();
+
+    private SeededUsers(UserService userService, List<Long> ids) {
+        this.userService = userService;
+        this.ids = ids;
+    }
+
+    /**
+     * Saves valid users with the service.
+     *
+     * @param userService the service saving the users
+     * @param count       the number of users
+     * @return the saved users
+     */
+    public static SeededUsers save(UserService userService, int count) {
+        var ids = Stream.generate(FakeData::getValidUser).limit(count)
+                .map(userService::save)
+                .map(User::getId)
+                .toList();
+        return new SeededUsers(userService, ids);
+    }
+
+    /**
+     * Returns the IDs of the saved users.
+     *
+     * @return the IDs, in the order the users were saved
+     */
+    public List<Long> ids() {
+        return ids;
+    }
+
+    /**
+     * Returns the ID of a saved user picked at random.
+     *
+     * @return the ID
+     */
+    public Long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    /**
+     * Records a user registered by the benchmark, to be deleted after it.
+     *
+     * @param id the ID of the registered user
+     */
+    public void registered(Long id) {
+        registered.add(id);
+    }
+
+    /**
+     * Takes a user registered by the benchmark, e.g. to delete it during the
+     * benchmark.
+     *
+     * @return the ID of the registered user, or {@code null} if there is none
+     */
+    public Long pollRegistered() {
+        return registered.poll();
+    }
+
+    /**
+     * Deletes the saved users and the registered users that remain.
+     */
+    public void delete() {
+        var all = new ArrayList<>(ids);
+        all.addAll(registered);
+        userService.deleteAllById(all);
+    }
+}
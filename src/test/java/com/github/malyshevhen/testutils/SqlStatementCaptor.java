@@ -0,0 +1,48 @@
+package com.github.malyshevhen.testutils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate {@link StatementInspector} recording every SQL statement prepared
+ * by Hibernate, so tests can make assertions on the generated SQL.
+ * </p>
+ * Register it with the
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}
+ * property. Hibernate instantiates the inspector itself, so the statements are
+ * kept in a static buffer.
+ */
+public class SqlStatementCaptor implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        synchronized (STATEMENTS) {
+            STATEMENTS.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Clears the recorded statements.
+     */
+    public static void clear() {
+        synchronized (STATEMENTS) {
+            STATEMENTS.clear();
+        }
+    }
+
+    /**
+     * Returns the statements recorded since the last {@link #clear()}.
+     *
+     * @return the recorded SQL statements in execution order
+     */
+    public static List<String> statements() {
+        synchronized (STATEMENTS) {
+            return List.copyOf(STATEMENTS);
+        }
+    }
+}